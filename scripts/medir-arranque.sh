@@ -0,0 +1,66 @@
+#!/usr/bin/env bash
+# ===================================================
+# Medición del arranque en frío hasta el primer login
+# ===================================================
+# Compila con el contexto AOT, genera el archivo CDS con una ejecución de
+# entrenamiento y mide el tiempo hasta el primer loginConIntentos correcto
+# (MedicionArranque) en tres modos:
+#   base     perfil por defecto, sin AOT ni CDS
+#   aot      perfil rapido + contexto AOT
+#   aot-cds  perfil rapido + contexto AOT + archivo CDS
+#
+# Necesita la BBDD de application.properties accesible. Sin
+# ARRANQUE_MEDICION_PASSWORD, cada ejecución crea la sonda con una contraseña
+# aleatoria y la borra al terminar; con ella, se usa una sonda ya existente.
+#
+# Uso: scripts/medir-arranque.sh [repeticiones]   (por defecto 5)
+
+set -euo pipefail
+
+REPETICIONES="${1:-5}"
+RAIZ="$(cd "$(dirname "$0")/.." && pwd)"
+DESTINO="$RAIZ/target/arranque"
+JAR_NOMBRE="marcos_Login_web-0.0.1-SNAPSHOT.jar"
+MEDICION="-Darranque.medicion.habilitada=true -Darranque.medicion.salir=true"
+
+cd "$RAIZ"
+sh ./mvnw -q -Paot -DskipTests package
+
+# Jar extraído (bibliotecas en ficheros separados): requisito del archivo CDS
+rm -rf "$DESTINO"
+java -Djarmode=tools -jar "target/$JAR_NOMBRE" extract --destination "$DESTINO"
+JAR="$DESTINO/$JAR_NOMBRE"
+
+# Entrenamiento: arranca, hace el login de la sonda y sale; las clases
+# cargadas quedan en el archivo
+java -XX:ArchiveClassesAtExit="$DESTINO/app.jsa" -Dspring.aot.enabled=true \
+     -Dspring.profiles.active=rapido $MEDICION -jar "$JAR" > "$DESTINO/entrenamiento.log"
+
+medir() {
+    local modo="$1"
+    shift
+    local valores=()
+    for ((i = 1; i <= REPETICIONES; i++)); do
+        local linea
+        linea="$(java "$@" $MEDICION -jar "$JAR" | grep -m1 'MEDICION_ARRANQUE' || true)"
+        if [[ -z "$linea" ]]; then
+            echo "$modo: la ejecución $i no produjo medición" >&2
+            continue
+        fi
+        valores+=("$(sed -E 's/.*primer_login_ms=([0-9]+).*/\1/' <<< "$linea")")
+    done
+    if ((${#valores[@]} == 0)); then
+        printf '%-8s sin mediciones\n' "$modo"
+        return
+    fi
+    local ordenados
+    ordenados="$(printf '%s\n' "${valores[@]}" | sort -n)"
+    printf '%-8s mediana=%6s ms  min=%6s ms  max=%6s ms  (n=%d)\n' "$modo" \
+        "$(sed -n "$(((${#valores[@]} + 1) / 2))p" <<< "$ordenados")" \
+        "$(head -1 <<< "$ordenados")" "$(tail -1 <<< "$ordenados")" "${#valores[@]}"
+}
+
+echo "Tiempo desde el inicio de la JVM hasta el primer login correcto:"
+medir base
+medir aot     -Dspring.aot.enabled=true -Dspring.profiles.active=rapido
+medir aot-cds -XX:SharedArchiveFile="$DESTINO/app.jsa" -Dspring.aot.enabled=true -Dspring.profiles.active=rapido
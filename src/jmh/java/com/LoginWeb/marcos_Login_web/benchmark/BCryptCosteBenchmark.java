@@ -0,0 +1,51 @@
+package com.LoginWeb.marcos_Login_web.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de BCrypt según el factor de trabajo, sin ejecutor ni Spring:
+ * referencia para elegir el factor de PasswordUtil.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class BCryptCosteBenchmark {
+
+    @Param({"8", "10", "12", "14"})
+    int coste;
+
+    private BCryptPasswordEncoder encoder;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        encoder = new BCryptPasswordEncoder(coste);
+        hash = encoder.encode(ContextoBenchmark.PASSWORD);
+    }
+
+    @Benchmark
+    public String hash() {
+        return encoder.encode(ContextoBenchmark.PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verificar() {
+        return encoder.matches(ContextoBenchmark.PASSWORD, hash);
+    }
+}
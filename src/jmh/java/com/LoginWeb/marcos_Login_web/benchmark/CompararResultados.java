@@ -0,0 +1,127 @@
+package com.LoginWeb.marcos_Login_web.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tabla comparativa de dos ejecuciones JMH guardadas con "-rf csv".
+ *
+ * Uso: CompararResultados base.csv actual.csv
+ *
+ * Empareja cada benchmark por nombre y parámetros y muestra la puntuación
+ * de ambas ejecuciones, su error y la variación porcentual.
+ */
+public final class CompararResultados {
+
+    private record Resultado(String unidad, double puntuacion, double error) {
+    }
+
+    private CompararResultados() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: CompararResultados <base.csv> <actual.csv>");
+            System.exit(1);
+        }
+
+        Map<String, Resultado> base = leer(Path.of(args[0]));
+        Map<String, Resultado> actual = leer(Path.of(args[1]));
+
+        List<String> claves = new ArrayList<>(base.keySet());
+        actual.keySet().stream().filter(k -> !base.containsKey(k)).forEach(claves::add);
+
+        int ancho = Math.max(40, claves.stream().mapToInt(String::length).max().orElse(0));
+        String formato = "%-" + ancho + "s  %10s  %18s  %18s  %9s%n";
+
+        System.out.printf(Locale.ROOT, formato, "Benchmark", "Unidad", "Base", "Actual", "Cambio");
+        System.out.println("-".repeat(ancho + 64));
+        for (String clave : claves) {
+            Resultado b = base.get(clave);
+            Resultado a = actual.get(clave);
+            String unidad = (a != null ? a : b).unidad();
+            String cambio = (a != null && b != null && b.puntuacion() != 0)
+                    ? String.format(Locale.ROOT, "%+.1f%%", (a.puntuacion() - b.puntuacion()) * 100 / b.puntuacion())
+                    : "-";
+            System.out.printf(Locale.ROOT, formato, clave, unidad, celda(b), celda(a), cambio);
+        }
+    }
+
+    private static String celda(Resultado r) {
+        return r == null ? "-" : String.format(Locale.ROOT, "%.3f ± %.3f", r.puntuacion(), r.error());
+    }
+
+    /**
+     * Lee un CSV de JMH. Clave: nombre corto del benchmark más sus
+     * parámetros ("ListadoBenchmark.cursorPaginaProfunda [filas=10000]").
+     */
+    private static Map<String, Resultado> leer(Path fichero) throws IOException {
+        List<String> lineas = Files.readAllLines(fichero, StandardCharsets.UTF_8);
+        if (lineas.isEmpty()) {
+            throw new IllegalArgumentException("Fichero de resultados vacío: " + fichero);
+        }
+
+        List<String> cabecera = campos(lineas.get(0));
+        int iBenchmark = cabecera.indexOf("Benchmark");
+        int iPuntuacion = cabecera.indexOf("Score");
+        int iUnidad = cabecera.indexOf("Unit");
+        int iError = iPuntuacion + 1;
+        if (iBenchmark < 0 || iPuntuacion < 0 || iUnidad < 0) {
+            throw new IllegalArgumentException("No es un CSV de JMH: " + fichero);
+        }
+
+        Map<String, Resultado> resultados = new LinkedHashMap<>();
+        for (String linea : lineas.subList(1, lineas.size())) {
+            if (linea.isBlank()) continue;
+            List<String> valores = campos(linea);
+
+            String nombre = valores.get(iBenchmark);
+            int punto = nombre.lastIndexOf('.', nombre.lastIndexOf('.') - 1);
+            StringBuilder clave = new StringBuilder(nombre.substring(punto + 1));
+
+            List<String> parametros = new ArrayList<>();
+            for (int i = 0; i < cabecera.size(); i++) {
+                if (cabecera.get(i).startsWith("Param: ") && i < valores.size() && !valores.get(i).isEmpty()) {
+                    parametros.add(cabecera.get(i).substring(7) + "=" + valores.get(i));
+                }
+            }
+            if (!parametros.isEmpty()) {
+                clave.append(" [").append(String.join(", ", parametros)).append(']');
+            }
+
+            resultados.put(clave.toString(), new Resultado(valores.get(iUnidad),
+                    numero(valores.get(iPuntuacion)), numero(valores.get(iError))));
+        }
+        return resultados;
+    }
+
+    private static double numero(String valor) {
+        return valor.isEmpty() || valor.equals("NaN") ? Double.NaN : Double.parseDouble(valor);
+    }
+
+    private static List<String> campos(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                entreComillas = !entreComillas;
+            } else if (c == ',' && !entreComillas) {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+}
@@ -0,0 +1,64 @@
+package com.LoginWeb.marcos_Login_web.benchmark;
+
+import com.LoginWeb.marcos_Login_web.MarcosLoginWebApplication;
+import com.LoginWeb.marcos_Login_web.util.PasswordUtil;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arranque de la aplicación para los benchmarks: perfil "benchmark"
+ * (H2 en modo MySQL, sin menú ni servidor web) y carga de datos.
+ */
+final class ContextoBenchmark {
+
+    // Contraseña común de los usuarios sembrados: un único hash para toda la carga
+    static final String PASSWORD = "Benchmark123";
+
+    private static final String SQL_INSERT =
+            "INSERT INTO usuarios (username, email, dominio_email, activo, fecha_creacion, " +
+            "fecha_actualizacion) VALUES (?, ?, 'bench.local', ?, ?, ?)";
+
+    // Todos los usuarios sembrados comparten contraseña: una sola sentencia
+    private static final String SQL_INSERT_CREDENCIALES =
+            "INSERT INTO credenciales_usuario (usuario_id, password_hash, intentos_fallidos, bloqueado) " +
+            "SELECT id, ?, 0, false FROM usuarios";
+
+    private static final LocalDateTime FECHA_BASE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private ContextoBenchmark() {
+    }
+
+    static ConfigurableApplicationContext arrancar() {
+        return new SpringApplicationBuilder(MarcosLoginWebApplication.class)
+                .profiles("benchmark")
+                .run();
+    }
+
+    /**
+     * Inserta usuarios "usuario{n}" deterministas: mismas filas, fechas e
+     * IDs en cada ejecución (uno de cada diez inactivo).
+     */
+    static void sembrar(ConfigurableApplicationContext contexto, int filas) {
+        JdbcTemplate jdbc = contexto.getBean(JdbcTemplate.class);
+        String hash = PasswordUtil.generateHash(PASSWORD);
+
+        List<Object[]> lote = new ArrayList<>(1000);
+        for (int i = 0; i < filas; i++) {
+            LocalDateTime fecha = FECHA_BASE.plusMinutes(i);
+            lote.add(new Object[]{"usuario" + i, "usuario" + i + "@bench.local", i % 10 != 0, fecha, fecha});
+            if (lote.size() == 1000) {
+                jdbc.batchUpdate(SQL_INSERT, lote);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            jdbc.batchUpdate(SQL_INSERT, lote);
+        }
+        jdbc.update(SQL_INSERT_CREDENCIALES, hash);
+    }
+}
@@ -0,0 +1,94 @@
+package com.LoginWeb.marcos_Login_web.benchmark;
+
+import com.LoginWeb.marcos_Login_web.dto.PaginaCursor;
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.service.UsuarioService;
+import com.LoginWeb.marcos_Login_web.util.CursorUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listado paginado según el tamaño de la tabla: primera página y página
+ * profunda (el último 10 %), con OFFSET y con cursor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ListadoBenchmark {
+
+    private static final int TAMAÑO_PAGINA = 20;
+
+    @Param({"1000", "10000", "100000"})
+    int filas;
+
+    private ConfigurableApplicationContext contexto;
+    private UsuarioService usuarioService;
+
+    private int paginaProfunda;
+    private String cursorProfundo;
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ContextoBenchmark.arrancar();
+        ContextoBenchmark.sembrar(contexto, filas);
+        usuarioService = contexto.getBean(UsuarioService.class);
+
+        // Misma posición para ambas estrategias: la fila del 90 %
+        int desplazamiento = filas * 9 / 10;
+        paginaProfunda = desplazamiento / TAMAÑO_PAGINA;
+        Long idProfundo = contexto.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT id FROM usuarios ORDER BY id LIMIT 1 OFFSET ?", Long.class,
+                paginaProfunda * TAMAÑO_PAGINA - 1);
+        cursorProfundo = CursorUtil.codificarId(idProfundo);
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Page<Usuario> offsetPrimeraPagina() {
+        return usuarioService.buscarUsuariosPaginados(0, TAMAÑO_PAGINA);
+    }
+
+    @Benchmark
+    public Page<Usuario> offsetPaginaProfunda() {
+        return usuarioService.buscarUsuariosPaginados(paginaProfunda, TAMAÑO_PAGINA);
+    }
+
+    @Benchmark
+    public Page<UsuarioResumen> resumenPaginaProfunda() {
+        return usuarioService.buscarResumenPaginado(paginaProfunda, TAMAÑO_PAGINA);
+    }
+
+    @Benchmark
+    public PaginaCursor<UsuarioResumen> cursorPrimeraPagina() {
+        return usuarioService.listarUsuariosPorCursor(null, TAMAÑO_PAGINA);
+    }
+
+    @Benchmark
+    public PaginaCursor<UsuarioResumen> cursorPaginaProfunda() {
+        return usuarioService.listarUsuariosPorCursor(cursorProfundo, TAMAÑO_PAGINA);
+    }
+}
@@ -0,0 +1,67 @@
+package com.LoginWeb.marcos_Login_web.benchmark;
+
+import com.LoginWeb.marcos_Login_web.util.PasswordHashingExecutor;
+import com.LoginWeb.marcos_Login_web.util.PasswordUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PasswordUtil tal y como lo usa la aplicación: a través del ejecutor de
+ * hashing. Con varios hilos mide también la espera en cola.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms512m", "-Xmx512m"})
+public class PasswordUtilBenchmark {
+
+    @Param({"10", "12"})
+    int coste;
+
+    private PasswordHashingExecutor executor;
+    private PasswordUtil passwordUtil;
+    private String hash;
+
+    @Setup
+    public void preparar() {
+        executor = new PasswordHashingExecutor(0, 200, 10_000);
+        passwordUtil = new PasswordUtil(executor, coste, 0, 0, false, 0);
+        hash = passwordUtil.hashPassword(ContextoBenchmark.PASSWORD);
+    }
+
+    @TearDown
+    public void cerrar() throws InterruptedException {
+        executor.cerrar();
+    }
+
+    @Benchmark
+    public String hashPassword() {
+        return passwordUtil.hashPassword(ContextoBenchmark.PASSWORD);
+    }
+
+    @Benchmark
+    public boolean verifyPassword() {
+        return passwordUtil.verifyPassword(ContextoBenchmark.PASSWORD, hash);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean verifyPasswordConcurrente() {
+        return passwordUtil.verifyPassword(ContextoBenchmark.PASSWORD, hash);
+    }
+}
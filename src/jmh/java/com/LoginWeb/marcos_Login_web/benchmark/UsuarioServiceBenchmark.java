@@ -0,0 +1,119 @@
+package com.LoginWeb.marcos_Login_web.benchmark;
+
+import com.LoginWeb.marcos_Login_web.cache.UsuarioCache;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.repository.UsuarioRepository;
+import com.LoginWeb.marcos_Login_web.service.UsuarioService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caminos calientes de UsuarioService con la aplicación completa sobre H2:
+ * login correcto, fallido y de usuario bloqueado, alta y búsqueda por username.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class UsuarioServiceBenchmark {
+
+    private static final int FILAS = 10_000;
+
+    private ConfigurableApplicationContext contexto;
+    private UsuarioService usuarioService;
+    private UsuarioRepository usuarioRepository;
+    private UsuarioCache usuarioCache;
+    private JdbcTemplate jdbc;
+
+    private final AtomicLong altas = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void arrancar() {
+        contexto = ContextoBenchmark.arrancar();
+        ContextoBenchmark.sembrar(contexto, FILAS);
+        usuarioService = contexto.getBean(UsuarioService.class);
+        usuarioRepository = contexto.getBean(UsuarioRepository.class);
+        usuarioCache = contexto.getBean(UsuarioCache.class);
+        jdbc = contexto.getBean(JdbcTemplate.class);
+
+        // usuario1 queda bloqueado para medir el rechazo temprano
+        jdbc.update("UPDATE credenciales_usuario SET bloqueado = true, intentos_fallidos = ? " +
+                        "WHERE usuario_id = (SELECT id FROM usuarios WHERE username = 'usuario1')",
+                Usuario.MAX_INTENTOS_FALLIDOS);
+    }
+
+    /**
+     * Devuelve a usuario2 a cero intentos antes de cada invocación para que
+     * loginFallido mida siempre un fallo y no un bloqueo. La entrada de caché
+     * se corrige en lugar de invalidarse, así el login sigue siendo "en caliente".
+     */
+    @State(Scope.Benchmark)
+    public static class Desbloqueo {
+
+        private Long id;
+
+        @Setup(Level.Invocation)
+        public void desbloquear(UsuarioServiceBenchmark benchmark) {
+            if (id == null) {
+                id = benchmark.usuarioRepository.findByUsername("usuario2").orElseThrow().getId();
+            }
+            benchmark.jdbc.update("UPDATE credenciales_usuario SET bloqueado = false, intentos_fallidos = 0, " +
+                    "fecha_bloqueo = NULL WHERE usuario_id = ?", id);
+            benchmark.usuarioCache.actualizarEstadoAcceso(id, 0, false, null, null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        contexto.close();
+    }
+
+    @Benchmark
+    public Optional<Usuario> loginCorrecto() {
+        return usuarioService.loginConIntentos("usuario3", ContextoBenchmark.PASSWORD);
+    }
+
+    @Benchmark
+    public Optional<Usuario> loginFallido(Desbloqueo desbloqueo) {
+        return usuarioService.loginConIntentos("usuario2", "incorrecta");
+    }
+
+    @Benchmark
+    public Optional<Usuario> loginBloqueado() {
+        return usuarioService.loginConIntentos("usuario1", ContextoBenchmark.PASSWORD);
+    }
+
+    @Benchmark
+    public Usuario crearUsuario() {
+        long n = altas.incrementAndGet();
+        return usuarioService.crearUsuario("alta" + n, "alta" + n + "@bench.local", ContextoBenchmark.PASSWORD);
+    }
+
+    @Benchmark
+    public Optional<Usuario> findByUsername() {
+        return usuarioRepository.findByUsername("usuario5000");
+    }
+
+    @Benchmark
+    public Optional<Usuario> obtenerPorUsername() {
+        return usuarioService.obtenerPorUsername("usuario5000");
+    }
+}
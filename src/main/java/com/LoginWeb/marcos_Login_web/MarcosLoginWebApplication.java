@@ -1,12 +1,17 @@
 package com.LoginWeb.marcos_Login_web;
 
+import com.LoginWeb.marcos_Login_web.service.ExportacionService;
+import com.LoginWeb.marcos_Login_web.service.ImportacionService;
 import com.LoginWeb.marcos_Login_web.service.UsuarioService;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MarcosLoginWebApplication {
 
 
@@ -14,11 +19,16 @@ public class MarcosLoginWebApplication {
         SpringApplication.run(MarcosLoginWebApplication.class, args);
     }
 
+    // Menú interactivo opcional: --spring.profiles.active=consola.
+    // Corre en su propio hilo para que el arranque termine y la API HTTP quede sirviendo.
     @Bean
-    CommandLineRunner run(UsuarioService usuarioService) {
+    @Profile("consola")
+    CommandLineRunner run(UsuarioService usuarioService, ExportacionService exportacionService,
+                          ImportacionService importacionService) {
         return args -> {
-            Menu menu = new Menu(usuarioService);
-            menu.iniciar(); // Arranca el menú interactivo
+            Menu menu = new Menu(usuarioService, exportacionService, importacionService);
+            Thread hilo = new Thread(menu::iniciar, "menu-consola");
+            hilo.start();
         };
     }
 }
@@ -1,19 +1,45 @@
 package com.LoginWeb.marcos_Login_web;
 
+import com.LoginWeb.marcos_Login_web.dto.ConteoUsuarios;
+import com.LoginWeb.marcos_Login_web.dto.CriteriosMasivos;
+import com.LoginWeb.marcos_Login_web.dto.EstadisticasExportacion;
+import com.LoginWeb.marcos_Login_web.dto.FormatoExportacion;
+import com.LoginWeb.marcos_Login_web.dto.ErrorImportacion;
+import com.LoginWeb.marcos_Login_web.dto.OperacionMasiva;
+import com.LoginWeb.marcos_Login_web.dto.PaginaCursor;
+import com.LoginWeb.marcos_Login_web.dto.ResultadoImportacion;
+import com.LoginWeb.marcos_Login_web.dto.ResultadoOperacionMasiva;
+import com.LoginWeb.marcos_Login_web.dto.ResumenDominio;
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.AltasDiarias;
 import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.service.ExportacionService;
+import com.LoginWeb.marcos_Login_web.service.ImportacionService;
 import com.LoginWeb.marcos_Login_web.service.UsuarioService;
-import org.springframework.data.domain.Page;
 
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 import java.util.Scanner;
 
 public class Menu {
 
     private final UsuarioService usuarioService;
+    private final ExportacionService exportacionService;
+    private final ImportacionService importacionService;
     private final Scanner sc;
 
-    public Menu(UsuarioService usuarioService) {
+    public Menu(UsuarioService usuarioService, ExportacionService exportacionService,
+                ImportacionService importacionService) {
         this.usuarioService = usuarioService;
+        this.exportacionService = exportacionService;
+        this.importacionService = importacionService;
         this.sc = new Scanner(System.in);
     }
 
@@ -35,6 +61,14 @@ public class Menu {
                 case 8 -> cambiarPassword();
                 case 9 -> listarUsuariosPaginados();
                 case 10 -> verificarCredenciales();
+                case 11 -> exportarUsuarios();
+                case 12 -> importarUsuarios();
+                case 13 -> buscarUsuarios();
+                case 14 -> usuariosPorDominio();
+                case 15 -> altasRecientes();
+                case 16 -> desbloquearUsuario();
+                case 17 -> mostrarEstadisticas();
+                case 18 -> operacionMasiva();
                 case 0 -> {
                     salir = true;
                     System.out.println("Saliendo del programa...");
@@ -60,6 +94,14 @@ public class Menu {
         System.out.println("8. Cambiar contraseña");
         System.out.println("9. Listar usuarios paginados");
         System.out.println("10. Verificar credenciales");
+        System.out.println("11. Exportar usuarios (CSV / NDJSON)");
+        System.out.println("12. Importar usuarios desde CSV");
+        System.out.println("13. Buscar usuarios (username/email)");
+        System.out.println("14. Usuarios por dominio de email");
+        System.out.println("15. Altas de los últimos días");
+        System.out.println("16. Desbloquear usuario");
+        System.out.println("17. Estadísticas de usuarios");
+        System.out.println("18. Operación masiva");
         System.out.println("0. Salir");
         System.out.print("Elige una opción: ");
     }
@@ -96,15 +138,15 @@ public class Menu {
     private void listarUsuarios() {
         System.out.println("\n=== USUARIOS ACTIVOS ===");
         System.out.println("-".repeat(70));
-        System.out.printf("%-5s %-15s %-30s %-15s%n", "ID", "USERNAME", "EMAIL", "ÚLTIMO LOGIN");
+        System.out.printf("%-5s %-15s %-30s %-16s%n", "ID", "USERNAME", "EMAIL", "ALTA");
         System.out.println("-".repeat(70));
 
-        usuarioService.obtenerUsuariosActivos().forEach(u ->
-            System.out.printf("%-5d %-15s %-30s %-15s%n",
-                u.getId(),
-                u.getUsername(),
-                u.getEmail(),
-                u.getUltimoLogin() != null ? u.getUltimoLogin().toString().substring(0, 16) : "Nunca"
+        usuarioService.obtenerResumenActivos().forEach(u ->
+            System.out.printf("%-5d %-15s %-30s %-16s%n",
+                u.id(),
+                u.username(),
+                u.email(),
+                u.fechaCreacion() != null ? u.fechaCreacion().toString().substring(0, 16) : ""
             )
         );
     }
@@ -122,7 +164,8 @@ public class Menu {
             System.out.println("   Username: " + u.getUsername());
             System.out.println("   Email: " + u.getEmail());
             System.out.println("   Activo: " + (u.getActivo() ? "Sí" : "No"));
-            System.out.println("   Bloqueado: " + (u.isBloqueado() ? "Sí" : "No"));
+            System.out.println("   Bloqueado: " + (u.isBloqueado()
+                    ? "Sí" + (u.getFechaBloqueo() != null ? " (desde " + u.getFechaBloqueo() + ")" : "") : "No"));
             System.out.println("   Intentos fallidos: " + u.getIntentosFallidos());
             System.out.println("   Último login: " + (u.getUltimoLogin() != null ? u.getUltimoLogin() : "Nunca"));
         } else {
@@ -130,6 +173,145 @@ public class Menu {
         }
     }
 
+    private void buscarUsuarios() {
+        System.out.print("Texto a buscar (username o email): ");
+        String texto = sc.nextLine();
+
+        List<UsuarioResumen> encontrados = usuarioService.buscarUsuarios(texto, 20);
+
+        if (encontrados.isEmpty()) {
+            System.out.println("❌ Ningún usuario coincide");
+            return;
+        }
+        System.out.println("✅ " + encontrados.size() + " usuario(s):");
+        for (UsuarioResumen u : encontrados) {
+            System.out.println("   " + u.id() + " - " + u.username() + " (" + u.email() + ")"
+                    + (Boolean.TRUE.equals(u.activo()) ? "" : " [inactivo]"));
+        }
+    }
+
+    private void usuariosPorDominio() {
+        System.out.print("Dominio (vacío para ver los dominios con más usuarios): ");
+        String dominio = sc.nextLine().trim();
+
+        if (dominio.isEmpty()) {
+            List<ResumenDominio> dominios = usuarioService.obtenerResumenPorDominio(20);
+            System.out.println("📊 Dominios con más usuarios:");
+            for (ResumenDominio d : dominios) {
+                System.out.println("   " + d.dominio() + ": " + d.usuarios() + " usuarios, " + d.activos() + " activos");
+            }
+            return;
+        }
+
+        ResumenDominio resumen = usuarioService.obtenerResumenDominio(dominio);
+        System.out.println("📊 " + resumen.dominio() + ": " + resumen.usuarios() + " usuarios, "
+                + resumen.activos() + " activos");
+        for (Usuario u : usuarioService.obtenerPorDominioEmail(dominio)) {
+            System.out.println("   " + u.getId() + " - " + u.getUsername() + " (" + u.getEmail() + ")");
+        }
+    }
+
+    private void altasRecientes() {
+        System.out.print("Número de días: ");
+        int dias;
+        try {
+            dias = Integer.parseInt(sc.nextLine().trim());
+        } catch (NumberFormatException e) {
+            System.out.println("❌ Número no válido");
+            return;
+        }
+
+        System.out.println("📊 Día        | Altas | Desactivaciones | Reactivaciones");
+        for (AltasDiarias d : usuarioService.obtenerAltasUltimosDias(dias)) {
+            System.out.printf("   %s | %5d | %15d | %14d%n",
+                    d.getDia(), d.getAltas(), d.getDesactivaciones(), d.getReactivaciones());
+        }
+    }
+
+    private void desbloquearUsuario() {
+        System.out.print("Username del usuario a desbloquear: ");
+        String username = sc.nextLine();
+
+        Optional<Usuario> usuarioOpt = usuarioService.obtenerPorUsername(username);
+        if (usuarioOpt.isEmpty()) {
+            System.out.println("❌ Usuario no encontrado");
+            return;
+        }
+        if (usuarioService.desbloquearUsuario(usuarioOpt.get().getId())) {
+            System.out.println("✅ Usuario desbloqueado");
+        } else {
+            System.out.println("ℹ️ El usuario no estaba bloqueado");
+        }
+    }
+
+    private void mostrarEstadisticas() {
+        ConteoUsuarios conteo = usuarioService.obtenerConteoUsuarios();
+        System.out.println("📊 Usuarios: " + conteo.total());
+        System.out.println("   Activos: " + conteo.activos());
+        System.out.println("   Inactivos: " + conteo.inactivos());
+        System.out.println("   Bloqueados: " + conteo.bloqueados());
+    }
+
+    private void operacionMasiva() {
+        System.out.print("Operación (DESACTIVAR/ACTIVAR/DESBLOQUEAR/ELIMINAR): ");
+        OperacionMasiva operacion;
+        try {
+            operacion = OperacionMasiva.valueOf(sc.nextLine().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Operación no válida");
+            return;
+        }
+
+        CriteriosMasivos criterios;
+        try {
+            System.out.print("IDs separados por comas (vacío = sin filtro): ");
+            String ids = sc.nextLine().trim();
+            System.out.print("Dominio de email (vacío = sin filtro): ");
+            String dominio = sc.nextLine().trim();
+            System.out.print("Sin acceso desde, yyyy-MM-dd (vacío = sin filtro): ");
+            String desde = sc.nextLine().trim();
+            System.out.print("¿Bloqueados? S/N (vacío = sin filtro): ");
+            String bloqueado = sc.nextLine().trim();
+
+            criterios = CriteriosMasivos.builder()
+                    .ids(ids.isEmpty() ? null : Arrays.stream(ids.split(","))
+                            .map(String::trim).map(Long::valueOf).toList())
+                    .dominioEmail(dominio.isEmpty() ? null : dominio)
+                    .sinAccesoDesde(desde.isEmpty() ? null : LocalDate.parse(desde).atStartOfDay())
+                    .bloqueado(bloqueado.isEmpty() ? null : bloqueado.equalsIgnoreCase("S"))
+                    .build();
+        } catch (NumberFormatException | DateTimeParseException e) {
+            System.out.println("❌ Criterio no válido: " + e.getMessage());
+            return;
+        }
+
+        if (operacion == OperacionMasiva.ELIMINAR) {
+            System.out.print("⚠️ ¿Estás seguro? Esta acción NO se puede deshacer (S/N): ");
+            if (!sc.nextLine().equalsIgnoreCase("S")) {
+                System.out.println("Operación cancelada");
+                return;
+            }
+        }
+
+        try {
+            ResultadoOperacionMasiva resultado = switch (operacion) {
+                case DESACTIVAR -> usuarioService.desactivarUsuarios(criterios, this::mostrarProgresoMasivo);
+                case ACTIVAR -> usuarioService.activarUsuarios(criterios, this::mostrarProgresoMasivo);
+                case DESBLOQUEAR -> usuarioService.desbloquearUsuarios(criterios, this::mostrarProgresoMasivo);
+                case ELIMINAR -> usuarioService.eliminarUsuarios(criterios, this::mostrarProgresoMasivo);
+            };
+            System.out.println("✅ " + resultado.afectados() + " de " + resultado.candidatos()
+                    + " usuarios en " + resultado.lotes() + " lotes (" + resultado.duracion().toMillis() + " ms)");
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Error: " + e.getMessage());
+        }
+    }
+
+    private void mostrarProgresoMasivo(ResultadoOperacionMasiva progreso) {
+        System.out.println("   Lote " + progreso.lotes() + ": " + progreso.afectados()
+                + " de " + progreso.candidatos() + " usuarios");
+    }
+
     private void actualizarEmail() {
         try {
             System.out.print("Username del usuario a actualizar: ");
@@ -146,7 +328,7 @@ public class Menu {
             System.out.print("Nuevo email: ");
             String nuevoEmail = sc.nextLine();
 
-            usuarioService.actualizarUsuario(usuario.getId(), nuevoEmail, null);
+            usuarioService.actualizarUsuario(usuario.getId(), nuevoEmail);
             System.out.println("✅ Email actualizado correctamente");
         } catch (IllegalArgumentException e) {
             System.out.println("❌ Error: " + e.getMessage());
@@ -204,7 +386,14 @@ public class Menu {
         System.out.print("Password: ");
         String password = sc.nextLine();
 
-        Optional<Usuario> resultado = usuarioService.loginConIntentos(username, password);
+        Optional<Usuario> resultado;
+        try {
+            resultado = usuarioService.loginConIntentos(username, password);
+        } catch (IllegalStateException e) {
+            // Limitador de login o ejecutor de hashing saturado
+            System.out.println("⏳ " + e.getMessage());
+            return;
+        }
 
         if (resultado.isPresent()) {
             Usuario u = resultado.get();
@@ -212,7 +401,6 @@ public class Menu {
             System.out.println("   Bienvenido, " + u.getUsername());
             System.out.println("   Último login anterior: " +
                 (u.getUltimoLogin() != null ? u.getUltimoLogin() : "Primera vez"));
-            usuarioService.actualizarUltimoLogin(u);
         } else {
             System.out.println("❌ Login fallido");
 
@@ -254,7 +442,8 @@ public class Menu {
             usuarioService.cambiarPassword(id, actual, nueva);
             System.out.println("✅ Contraseña cambiada correctamente");
 
-        } catch (IllegalArgumentException e) {
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // Validación, cambio concurrente o ejecutor de hashing saturado
             System.out.println("❌ Error: " + e.getMessage());
         }
     }
@@ -265,7 +454,13 @@ public class Menu {
         System.out.print("Password: ");
         String password = sc.nextLine();
 
-        Optional<Usuario> resultado = usuarioService.verificarCredenciales(username, password);
+        Optional<Usuario> resultado;
+        try {
+            resultado = usuarioService.verificarCredenciales(username, password);
+        } catch (IllegalStateException e) {
+            System.out.println("⏳ " + e.getMessage());
+            return;
+        }
 
         if (resultado.isPresent()) {
             Usuario u = resultado.get();
@@ -288,37 +483,95 @@ public class Menu {
             return;
         }
 
+        String cursor = null;
         int pagina = 0;
-        Page<Usuario> paginaUsuarios;
+        long mostrados = 0;
+        long total = usuarioService.obtenerConteoUsuarios().total();
+        long paginas = Math.max(1, (total + tamaño - 1) / tamaño);
 
-        do {
-            paginaUsuarios = usuarioService.buscarUsuariosPaginados(pagina, tamaño);
+        while (true) {
+            PaginaCursor<UsuarioResumen> paginaUsuarios = usuarioService.listarUsuariosPorCursor(cursor, tamaño);
+            pagina++;
 
-            System.out.println("\n=== PÁGINA " + (pagina + 1) + " DE " + paginaUsuarios.getTotalPages() + " ===");
+            System.out.println("\n=== PÁGINA " + pagina + " DE ~" + paginas + " (" + total + " usuarios) ===");
             System.out.println("-".repeat(70));
             System.out.printf("%-5s %-15s %-30s %-8s%n", "ID", "USERNAME", "EMAIL", "ACTIVO");
             System.out.println("-".repeat(70));
 
-            paginaUsuarios.getContent().forEach(u ->
+            paginaUsuarios.contenido().forEach(u ->
                 System.out.printf("%-5d %-15s %-30s %-8s%n",
-                    u.getId(),
-                    u.getUsername(),
-                    u.getEmail(),
-                    u.getActivo() ? "Sí" : "No"
+                    u.id(),
+                    u.username(),
+                    u.email(),
+                    u.activo() ? "Sí" : "No"
                 )
             );
+            mostrados += paginaUsuarios.contenido().size();
 
-            if (paginaUsuarios.hasNext()) {
-                System.out.print("\n¿Ver siguiente página? (S/N): ");
-                String respuesta = sc.nextLine();
-                if (!respuesta.equalsIgnoreCase("S")) {
-                    break;
-                }
-                pagina++;
+            if (!paginaUsuarios.hayMas()) {
+                break;
+            }
+
+            System.out.print("\n¿Ver siguiente página? (S/N): ");
+            String respuesta = sc.nextLine();
+            if (!respuesta.equalsIgnoreCase("S")) {
+                break;
             }
+            cursor = paginaUsuarios.siguienteCursor();
+        }
+
+        System.out.println("\nUsuarios mostrados: " + mostrados);
+    }
+
+    private void exportarUsuarios() {
+        System.out.print("Formato (CSV / NDJSON): ");
+        FormatoExportacion formato;
+        try {
+            formato = FormatoExportacion.valueOf(sc.nextLine().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.out.println("❌ Formato no válido");
+            return;
+        }
+
+        System.out.print("Fichero de destino: ");
+        Path destino = Path.of(sc.nextLine().trim());
+
+        System.out.print("¿Solo usuarios activos? (S/N): ");
+        boolean soloActivos = sc.nextLine().equalsIgnoreCase("S");
+
+        try (FileChannel canal = FileChannel.open(destino,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            EstadisticasExportacion stats = exportacionService.exportar(canal, formato, soloActivos);
+            System.out.println("✅ Exportación completada en " + destino.toAbsolutePath());
+            System.out.println("   Usuarios: " + stats.filas());
+            System.out.println("   Bytes: " + stats.bytes());
+            System.out.printf("   Rendimiento: %.0f usuarios/s (%.2f MB/s)%n",
+                stats.filasPorSegundo(), stats.megabytesPorSegundo());
+        } catch (IOException e) {
+            System.out.println("❌ Error de escritura: " + e.getMessage());
+        }
+    }
 
-        } while (paginaUsuarios.hasNext());
+    private void importarUsuarios() {
+        System.out.print("Fichero CSV (username,email,password): ");
+        Path origen = Path.of(sc.nextLine().trim());
 
-        System.out.println("\nTotal de usuarios: " + paginaUsuarios.getTotalElements());
+        try {
+            ResultadoImportacion resultado = importacionService.importarCsv(origen);
+            System.out.println("✅ Importación completada");
+            System.out.println("   Leídos: " + resultado.leidos());
+            System.out.println("   Importados: " + resultado.importados());
+            System.out.println("   Rechazados: " + resultado.rechazados());
+            System.out.printf("   Rendimiento: %.0f usuarios/s%n", resultado.importadosPorSegundo());
+
+            resultado.errores().stream().limit(20).forEach((ErrorImportacion e) ->
+                System.out.println("   ⚠️ Línea " + e.linea() + " (" + e.username() + "): " + e.motivo())
+            );
+            if (resultado.errores().size() > 20) {
+                System.out.println("   ... y " + (resultado.rechazados() - 20) + " errores más");
+            }
+        } catch (IOException e) {
+            System.out.println("❌ Error de lectura: " + e.getMessage());
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,287 @@
+package com.LoginWeb.marcos_Login_web.auditoria;
+
+import com.LoginWeb.marcos_Login_web.metrics.ResultadoAutenticacion;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Registro de auditoría de los intentos de autenticación, asíncrono y por lotes.
+ *
+ * Los métodos de login publican en un buffer circular de huecos preasignados
+ * (EventoAuditoria): reservar un hueco es un CAS sobre un contador y publicar
+ * no asigna memoria ni hace E/S. Un único hilo escritor recoge los eventos
+ * publicados y los añade en lotes a un fichero NDJSON con rotación
+ * (EscritorAuditoria).
+ *
+ * Política de desbordamiento: si el buffer está lleno (el disco no da abasto)
+ * el evento se descarta y se cuenta; el login nunca espera a la auditoría.
+ *
+ * Configuración (application.properties):
+ * - auditoria.habilitada
+ * - auditoria.capacidad: huecos del buffer (se redondea a potencia de 2)
+ * - auditoria.intervalo-ms: espera del escritor cuando no hay eventos
+ * - auditoria.directorio, auditoria.tamano-maximo-mb, auditoria.ficheros-maximos
+ * - auditoria.sincronizar: force() tras cada lote
+ */
+@Component
+@Slf4j
+public class AuditoriaLogin {
+
+    private static final int TAMAÑO_LOTE_BYTES = 256 * 1024;
+    // Usernames más largos (intentos con basura) se recortan al escribir
+    private static final int LONGITUD_MAXIMA_USERNAME = 100;
+    // Cota de una línea con el username recortado, aun escapado por completo
+    private static final int MAXIMO_BYTES_EVENTO = 1024;
+
+    private final boolean habilitada;
+    private final EventoAuditoria[] huecos;
+    private final int mascara;
+    private final long intervaloNanos;
+
+    // Secuencia publicada en cada hueco (-1: nunca); el escritor la compara con la que espera
+    private final AtomicLongArray publicados;
+    // Siguiente secuencia a reservar por los productores
+    private final AtomicLong reservados = new AtomicLong();
+    // Siguiente secuencia a leer por el escritor: los huecos anteriores están libres
+    private final AtomicLong consumidos = new AtomicLong();
+
+    private final LongAdder publicadosTotal = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private final LongAdder escritos = new LongAdder();
+    private final LongAdder erroresEscritura = new LongAdder();
+
+    private final EscritorAuditoria escritor;
+    private final Thread hilo;
+    private volatile boolean parar;
+
+    // Estado exclusivo del hilo escritor
+    private final StringBuilder linea = new StringBuilder(256);
+    private final CharsetEncoder codificador = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final ByteBuffer lote = ByteBuffer.allocateDirect(TAMAÑO_LOTE_BYTES);
+
+    public AuditoriaLogin(@Value("${auditoria.habilitada:true}") boolean habilitada,
+                          @Value("${auditoria.capacidad:8192}") int capacidad,
+                          @Value("${auditoria.intervalo-ms:200}") long intervaloMs,
+                          @Value("${auditoria.directorio:auditoria}") String directorio,
+                          @Value("${auditoria.tamano-maximo-mb:64}") long tamañoMaximoMb,
+                          @Value("${auditoria.ficheros-maximos:10}") int ficherosMaximos,
+                          @Value("${auditoria.sincronizar:true}") boolean sincronizar) {
+        if (capacidad <= 0) {
+            throw new IllegalArgumentException("auditoria.capacidad debe ser mayor que 0");
+        }
+        int potencia = Integer.highestOneBit(capacidad - 1) << 1;
+        int tamaño = capacidad == 1 ? 1 : potencia;
+
+        this.habilitada = habilitada;
+        this.huecos = new EventoAuditoria[tamaño];
+        for (int i = 0; i < tamaño; i++) {
+            huecos[i] = new EventoAuditoria();
+        }
+        this.mascara = tamaño - 1;
+        this.publicados = new AtomicLongArray(tamaño);
+        for (int i = 0; i < tamaño; i++) {
+            publicados.set(i, -1);
+        }
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+        this.escritor = new EscritorAuditoria(Path.of(directorio), tamañoMaximoMb * 1024 * 1024,
+                ficherosMaximos, sincronizar);
+
+        this.hilo = new Thread(this::bucleEscritor, "auditoria-escritor");
+        this.hilo.setDaemon(true);
+        if (habilitada) {
+            hilo.start();
+            log.info("Auditoría de login en {} (buffer de {} eventos)", Path.of(directorio).toAbsolutePath(), tamaño);
+        }
+    }
+
+    /**
+     * Publica un evento de autenticación. No bloquea ni asigna memoria; si el
+     * buffer está lleno el evento se descarta.
+     *
+     * @param operacion Operación (loginConIntentos, verificarCredenciales...)
+     * @param username Username introducido
+     * @param resultado Resultado del intento
+     * @param intentosFallidos Intentos fallidos del usuario tras el intento
+     */
+    public void registrar(String operacion, String username, ResultadoAutenticacion resultado, int intentosFallidos) {
+        if (!habilitada) {
+            return;
+        }
+
+        long secuencia;
+        do {
+            secuencia = reservados.get();
+            if (secuencia - consumidos.get() >= huecos.length) {
+                descartados.increment();
+                return;
+            }
+        } while (!reservados.compareAndSet(secuencia, secuencia + 1));
+
+        int indice = (int) (secuencia & mascara);
+        huecos[indice].rellenar(System.currentTimeMillis(), operacion, username, resultado, intentosFallidos);
+        publicados.set(indice, secuencia); // escritura volátil: hace visible el hueco relleno
+        publicadosTotal.increment();
+    }
+
+    private void bucleEscritor() {
+        while (!parar) {
+            if (volcar() == 0) {
+                LockSupport.parkNanos(intervaloNanos);
+            }
+        }
+    }
+
+    /**
+     * Escribe los eventos publicados hasta ahora, en uno o varios lotes.
+     * Solo lo ejecuta el hilo escritor (o cerrar(), con el hilo ya parado).
+     *
+     * @return Eventos procesados
+     */
+    private int volcar() {
+        int total = 0;
+        int enLote = 0;
+        long siguiente = consumidos.get();
+
+        while (true) {
+            int indice = (int) (siguiente & mascara);
+            boolean disponible = publicados.get(indice) == siguiente;
+
+            if (disponible && lote.remaining() >= MAXIMO_BYTES_EVENTO) {
+                EventoAuditoria evento = huecos[indice];
+                formatear(evento);
+                evento.limpiar();
+                siguiente++;
+                consumidos.set(siguiente); // libera el hueco para los productores
+                enLote++;
+                total++;
+                continue;
+            }
+
+            if (enLote > 0) {
+                escribirLote(enLote);
+                enLote = 0;
+            }
+            if (!disponible) {
+                return total;
+            }
+        }
+    }
+
+    private void formatear(EventoAuditoria e) {
+        linea.setLength(0);
+        linea.append("{\"instante\":\"").append(Instant.ofEpochMilli(e.instanteMillis)).append('"');
+        linea.append(",\"operacion\":\"").append(e.operacion).append('"');
+        linea.append(",\"username\":");
+        cadenaJson(e.username);
+        linea.append(",\"resultado\":\"").append(e.resultado.getEtiqueta()).append('"');
+        linea.append(",\"intentosFallidos\":").append(e.intentosFallidos);
+        linea.append("}\n");
+
+        codificador.reset();
+        codificador.encode(CharBuffer.wrap(linea), lote, true);
+    }
+
+    private void cadenaJson(String valor) {
+        if (valor == null) {
+            linea.append("null");
+            return;
+        }
+        linea.append('"');
+        int longitud = Math.min(valor.length(), LONGITUD_MAXIMA_USERNAME);
+        for (int i = 0; i < longitud; i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> linea.append("\\\"");
+                case '\\' -> linea.append("\\\\");
+                case '\n' -> linea.append("\\n");
+                case '\r' -> linea.append("\\r");
+                case '\t' -> linea.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        linea.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        linea.append(c);
+                    }
+                }
+            }
+        }
+        linea.append('"');
+    }
+
+    private void escribirLote(int eventos) {
+        lote.flip();
+        try {
+            escritor.escribir(lote);
+            escritos.add(eventos);
+        } catch (IOException e) {
+            // Se pierde el lote; el canal se reabre en el siguiente
+            erroresEscritura.add(eventos);
+            escritor.close();
+            log.error("Error escribiendo {} eventos de auditoría: {}", eventos, e.getMessage());
+        } finally {
+            lote.clear();
+        }
+    }
+
+    /**
+     * Detiene el escritor y vuelca los eventos pendientes.
+     */
+    @PreDestroy
+    public void cerrar() throws InterruptedException {
+        if (!habilitada) {
+            return;
+        }
+        parar = true;
+        LockSupport.unpark(hilo);
+        hilo.join(TimeUnit.SECONDS.toMillis(5));
+        volcar();
+        escritor.close();
+        log.info("Auditoría de login cerrada: {} eventos escritos, {} descartados", getEscritos(), getDescartados());
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    public int getCapacidad() {
+        return huecos.length;
+    }
+
+    public long getPendientes() {
+        return reservados.get() - consumidos.get();
+    }
+
+    public long getPublicados() {
+        return publicadosTotal.sum();
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    public long getEscritos() {
+        return escritos.sum();
+    }
+
+    public long getErroresEscritura() {
+        return erroresEscritura.sum();
+    }
+}
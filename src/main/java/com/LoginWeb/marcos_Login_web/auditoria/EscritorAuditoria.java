@@ -0,0 +1,110 @@
+package com.LoginWeb.marcos_Login_web.auditoria;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fichero de auditoría de solo-añadido (FileChannel en modo APPEND) con
+ * rotación por tamaño: al superar el máximo se renombra con la fecha y se
+ * abre uno nuevo. Se conservan los últimos ficherosMaximos rotados.
+ *
+ * Lo usa únicamente el hilo escritor de AuditoriaLogin.
+ */
+@Slf4j
+final class EscritorAuditoria implements AutoCloseable {
+
+    private static final String NOMBRE = "login-auditoria";
+    private static final String EXTENSION = ".ndjson";
+    private static final DateTimeFormatter SELLO = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path directorio;
+    private final Path actual;
+    private final long tamañoMaximo;
+    private final int ficherosMaximos;
+    private final boolean sincronizar;
+
+    private FileChannel canal;
+
+    EscritorAuditoria(Path directorio, long tamañoMaximo, int ficherosMaximos, boolean sincronizar) {
+        this.directorio = directorio;
+        this.actual = directorio.resolve(NOMBRE + EXTENSION);
+        this.tamañoMaximo = tamañoMaximo;
+        this.ficherosMaximos = ficherosMaximos;
+        this.sincronizar = sincronizar;
+    }
+
+    /**
+     * Añade el contenido del buffer (ya en modo lectura) al fichero actual,
+     * rotando antes si se superaría el tamaño máximo.
+     */
+    void escribir(ByteBuffer buffer) throws IOException {
+        if (canal == null) {
+            abrir();
+        }
+        if (canal.size() > 0 && canal.size() + buffer.remaining() > tamañoMaximo) {
+            rotar();
+        }
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        if (sincronizar) {
+            canal.force(false);
+        }
+    }
+
+    private void abrir() throws IOException {
+        Files.createDirectories(directorio);
+        canal = FileChannel.open(actual, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void rotar() throws IOException {
+        canal.close();
+        canal = null;
+        Path rotado = directorio.resolve(NOMBRE + "-" + LocalDateTime.now().format(SELLO) + EXTENSION);
+        Files.move(actual, rotado);
+        log.info("Fichero de auditoría rotado: {}", rotado.getFileName());
+        borrarAntiguos();
+        abrir();
+    }
+
+    private void borrarAntiguos() throws IOException {
+        List<Path> rotados = new ArrayList<>();
+        try (DirectoryStream<Path> ficheros = Files.newDirectoryStream(directorio, NOMBRE + "-*" + EXTENSION)) {
+            ficheros.forEach(rotados::add);
+        }
+        if (rotados.size() <= ficherosMaximos) {
+            return;
+        }
+        // El sello de fecha hace que el orden alfabético sea el cronológico
+        rotados.sort(null);
+        for (Path antiguo : rotados.subList(0, rotados.size() - ficherosMaximos)) {
+            Files.deleteIfExists(antiguo);
+        }
+    }
+
+    /** Cierra el canal; se reabrirá en la siguiente escritura. */
+    @Override
+    public void close() {
+        if (canal == null) {
+            return;
+        }
+        try {
+            canal.close();
+        } catch (IOException e) {
+            log.warn("Error cerrando el fichero de auditoría: {}", e.getMessage());
+        }
+        canal = null;
+    }
+}
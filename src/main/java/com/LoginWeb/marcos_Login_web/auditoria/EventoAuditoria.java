@@ -0,0 +1,33 @@
+package com.LoginWeb.marcos_Login_web.auditoria;
+
+import com.LoginWeb.marcos_Login_web.metrics.ResultadoAutenticacion;
+
+/**
+ * Hueco reutilizable del buffer circular de AuditoriaLogin.
+ *
+ * Los huecos se crean una sola vez al arrancar: publicar un evento solo
+ * rellena sus campos, sin asignar memoria.
+ */
+final class EventoAuditoria {
+
+    long instanteMillis;
+    String operacion;
+    String username;
+    ResultadoAutenticacion resultado;
+    int intentosFallidos;
+
+    void rellenar(long instanteMillis, String operacion, String username,
+                  ResultadoAutenticacion resultado, int intentosFallidos) {
+        this.instanteMillis = instanteMillis;
+        this.operacion = operacion;
+        this.username = username;
+        this.resultado = resultado;
+        this.intentosFallidos = intentosFallidos;
+    }
+
+    void limpiar() {
+        this.operacion = null;
+        this.username = null;
+        this.resultado = null;
+    }
+}
@@ -0,0 +1,456 @@
+package com.LoginWeb.marcos_Login_web.busqueda;
+
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.repository.UsuarioRepository;
+import com.LoginWeb.marcos_Login_web.util.TransaccionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice en memoria de trigramas sobre username y email, para búsquedas por
+ * subcadena y por prefijo sin distinguir mayúsculas. Sustituye al
+ * LIKE '%texto%', que no puede usar índices y recorre toda la tabla.
+ *
+ * - Cada campo se indexa en minúsculas y con dos caracteres de inicio
+ *   delante, así los prefijos también son trigramas ("^^a", "^ab")
+ * - Cada trigrama apunta a una lista ordenada de IDs sobre int[] (ListaIds);
+ *   una consulta interseca las listas de sus trigramas, de la más corta a la
+ *   más larga, y verifica los candidatos contra el texto guardado
+ * - Subcadenas de menos de 3 caracteres no tienen trigramas: se recorren
+ *   los textos en memoria (sigue sin consultar la BBDD)
+ * - Resultados ordenados por relevancia: username igual, username empieza
+ *   por, username contiene, email empieza por, email contiene
+ *
+ * Se construye al arrancar (en segundo plano) y se mantiene con las altas,
+ * modificaciones y bajas de UsuarioService tras el commit. Se reconstruye
+ * periódicamente para recoger cambios hechos fuera (otros nodos, SQL manual).
+ * Mientras no está listo, isListo() es false y UsuarioService usa la BBDD.
+ *
+ * Los IDs se guardan como int: admite IDs hasta Integer.MAX_VALUE.
+ */
+@Component
+@Slf4j
+public class IndiceTrigramas {
+
+    private static final char INICIO = '\u0002';
+
+    /** Cambio recibido durante una reconstrucción, para aplicarlo al índice nuevo. */
+    private record Cambio(int id, String username, String email) {
+    }
+
+    private final UsuarioRepository usuarioRepository;
+    private final boolean habilitado;
+    private final int tamañoLote;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean construyendo = new AtomicBoolean();
+    private Estado estado = new Estado();
+    private volatile boolean listo;
+    private List<Cambio> cambiosDuranteConstruccion;
+
+    public IndiceTrigramas(UsuarioRepository usuarioRepository,
+                           @Value("${busqueda.indice.habilitado:true}") boolean habilitado,
+                           @Value("${busqueda.indice.tamano-lote:5000}") int tamañoLote) {
+        this.usuarioRepository = usuarioRepository;
+        this.habilitado = habilitado;
+        this.tamañoLote = tamañoLote;
+    }
+
+    // ========================================
+    // CONSTRUCCIÓN
+    // ========================================
+
+    /**
+     * Construye el índice en un hilo aparte para no retrasar el arranque.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public void construirAlArrancar() {
+        if (!habilitado) {
+            return;
+        }
+        Thread hilo = new Thread(this::reconstruir, "indice-trigramas");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    /**
+     * Construye un índice nuevo leyendo la tabla por tramos de ID y lo
+     * sustituye al actual. Los cambios recibidos mientras tanto se aplican
+     * también al nuevo.
+     */
+    @Scheduled(fixedDelayString = "${busqueda.indice.reconstruccion-ms:600000}",
+            initialDelayString = "${busqueda.indice.reconstruccion-ms:600000}")
+    public void reconstruir() {
+        if (!habilitado || !construyendo.compareAndSet(false, true)) {
+            return;
+        }
+        long inicio = System.nanoTime();
+        lock.writeLock().lock();
+        try {
+            cambiosDuranteConstruccion = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            Estado nuevo = new Estado();
+            long ultimoId = 0L;
+            List<UsuarioResumen> tramo;
+            do {
+                tramo = usuarioRepository.findSiguientesPorId(ultimoId, Limit.of(tamañoLote));
+                for (UsuarioResumen u : tramo) {
+                    nuevo.añadir(Math.toIntExact(u.id()), u.username(), u.email());
+                }
+                if (!tramo.isEmpty()) {
+                    ultimoId = tramo.getLast().id();
+                }
+            } while (tramo.size() == tamañoLote);
+
+            lock.writeLock().lock();
+            try {
+                for (Cambio c : cambiosDuranteConstruccion) {
+                    aplicar(nuevo, c);
+                }
+                estado = nuevo;
+                listo = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Índice de trigramas construido: {} usuarios, {} trigramas en {} ms",
+                    nuevo.documentos, nuevo.gramasUsername.size() + nuevo.gramasEmail.size(),
+                    (System.nanoTime() - inicio) / 1_000_000);
+        } catch (DataAccessException | ArithmeticException e) {
+            log.error("No se pudo construir el índice de trigramas: {}", e.getMessage());
+        } finally {
+            lock.writeLock().lock();
+            try {
+                cambiosDuranteConstruccion = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            construyendo.set(false);
+        }
+    }
+
+    /**
+     * Indexa los usuarios con ID mayor que el último indexado (altas masivas
+     * hechas con SQL directo, sin pasar por indexarAlConfirmar).
+     */
+    public void sincronizarNuevos() {
+        if (!listo) {
+            return;
+        }
+        long ultimoId;
+        lock.readLock().lock();
+        try {
+            ultimoId = estado.maxId;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<UsuarioResumen> tramo;
+        do {
+            tramo = usuarioRepository.findSiguientesPorId(ultimoId, Limit.of(tamañoLote));
+            lock.writeLock().lock();
+            try {
+                for (UsuarioResumen u : tramo) {
+                    registrar(new Cambio(Math.toIntExact(u.id()), u.username(), u.email()));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            if (!tramo.isEmpty()) {
+                ultimoId = tramo.getLast().id();
+            }
+        } while (tramo.size() == tamañoLote);
+    }
+
+    // ========================================
+    // MANTENIMIENTO INCREMENTAL
+    // ========================================
+
+    /**
+     * Indexa (o reindexa) el usuario cuando confirme la transacción actual,
+     * o en el momento si no hay transacción.
+     */
+    public void indexarAlConfirmar(Usuario usuario) {
+        if (!habilitado) {
+            return;
+        }
+        Cambio cambio = new Cambio(Math.toIntExact(usuario.getId()), usuario.getUsername(), usuario.getEmail());
+        TransaccionUtil.despuesDelCommit(() -> registrarConBloqueo(cambio));
+    }
+
+    /**
+     * Quita el usuario del índice cuando confirme la transacción actual.
+     */
+    public void eliminarAlConfirmar(Long id) {
+        if (!habilitado) {
+            return;
+        }
+        Cambio cambio = new Cambio(Math.toIntExact(id), null, null);
+        TransaccionUtil.despuesDelCommit(() -> registrarConBloqueo(cambio));
+    }
+
+    private void registrarConBloqueo(Cambio cambio) {
+        lock.writeLock().lock();
+        try {
+            registrar(cambio);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Con el bloqueo de escritura tomado
+    private void registrar(Cambio cambio) {
+        aplicar(estado, cambio);
+        if (cambiosDuranteConstruccion != null) {
+            cambiosDuranteConstruccion.add(cambio);
+        }
+    }
+
+    private static void aplicar(Estado destino, Cambio cambio) {
+        if (cambio.username() == null) {
+            destino.quitar(cambio.id());
+        } else {
+            destino.añadir(cambio.id(), cambio.username(), cambio.email());
+        }
+    }
+
+    // ========================================
+    // CONSULTA
+    // ========================================
+
+    public boolean isListo() {
+        return listo;
+    }
+
+    public int getUsuariosIndexados() {
+        lock.readLock().lock();
+        try {
+            return estado.documentos;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int getTrigramas() {
+        lock.readLock().lock();
+        try {
+            return estado.gramasUsername.size() + estado.gramasEmail.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * IDs de los usuarios cuyo username (o email) contiene el texto, ordenados por relevancia.
+     */
+    public List<Long> buscarSubcadena(String texto, boolean incluirEmail, int limite) {
+        return buscar(texto, false, incluirEmail, limite);
+    }
+
+    /**
+     * IDs de los usuarios cuyo username (o email) empieza por el texto, ordenados por relevancia.
+     */
+    public List<Long> buscarPrefijo(String texto, boolean incluirEmail, int limite) {
+        return buscar(texto, true, incluirEmail, limite);
+    }
+
+    private List<Long> buscar(String texto, boolean prefijo, boolean incluirEmail, int limite) {
+        String consulta = normalizar(texto);
+        if (consulta.isEmpty() || limite <= 0) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Estado e = estado;
+            long[] gramos = gramos(consulta, prefijo);
+
+            // Claves de orden: rango (3 bits) | longitud del username (28 bits) | ID (32 bits)
+            long[] claves;
+            int n = 0;
+            if (gramos.length == 0) {
+                claves = new long[Math.max(0, e.documentos)];
+                for (int id = 0; id <= e.maxId; id++) {
+                    n = puntuar(e, id, consulta, prefijo, incluirEmail, claves, n);
+                }
+            } else {
+                int[] porUsername = candidatos(e.gramasUsername, gramos);
+                int[] porEmail = incluirEmail ? candidatos(e.gramasEmail, gramos) : new int[0];
+                claves = new long[porUsername.length + porEmail.length];
+                for (int id : porUsername) {
+                    n = puntuar(e, id, consulta, prefijo, incluirEmail, claves, n);
+                }
+                for (int id : porEmail) {
+                    // Los que también coinciden por username ya están puntuados
+                    if (Arrays.binarySearch(porUsername, id) < 0) {
+                        n = puntuar(e, id, consulta, prefijo, incluirEmail, claves, n);
+                    }
+                }
+            }
+
+            Arrays.sort(claves, 0, n);
+            int total = Math.min(n, limite);
+            List<Long> ids = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                ids.add(claves[i] & 0xFFFFFFFFL);
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static int puntuar(Estado e, int id, String consulta, boolean prefijo, boolean incluirEmail,
+                               long[] claves, int n) {
+        String username = id < e.usernames.length ? e.usernames[id] : null;
+        if (username == null) {
+            return n;
+        }
+        int rango = rango(username, incluirEmail ? e.emails[id] : null, consulta, prefijo);
+        if (rango < 0) {
+            return n;
+        }
+        long longitud = Math.min(username.length(), 0x0FFFFFFF);
+        claves[n] = ((long) rango << 60) | (longitud << 32) | id;
+        return n + 1;
+    }
+
+    /**
+     * Relevancia de una coincidencia (menor es mejor), o -1 si no coincide.
+     */
+    private static int rango(String username, String email, String consulta, boolean prefijo) {
+        if (username.equals(consulta)) return 0;
+        if (username.startsWith(consulta)) return 1;
+        if (!prefijo && username.contains(consulta)) return 2;
+        if (email != null) {
+            if (email.startsWith(consulta)) return 3;
+            if (!prefijo && email.contains(consulta)) return 4;
+        }
+        return -1;
+    }
+
+    /** Intersección de las listas de los trigramas, empezando por la más corta. */
+    private static int[] candidatos(Map<Long, ListaIds> indice, long[] gramos) {
+        ListaIds[] listas = new ListaIds[gramos.length];
+        for (int i = 0; i < gramos.length; i++) {
+            listas[i] = indice.get(gramos[i]);
+            if (listas[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(listas, (a, b) -> Integer.compare(a.tamaño(), b.tamaño()));
+
+        int[] resultado = listas[0].copia();
+        for (int i = 1; i < listas.length && resultado.length > 0; i++) {
+            resultado = listas[i].intersecar(resultado);
+        }
+        return resultado;
+    }
+
+    // ========================================
+    // TRIGRAMAS
+    // ========================================
+
+    private static String normalizar(String texto) {
+        return texto == null ? "" : texto.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Trigramas distintos del texto, ordenados. Con inicio se antepone el
+     * marcador de inicio (indexación y búsqueda por prefijo).
+     */
+    private static long[] gramos(String texto, boolean conInicio) {
+        String t = conInicio ? "" + INICIO + INICIO + texto : texto;
+        if (t.length() < 3) {
+            return new long[0];
+        }
+        long[] gramos = new long[t.length() - 2];
+        for (int i = 0; i < gramos.length; i++) {
+            gramos[i] = ((long) t.charAt(i) << 32) | ((long) t.charAt(i + 1) << 16) | t.charAt(i + 2);
+        }
+        Arrays.sort(gramos);
+        int n = 0;
+        for (int i = 0; i < gramos.length; i++) {
+            if (i == 0 || gramos[i] != gramos[i - 1]) {
+                gramos[n++] = gramos[i];
+            }
+        }
+        return Arrays.copyOf(gramos, n);
+    }
+
+    /**
+     * Contenido del índice. Se modifica solo con el bloqueo de escritura,
+     * salvo el que se está construyendo, que aún no es visible.
+     */
+    private static final class Estado {
+
+        private final Map<Long, ListaIds> gramasUsername = new HashMap<>();
+        private final Map<Long, ListaIds> gramasEmail = new HashMap<>();
+        // Textos indexados (en minúsculas) por ID
+        private String[] usernames = new String[1024];
+        private String[] emails = new String[1024];
+        private int maxId;
+        private int documentos;
+
+        void añadir(int id, String username, String email) {
+            quitar(id);
+            if (id >= usernames.length) {
+                int capacidad = Math.max(id + 1, usernames.length * 2);
+                usernames = Arrays.copyOf(usernames, capacidad);
+                emails = Arrays.copyOf(emails, capacidad);
+            }
+            usernames[id] = normalizar(username);
+            emails[id] = normalizar(email);
+            for (long g : gramos(usernames[id], true)) {
+                gramasUsername.computeIfAbsent(g, k -> new ListaIds()).añadir(id);
+            }
+            for (long g : gramos(emails[id], true)) {
+                gramasEmail.computeIfAbsent(g, k -> new ListaIds()).añadir(id);
+            }
+            maxId = Math.max(maxId, id);
+            documentos++;
+        }
+
+        void quitar(int id) {
+            if (id >= usernames.length || usernames[id] == null) {
+                return;
+            }
+            quitarGramos(gramasUsername, usernames[id], id);
+            quitarGramos(gramasEmail, emails[id], id);
+            usernames[id] = null;
+            emails[id] = null;
+            documentos--;
+        }
+
+        private static void quitarGramos(Map<Long, ListaIds> indice, String texto, int id) {
+            for (long g : gramos(texto, true)) {
+                ListaIds lista = indice.get(g);
+                if (lista != null) {
+                    lista.quitar(id);
+                    if (lista.vacia()) {
+                        indice.remove(g);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.LoginWeb.marcos_Login_web.busqueda;
+
+import java.util.Arrays;
+
+/**
+ * Lista de IDs ordenada y sin repetidos sobre un int[] (sin boxing).
+ * Lista de apariciones (posting list) de un trigrama.
+ */
+final class ListaIds {
+
+    private int[] ids = new int[4];
+    private int tamaño;
+
+    void añadir(int id) {
+        // Caso habitual: IDs crecientes (altas nuevas y construcción en orden)
+        if (tamaño == 0 || id > ids[tamaño - 1]) {
+            asegurarCapacidad();
+            ids[tamaño++] = id;
+            return;
+        }
+        int pos = Arrays.binarySearch(ids, 0, tamaño, id);
+        if (pos >= 0) {
+            return;
+        }
+        int insercion = -pos - 1;
+        asegurarCapacidad();
+        System.arraycopy(ids, insercion, ids, insercion + 1, tamaño - insercion);
+        ids[insercion] = id;
+        tamaño++;
+    }
+
+    void quitar(int id) {
+        int pos = Arrays.binarySearch(ids, 0, tamaño, id);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(ids, pos + 1, ids, pos, tamaño - pos - 1);
+        tamaño--;
+    }
+
+    int tamaño() {
+        return tamaño;
+    }
+
+    boolean vacia() {
+        return tamaño == 0;
+    }
+
+    int[] copia() {
+        return Arrays.copyOf(ids, tamaño);
+    }
+
+    /**
+     * Intersección con un array ordenado (dos punteros).
+     *
+     * @return Nuevo array ordenado con los IDs comunes
+     */
+    int[] intersecar(int[] otros) {
+        int[] resultado = new int[Math.min(tamaño, otros.length)];
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        while (i < tamaño && j < otros.length) {
+            if (ids[i] < otros[j]) {
+                i++;
+            } else if (ids[i] > otros[j]) {
+                j++;
+            } else {
+                resultado[n++] = ids[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(resultado, n);
+    }
+
+    private void asegurarCapacidad() {
+        if (tamaño == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+    }
+}
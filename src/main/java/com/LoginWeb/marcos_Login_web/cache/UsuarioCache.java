@@ -0,0 +1,237 @@
+package com.LoginWeb.marcos_Login_web.cache;
+
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.util.TransaccionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Caché en proceso de usuarios, por username y por ID, delante de UsuarioRepository.
+ *
+ * - Acotada por tamaño (LRU) y por TTL
+ * - Guarda también entradas negativas (username inexistente) con su propio TTL
+ * - Devuelve siempre copias: el llamante puede modificar el usuario sin afectar a la caché
+ * - Una carga en curso no se guarda si hubo una invalidación mientras tanto,
+ *   para no reinsertar un valor ya obsoleto
+ *
+ * Las escrituras de UsuarioService deben invalidar la entrada afectada
+ * (invalidar) o actualizar su estado de acceso (actualizarEstadoAcceso).
+ */
+@Component
+@Slf4j
+public class UsuarioCache {
+
+    /** Entrada de la caché. usuario == null indica una entrada negativa. */
+    private record Entrada(Usuario usuario, long expiraEn) {
+    }
+
+    private final int tamañoMaximo;
+    private final long ttlNanos;
+    private final long ttlNegativoNanos;
+
+    private final Map<String, Entrada> porUsername;
+    private final Map<Long, Entrada> porId;
+    private long version;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    public UsuarioCache(@Value("${usuarios.cache.tamano-maximo:10000}") int tamañoMaximo,
+                        @Value("${usuarios.cache.ttl-segundos:60}") long ttlSegundos,
+                        @Value("${usuarios.cache.ttl-negativo-segundos:10}") long ttlNegativoSegundos) {
+        this.tamañoMaximo = tamañoMaximo;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        this.ttlNegativoNanos = TimeUnit.SECONDS.toNanos(ttlNegativoSegundos);
+        this.porUsername = crearMapaLru();
+        this.porId = crearMapaLru();
+    }
+
+    private <K> Map<K, Entrada> crearMapaLru() {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entrada> eldest) {
+                if (size() > tamañoMaximo) {
+                    expulsiones.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ========================================
+    // LECTURA (READ-THROUGH)
+    // ========================================
+
+    /**
+     * Busca por username; si no está en caché (o expiró) usa el cargador y guarda el resultado.
+     */
+    public Optional<Usuario> buscarPorUsername(String username, Function<String, Optional<Usuario>> cargador) {
+        return buscar(porUsername, username, cargador);
+    }
+
+    /**
+     * Busca por ID; si no está en caché (o expiró) usa el cargador y guarda el resultado.
+     */
+    public Optional<Usuario> buscarPorId(Long id, Function<Long, Optional<Usuario>> cargador) {
+        return buscar(porId, id, cargador);
+    }
+
+    private <K> Optional<Usuario> buscar(Map<K, Entrada> mapa, K clave, Function<K, Optional<Usuario>> cargador) {
+        long versionInicial;
+        synchronized (this) {
+            Entrada entrada = mapa.get(clave);
+            if (entrada != null) {
+                if (entrada.expiraEn() - System.nanoTime() > 0) {
+                    aciertos.increment();
+                    return Optional.ofNullable(entrada.usuario()).map(UsuarioCache::copiar);
+                }
+                mapa.remove(clave);
+            }
+            versionInicial = version;
+        }
+
+        fallos.increment();
+        Optional<Usuario> cargado = cargador.apply(clave);
+
+        synchronized (this) {
+            if (version == versionInicial) {
+                long ahora = System.nanoTime();
+                if (cargado.isPresent()) {
+                    guardar(copiar(cargado.get()), ahora);
+                } else {
+                    mapa.put(clave, new Entrada(null, ahora + ttlNegativoNanos));
+                }
+            }
+        }
+        return cargado;
+    }
+
+    private void guardar(Usuario usuario, long ahora) {
+        Entrada entrada = new Entrada(usuario, ahora + ttlNanos);
+        porUsername.put(usuario.getUsername(), entrada);
+        porId.put(usuario.getId(), entrada);
+    }
+
+    // ========================================
+    // INVALIDACIÓN
+    // ========================================
+
+    /**
+     * Invalida las entradas del usuario ya y de nuevo al terminar la transacción
+     * actual, para que una lectura concurrente no deje en caché el valor anterior al commit.
+     */
+    public void invalidar(Usuario usuario) {
+        invalidar(usuario.getId(), usuario.getUsername());
+    }
+
+    /**
+     * Invalida por ID y/o username (cualquiera de los dos puede ser null).
+     */
+    public void invalidar(Long id, String username) {
+        eliminar(id, username);
+        TransaccionUtil.alTerminar(() -> eliminar(id, username));
+    }
+
+    /**
+     * Vacía la caché (operaciones que afectan a muchos usuarios a la vez).
+     */
+    public void invalidarTodo() {
+        synchronized (this) {
+            porUsername.clear();
+            porId.clear();
+            version++;
+        }
+        invalidaciones.increment();
+    }
+
+    private synchronized void eliminar(Long id, String username) {
+        if (id != null) {
+            Entrada entrada = porId.remove(id);
+            if (entrada != null && entrada.usuario() != null) {
+                porUsername.remove(entrada.usuario().getUsername());
+            }
+        }
+        if (username != null) {
+            Entrada entrada = porUsername.remove(username);
+            if (entrada != null && entrada.usuario() != null) {
+                porId.remove(entrada.usuario().getId());
+            }
+        }
+        version++;
+        invalidaciones.increment();
+    }
+
+    /**
+     * Aplica a la entrada cacheada (si sigue existiendo) el estado de acceso que
+     * acaba de escribir un UPDATE condicional del login. Si la entrada fue
+     * invalidada entretanto no se reinserta.
+     */
+    public synchronized void actualizarEstadoAcceso(Long id, int intentosFallidos, boolean bloqueado,
+                                                    LocalDateTime fechaBloqueo, LocalDateTime ultimoLogin) {
+        Entrada entrada = porId.get(id);
+        if (entrada == null || entrada.usuario() == null) {
+            return;
+        }
+        Usuario actualizado = copiar(entrada.usuario());
+        actualizado.setIntentosFallidos(intentosFallidos);
+        actualizado.setBloqueado(bloqueado);
+        actualizado.setFechaBloqueo(fechaBloqueo);
+        if (ultimoLogin != null) {
+            actualizado.setUltimoLogin(ultimoLogin);
+        }
+        Entrada nueva = new Entrada(actualizado, entrada.expiraEn());
+        porId.put(id, nueva);
+        porUsername.put(actualizado.getUsername(), nueva);
+        version++;
+    }
+
+    /**
+     * Copia el usuario y, si la tiene enlazada, su credencial.
+     */
+    private static Usuario copiar(Usuario usuario) {
+        return usuario.getCredencial() != null
+                ? usuario.getCredencial().copiarUsuario()
+                : usuario.toBuilder().build();
+    }
+
+    // ========================================
+    // MÉTRICAS
+    // ========================================
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getExpulsiones() {
+        return expulsiones.sum();
+    }
+
+    public long getInvalidaciones() {
+        return invalidaciones.sum();
+    }
+
+    public synchronized int getTamaño() {
+        return porId.size();
+    }
+
+    public double getTasaAciertos() {
+        long total = aciertos.sum() + fallos.sum();
+        return total == 0 ? 0 : (double) aciertos.sum() / total;
+    }
+}
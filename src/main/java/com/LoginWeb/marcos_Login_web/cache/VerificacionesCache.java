@@ -0,0 +1,212 @@
+package com.LoginWeb.marcos_Login_web.cache;
+
+import com.LoginWeb.marcos_Login_web.util.TransaccionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché en proceso de verificaciones de contraseña correctas, para que un
+ * cliente que se autentica con las mismas credenciales en cada llamada
+ * (verificarCredenciales) no pague un BCrypt completo cada vez.
+ *
+ * - Opcional (verificaciones.cache.habilitada), acotada por tamaño (LRU) y
+ *   con un TTL corto
+ * - La clave es el username; la entrada guarda un HMAC-SHA256 de la
+ *   contraseña presentada, nunca la contraseña. La clave del HMAC se genera
+ *   al arrancar y no sale del proceso: un volcado de memoria no permite
+ *   probar contraseñas sin ella
+ * - Cada entrada queda ligada al hash contra el que se verificó: si la
+ *   contraseña cambia (en este nodo o en otro, o por un rehash) la entrada
+ *   deja de servir aunque no se haya invalidado
+ *
+ * Solo se ahorra el BCrypt: la confirmación contra la BBDD (usuario activo y
+ * con el mismo hash) sigue haciéndose en cada login. Aun así, UsuarioService
+ * invalida las entradas al cambiar la contraseña, desactivar, bloquear o
+ * eliminar al usuario, para que no sobrevivan hasta su TTL.
+ */
+@Component
+@Slf4j
+public class VerificacionesCache {
+
+    private static final String ALGORITMO = "HmacSHA256";
+
+    private record Entrada(byte[] hmacPassword, String passwordHash, long expiraEn) {
+    }
+
+    private final boolean habilitada;
+    private final int tamañoMaximo;
+    private final long ttlNanos;
+    private final SecretKey clave;
+    private final Map<String, Entrada> porUsername;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder expulsiones = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    public VerificacionesCache(@Value("${verificaciones.cache.habilitada:false}") boolean habilitada,
+                               @Value("${verificaciones.cache.tamano-maximo:10000}") int tamañoMaximo,
+                               @Value("${verificaciones.cache.ttl-segundos:30}") long ttlSegundos) {
+        this.habilitada = habilitada;
+        this.tamañoMaximo = tamañoMaximo;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        this.clave = habilitada ? generarClave() : null;
+        this.porUsername = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                if (size() > tamañoMaximo) {
+                    expulsiones.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+        if (habilitada) {
+            log.info("Caché de verificaciones habilitada (máx. {} entradas, TTL {} s)", tamañoMaximo, ttlSegundos);
+        }
+    }
+
+    public boolean isHabilitada() {
+        return habilitada;
+    }
+
+    // ========================================
+    // CONSULTA Y REGISTRO
+    // ========================================
+
+    /**
+     * Indica si la contraseña ya se verificó como correcta para el usuario y
+     * su hash actual, sin expirar.
+     */
+    public boolean verificada(String username, String passwordHash, String rawPassword) {
+        if (!habilitada) {
+            return false;
+        }
+        Entrada entrada;
+        synchronized (this) {
+            entrada = porUsername.get(username);
+            if (entrada != null && entrada.expiraEn() - System.nanoTime() <= 0) {
+                porUsername.remove(username);
+                entrada = null;
+            }
+        }
+        boolean acierto = entrada != null
+                && entrada.passwordHash().equals(passwordHash)
+                && MessageDigest.isEqual(entrada.hmacPassword(), hmac(rawPassword));
+        (acierto ? aciertos : fallos).increment();
+        return acierto;
+    }
+
+    /**
+     * Guarda una verificación correcta (tras BCrypt y la confirmación en BBDD).
+     */
+    public void registrar(String username, String passwordHash, String rawPassword) {
+        if (!habilitada) {
+            return;
+        }
+        Entrada entrada = new Entrada(hmac(rawPassword), passwordHash, System.nanoTime() + ttlNanos);
+        synchronized (this) {
+            porUsername.put(username, entrada);
+        }
+    }
+
+    // ========================================
+    // INVALIDACIÓN
+    // ========================================
+
+    /**
+     * Invalida la entrada del usuario ya y de nuevo al terminar la transacción
+     * actual, igual que UsuarioCache.
+     */
+    public void invalidar(String username) {
+        if (!habilitada || username == null) {
+            return;
+        }
+        eliminar(username);
+        TransaccionUtil.alTerminar(() -> eliminar(username));
+    }
+
+    /**
+     * Vacía la caché (operaciones que afectan a muchos usuarios a la vez).
+     */
+    public void invalidarTodo() {
+        if (!habilitada) {
+            return;
+        }
+        synchronized (this) {
+            porUsername.clear();
+        }
+        invalidaciones.increment();
+    }
+
+    private void eliminar(String username) {
+        synchronized (this) {
+            porUsername.remove(username);
+        }
+        invalidaciones.increment();
+    }
+
+    // ========================================
+    // HMAC
+    // ========================================
+
+    private byte[] hmac(String rawPassword) {
+        try {
+            // Mac no es thread-safe; crear una instancia cuesta microsegundos frente a un BCrypt
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(clave);
+            return mac.doFinal(rawPassword.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo calcular el HMAC de la contraseña", e);
+        }
+    }
+
+    private static SecretKey generarClave() {
+        try {
+            return KeyGenerator.getInstance(ALGORITMO).generateKey();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITMO + " no disponible", e);
+        }
+    }
+
+    // ========================================
+    // MÉTRICAS
+    // ========================================
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getExpulsiones() {
+        return expulsiones.sum();
+    }
+
+    public long getInvalidaciones() {
+        return invalidaciones.sum();
+    }
+
+    public synchronized int getTamaño() {
+        return porUsername.size();
+    }
+
+    public double getTasaAciertos() {
+        long total = aciertos.sum() + fallos.sum();
+        return total == 0 ? 0 : (double) aciertos.sum() / total;
+    }
+}
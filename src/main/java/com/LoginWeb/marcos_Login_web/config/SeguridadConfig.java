@@ -0,0 +1,75 @@
+package com.LoginWeb.marcos_Login_web.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.logout.HttpStatusReturningLogoutSuccessHandler;
+import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
+import org.springframework.security.web.csrf.CsrfTokenRequestAttributeHandler;
+
+import static org.springframework.security.config.Customizer.withDefaults;
+
+/**
+ * Configuración de Spring Security.
+ *
+ * - /actuator/**: abierto. Los endpoints de gestión solo escuchan en
+ *   localhost (management.server.address), así que el scrape de métricas
+ *   no necesita credenciales.
+ * - /api/**: API JSON. Alta y login públicos; el resto exige la sesión que
+ *   crea el login (AutenticacionController). Sin autenticar responde 401
+ *   (no redirige al formulario). CSRF con cookie XSRF-TOKEN, que el cliente
+ *   devuelve en la cabecera X-XSRF-TOKEN; alta y login quedan exentos porque
+ *   aún no hay sesión que proteger. El token se carga en cada petición (no
+ *   diferido), así que la respuesta del login ya trae la cookie.
+ * - Resto: igual que la configuración por defecto de Spring Boot
+ *   (autenticación con formulario o HTTP Basic).
+ */
+@Configuration
+public class SeguridadConfig {
+
+    @Bean
+    @Order(1)
+    SecurityFilterChain gestionFilterChain(HttpSecurity http) throws Exception {
+        http.securityMatcher("/actuator/**")
+                .authorizeHttpRequests(auth -> auth.anyRequest().permitAll());
+        return http.build();
+    }
+
+    @Bean
+    @Order(2)
+    SecurityFilterChain apiFilterChain(HttpSecurity http) throws Exception {
+        // Sin nombre de atributo el token no se difiere: CookieCsrfTokenRepository
+        // escribe la cookie XSRF-TOKEN aunque nada lo lea en la petición (p. ej. el
+        // login, exento de CSRF); si no, la primera petición protegida daría 403
+        CsrfTokenRequestAttributeHandler manejadorCsrf = new CsrfTokenRequestAttributeHandler();
+        manejadorCsrf.setCsrfRequestAttributeName(null);
+
+        http.securityMatcher("/api/**")
+                .authorizeHttpRequests(auth -> auth
+                        .requestMatchers(HttpMethod.POST, "/api/auth/login", "/api/usuarios").permitAll()
+                        .anyRequest().authenticated())
+                .csrf(csrf -> csrf
+                        .csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
+                        .csrfTokenRequestHandler(manejadorCsrf)
+                        .ignoringRequestMatchers("/api/auth/login", "/api/usuarios"))
+                .exceptionHandling(e -> e.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .logout(logout -> logout
+                        .logoutUrl("/api/auth/logout")
+                        .logoutSuccessHandler(new HttpStatusReturningLogoutSuccessHandler()));
+        return http.build();
+    }
+
+    @Bean
+    @Order(3)
+    SecurityFilterChain aplicacionFilterChain(HttpSecurity http) throws Exception {
+        http.authorizeHttpRequests(auth -> auth.anyRequest().authenticated())
+                .formLogin(withDefaults())
+                .httpBasic(withDefaults());
+        return http.build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.LoginWeb.marcos_Login_web.config;
+
+import com.LoginWeb.marcos_Login_web.sesion.SesionesEnCapasRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.config.annotation.web.http.EnableSpringHttpSession;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+
+/**
+ * Sesiones HTTP: almacén JDBC de Spring Session con una caché en memoria
+ * delante (SesionesEnCapasRepository).
+ *
+ * Al declarar el SessionRepository aquí, la autoconfiguración JDBC de Spring
+ * Boot se desactiva; se respetan sus propiedades (spring.session.timeout,
+ * spring.session.jdbc.table-name, spring.session.jdbc.cleanup-cron), pero el
+ * esquema de Spring Session debe existir ya en la BBDD.
+ *
+ * Con sesiones.cache.habilitada=false se vuelve a la configuración JDBC de Spring Boot.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "sesiones.cache.habilitada", havingValue = "true", matchIfMissing = true)
+@EnableSpringHttpSession
+public class SesionConfig {
+
+    private final JdbcIndexedSessionRepository jdbcRepository;
+
+    public SesionConfig(JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${spring.session.timeout:${server.servlet.session.timeout:30m}}") Duration timeout,
+                        @Value("${spring.session.jdbc.table-name:SPRING_SESSION}") String tabla) {
+        // Transacción propia: la sesión se guarda al final de la petición,
+        // fuera de cualquier transacción de negocio
+        TransactionTemplate transaccion = new TransactionTemplate(transactionManager);
+        transaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        this.jdbcRepository = new JdbcIndexedSessionRepository(jdbcTemplate, transaccion);
+        this.jdbcRepository.setTableName(tabla);
+        this.jdbcRepository.setDefaultMaxInactiveInterval(timeout);
+    }
+
+    @Bean
+    public SesionesEnCapasRepository<?> sessionRepository(
+            JdbcTemplate jdbcTemplate,
+            @Value("${spring.session.jdbc.table-name:SPRING_SESSION}") String tabla,
+            @Value("${sesiones.cache.tamano-maximo:10000}") int tamañoMaximo,
+            @Value("${sesiones.cache.ttl-segundos:30}") long ttlSegundos,
+            @Value("${sesiones.ultimo-acceso.umbral-segundos:60}") long umbralSegundos,
+            @Value("${sesiones.ultimo-acceso.intervalo-ms:1000}") long intervaloMs) {
+        return SesionesEnCapasRepository.envolver(jdbcRepository, jdbcTemplate, tabla,
+                tamañoMaximo, ttlSegundos, umbralSegundos, intervaloMs);
+    }
+
+    /**
+     * Elimina de la BBDD las sesiones caducadas (lo hacía la autoconfiguración de Spring Boot).
+     */
+    @Scheduled(cron = "${spring.session.jdbc.cleanup-cron:0 * * * * *}")
+    public void limpiarSesionesCaducadas() {
+        jdbcRepository.cleanUpExpiredSessions();
+    }
+}
@@ -0,0 +1,32 @@
+package com.LoginWeb.marcos_Login_web.controller;
+
+/**
+ * Validaciones comunes de las peticiones de la API.
+ */
+final class ApiUtil {
+
+    static final int TAMAÑO_PAGINA_MAXIMO = 100;
+
+    private ApiUtil() {
+    }
+
+    /**
+     * @throws IllegalArgumentException si el campo falta o está vacío (400)
+     */
+    static String requerido(String valor, String campo) {
+        if (valor == null || valor.isBlank()) {
+            throw new IllegalArgumentException("El campo '" + campo + "' es obligatorio");
+        }
+        return valor;
+    }
+
+    /**
+     * @throws IllegalArgumentException si el tamaño no está entre 1 y TAMAÑO_PAGINA_MAXIMO (400)
+     */
+    static int tamañoPagina(int tamaño) {
+        if (tamaño < 1 || tamaño > TAMAÑO_PAGINA_MAXIMO) {
+            throw new IllegalArgumentException("El tamaño de página debe estar entre 1 y " + TAMAÑO_PAGINA_MAXIMO);
+        }
+        return tamaño;
+    }
+}
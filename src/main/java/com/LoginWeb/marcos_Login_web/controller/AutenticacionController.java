@@ -0,0 +1,72 @@
+package com.LoginWeb.marcos_Login_web.controller;
+
+import com.LoginWeb.marcos_Login_web.dto.LoginRequest;
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.service.UsuarioService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.context.SecurityContextHolderStrategy;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.security.web.context.SecurityContextRepository;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+/**
+ * Login de la API HTTP.
+ *
+ * POST /api/auth/login verifica las credenciales con loginConIntentos (con
+ * limitador por username y por IP) y, si son correctas, guarda la
+ * autenticación en la sesión HTTP: las siguientes peticiones se autentican
+ * con la cookie de sesión, sin repetir BCrypt. El logout
+ * (POST /api/auth/logout) lo gestiona Spring Security (SeguridadConfig).
+ */
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class AutenticacionController {
+
+    private final UsuarioService usuarioService;
+
+    private final SecurityContextHolderStrategy contextos = SecurityContextHolder.getContextHolderStrategy();
+    private final SecurityContextRepository repositorioContextos = new HttpSessionSecurityContextRepository();
+
+    @PostMapping("/login")
+    public ResponseEntity<?> login(@RequestBody LoginRequest peticion,
+                                   HttpServletRequest request, HttpServletResponse response) {
+        ApiUtil.requerido(peticion.username(), "username");
+        ApiUtil.requerido(peticion.password(), "password");
+
+        Optional<Usuario> usuario = usuarioService.loginConIntentos(peticion.username(), peticion.password(),
+                request.getRemoteAddr());
+        if (usuario.isEmpty()) {
+            // Mismo mensaje para usuario inexistente, contraseña incorrecta o bloqueo
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(ProblemDetail.forStatusAndDetail(HttpStatus.UNAUTHORIZED, "Credenciales no válidas"));
+        }
+
+        // Nuevo ID de sesión al autenticarse (fijación de sesión)
+        if (request.getSession(false) != null) {
+            request.changeSessionId();
+        }
+        SecurityContext contexto = contextos.createEmptyContext();
+        contexto.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(
+                usuario.get().getUsername(), null, AuthorityUtils.createAuthorityList("ROLE_USUARIO")));
+        contextos.setContext(contexto);
+        repositorioContextos.saveContext(contexto, request, response);
+
+        return ResponseEntity.ok(UsuarioResumen.de(usuario.get()));
+    }
+}
@@ -0,0 +1,75 @@
+package com.LoginWeb.marcos_Login_web.controller;
+
+import com.LoginWeb.marcos_Login_web.limitador.LoginLimitadoException;
+import com.LoginWeb.marcos_Login_web.service.ConflictoException;
+import com.LoginWeb.marcos_Login_web.service.UsuarioNoEncontradoException;
+import com.LoginWeb.marcos_Login_web.util.HashingSaturadoException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Traduce las excepciones de UsuarioService a respuestas HTTP (RFC 9457, ProblemDetail).
+ *
+ * - UsuarioNoEncontradoException: 404
+ * - IllegalArgumentException (validación, duplicados): 400
+ * - DataIntegrityViolationException (alta concurrente con el mismo username/email): 409
+ * - LoginLimitadoException: 429 con Retry-After
+ * - HashingSaturadoException: 503 con Retry-After (rechazo rápido por saturación)
+ * - ConflictoException (cambio concurrente del mismo usuario): 409
+ *
+ * El resto de IllegalStateException no tiene manejador: es un error interno
+ * y Spring responde 500.
+ */
+@RestControllerAdvice(basePackageClasses = ManejadorErrores.class)
+@Slf4j
+public class ManejadorErrores {
+
+    private static final String SEGUNDOS_REINTENTO_SATURACION = "1";
+
+    @ExceptionHandler(UsuarioNoEncontradoException.class)
+    ProblemDetail noEncontrado(UsuarioNoEncontradoException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.NOT_FOUND, e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    ProblemDetail peticionNoValida(IllegalArgumentException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    ProblemDetail duplicado(DataIntegrityViolationException e) {
+        log.debug("Violación de integridad: {}", e.getMostSpecificCause().getMessage());
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, "El username o el email ya están registrados");
+    }
+
+    @ExceptionHandler(AccessDeniedException.class)
+    ProblemDetail prohibido(AccessDeniedException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.FORBIDDEN, e.getMessage());
+    }
+
+    @ExceptionHandler(LoginLimitadoException.class)
+    ResponseEntity<ProblemDetail> limitado(LoginLimitadoException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, e.getReintentarEn().toSeconds())))
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.TOO_MANY_REQUESTS, e.getMessage()));
+    }
+
+    @ExceptionHandler(HashingSaturadoException.class)
+    ResponseEntity<ProblemDetail> saturado(HashingSaturadoException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, SEGUNDOS_REINTENTO_SATURACION)
+                .body(ProblemDetail.forStatusAndDetail(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage()));
+    }
+
+    @ExceptionHandler(ConflictoException.class)
+    ProblemDetail conflicto(ConflictoException e) {
+        return ProblemDetail.forStatusAndDetail(HttpStatus.CONFLICT, e.getMessage());
+    }
+}
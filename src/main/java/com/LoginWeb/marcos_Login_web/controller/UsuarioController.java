@@ -0,0 +1,170 @@
+package com.LoginWeb.marcos_Login_web.controller;
+
+import com.LoginWeb.marcos_Login_web.dto.ActualizacionUsuarioRequest;
+import com.LoginWeb.marcos_Login_web.dto.AltaUsuarioRequest;
+import com.LoginWeb.marcos_Login_web.dto.PaginaCursor;
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.service.UsuarioNoEncontradoException;
+import com.LoginWeb.marcos_Login_web.service.UsuarioService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.List;
+
+/**
+ * API HTTP de usuarios sobre UsuarioService.
+ *
+ * - POST /api/usuarios: alta (pública)
+ * - GET /api/usuarios?cursor=&tamano=: listado paginado por cursor (keyset)
+ * - GET /api/usuarios/{id}, GET /api/usuarios/username/{username}: consulta
+ * - GET /api/usuarios/buscar?texto=&limite=: búsqueda por username
+ * - PATCH /api/usuarios/{id}: cambio de email y/o contraseña (esta exige la
+ *   contraseña actual, igual que el menú de consola)
+ * - POST /api/usuarios/{id}/desactivar: borrado lógico
+ * - DELETE /api/usuarios/{id}: borrado físico
+ *
+ * Las modificaciones solo se permiten sobre el propio usuario autenticado
+ * (no hay roles de administración: la administración es el menú de consola).
+ * Las respuestas usan UsuarioResumen: nunca incluyen el hash de la contraseña,
+ * y el email solo aparece en el propio usuario (la búsqueda tampoco lo usa,
+ * para no revelarlo por coincidencias).
+ *
+ * Al desactivar o eliminar un usuario se eliminan todas sus sesiones (por
+ * nombre del principal), no solo la de la petición. Otro nodo puede seguir
+ * sirviendo una de ellas desde su caché como mucho sesiones.cache.ttl-segundos.
+ */
+@RestController
+@RequestMapping("/api/usuarios")
+@RequiredArgsConstructor
+public class UsuarioController {
+
+    private final UsuarioService usuarioService;
+    // Ausente sin Spring Session (p. ej. en los tests de la capa web)
+    private final ObjectProvider<FindByIndexNameSessionRepository<?>> sesiones;
+
+    @PostMapping
+    public ResponseEntity<UsuarioResumen> crear(@RequestBody AltaUsuarioRequest peticion,
+                                                UriComponentsBuilder uri) {
+        Usuario usuario = usuarioService.crearUsuario(
+                ApiUtil.requerido(peticion.username(), "username"),
+                ApiUtil.requerido(peticion.email(), "email"),
+                ApiUtil.requerido(peticion.password(), "password"));
+        return ResponseEntity.created(uri.path("/api/usuarios/{id}").build(usuario.getId()))
+                .body(UsuarioResumen.de(usuario));
+    }
+
+    @GetMapping
+    public PaginaCursor<UsuarioResumen> listar(@RequestParam(required = false) String cursor,
+                                               @RequestParam(name = "tamano", defaultValue = "20") int tamaño,
+                                               Authentication autenticacion) {
+        PaginaCursor<UsuarioResumen> pagina =
+                usuarioService.listarUsuariosPorCursor(cursor, ApiUtil.tamañoPagina(tamaño));
+        return new PaginaCursor<>(visibles(pagina.contenido(), autenticacion), pagina.siguienteCursor());
+    }
+
+    @GetMapping("/{id}")
+    public UsuarioResumen obtener(@PathVariable Long id, Authentication autenticacion) {
+        return usuarioService.obtenerPorId(id)
+                .map(usuario -> visible(UsuarioResumen.de(usuario), autenticacion))
+                .orElseThrow(() -> new UsuarioNoEncontradoException(id));
+    }
+
+    @GetMapping("/username/{username}")
+    public ResponseEntity<UsuarioResumen> obtenerPorUsername(@PathVariable String username,
+                                                             Authentication autenticacion) {
+        return ResponseEntity.of(usuarioService.obtenerPorUsername(username)
+                .map(usuario -> visible(UsuarioResumen.de(usuario), autenticacion)));
+    }
+
+    @GetMapping("/buscar")
+    public List<UsuarioResumen> buscar(@RequestParam String texto,
+                                       @RequestParam(defaultValue = "20") int limite,
+                                       Authentication autenticacion) {
+        return visibles(usuarioService.buscarResumenPorUsername(texto, ApiUtil.tamañoPagina(limite)), autenticacion);
+    }
+
+    @PatchMapping("/{id}")
+    public UsuarioResumen actualizar(@PathVariable Long id, @RequestBody ActualizacionUsuarioRequest peticion,
+                                     Authentication autenticacion) {
+        comprobarPropietario(id, autenticacion);
+        Usuario usuario = null;
+        // Una sesión robada no basta para cambiar la contraseña: se verifica la actual
+        if (peticion.password() != null && !peticion.password().isEmpty()) {
+            usuario = usuarioService.cambiarPassword(id,
+                    ApiUtil.requerido(peticion.passwordActual(), "passwordActual"), peticion.password());
+        }
+        if (peticion.email() != null || usuario == null) {
+            usuario = usuarioService.actualizarUsuario(id, peticion.email());
+        }
+        return UsuarioResumen.de(usuario);
+    }
+
+    @PostMapping("/{id}/desactivar")
+    public UsuarioResumen desactivar(@PathVariable Long id, Authentication autenticacion,
+                                     HttpServletRequest request) {
+        comprobarPropietario(id, autenticacion);
+        UsuarioResumen resumen = UsuarioResumen.de(usuarioService.desactivarUsuario(id));
+        cerrarSesiones(autenticacion.getName(), request);
+        return resumen;
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> eliminar(@PathVariable Long id, Authentication autenticacion,
+                                         HttpServletRequest request) {
+        comprobarPropietario(id, autenticacion);
+        usuarioService.eliminarUsuario(id);
+        cerrarSesiones(autenticacion.getName(), request);
+        return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+    }
+
+    /**
+     * @throws UsuarioNoEncontradoException si el usuario no existe (404)
+     * @throws AccessDeniedException si no es el usuario autenticado (403)
+     */
+    private void comprobarPropietario(Long id, Authentication autenticacion) {
+        Usuario usuario = usuarioService.obtenerPorId(id)
+                .orElseThrow(() -> new UsuarioNoEncontradoException(id));
+        if (!usuario.getUsername().equals(autenticacion.getName())) {
+            throw new AccessDeniedException("Solo se puede modificar el propio usuario");
+        }
+    }
+
+    // El email de otro usuario no se muestra
+    private static UsuarioResumen visible(UsuarioResumen resumen, Authentication autenticacion) {
+        return resumen.username().equals(autenticacion.getName()) ? resumen : resumen.sinEmail();
+    }
+
+    private static List<UsuarioResumen> visibles(List<UsuarioResumen> resumenes, Authentication autenticacion) {
+        return resumenes.stream().map(resumen -> visible(resumen, autenticacion)).toList();
+    }
+
+    // Un usuario desactivado o eliminado no conserva ninguna de sus sesiones
+    private void cerrarSesiones(String username, HttpServletRequest request) {
+        FindByIndexNameSessionRepository<?> repositorio = sesiones.getIfAvailable();
+        if (repositorio != null) {
+            repositorio.findByPrincipalName(username).keySet().forEach(repositorio::deleteById);
+        }
+        HttpSession sesion = request.getSession(false);
+        if (sesion != null) {
+            sesion.invalidate();
+        }
+    }
+}
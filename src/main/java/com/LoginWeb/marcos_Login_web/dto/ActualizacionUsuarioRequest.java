@@ -0,0 +1,13 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Cuerpo de PATCH /api/usuarios/{id}. Los campos null no se modifican.
+ * Cambiar la contraseña exige passwordActual.
+ */
+public record ActualizacionUsuarioRequest(String email, String password, String passwordActual) {
+
+    @Override
+    public String toString() {
+        return "ActualizacionUsuarioRequest[email=" + email + "]";
+    }
+}
@@ -0,0 +1,7 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Cuerpo de POST /api/usuarios.
+ */
+public record AltaUsuarioRequest(String username, String email, String password) {
+}
@@ -0,0 +1,18 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Número de usuarios por estado.
+ *
+ * @param total Usuarios existentes
+ * @param activos Usuarios activos
+ * @param bloqueados Usuarios bloqueados por intentos fallidos (activos o no)
+ */
+public record ConteoUsuarios(long total, long activos, long bloqueados) {
+
+    /**
+     * Usuarios desactivados (borrado lógico).
+     */
+    public long inactivos() {
+        return total - activos;
+    }
+}
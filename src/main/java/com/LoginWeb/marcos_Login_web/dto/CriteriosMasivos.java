@@ -0,0 +1,31 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Selección de usuarios para una operación masiva. Los criterios indicados
+ * se combinan con AND; los null no filtran. Debe indicarse al menos uno.
+ *
+ * @param ids IDs concretos
+ * @param dominioEmail Dominio del email (se normaliza como Usuario.dominioDe)
+ * @param sinAccesoDesde Sin login desde esta fecha (o, si nunca hicieron login, creados antes)
+ * @param bloqueado Solo bloqueados (true) o solo no bloqueados (false)
+ */
+@Builder
+public record CriteriosMasivos(List<Long> ids, String dominioEmail, LocalDateTime sinAccesoDesde, Boolean bloqueado) {
+
+    public boolean vacios() {
+        return ids == null && dominioEmail == null && sinAccesoDesde == null && bloqueado == null;
+    }
+
+    // Para logs: el número de IDs, no la lista
+    @Override
+    public String toString() {
+        return "CriteriosMasivos[ids=" + (ids == null ? null : ids.size() + " IDs")
+                + ", dominioEmail=" + dominioEmail + ", sinAccesoDesde=" + sinAccesoDesde
+                + ", bloqueado=" + bloqueado + "]";
+    }
+}
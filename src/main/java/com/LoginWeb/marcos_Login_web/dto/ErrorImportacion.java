@@ -0,0 +1,11 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Registro rechazado durante una importación masiva.
+ *
+ * @param linea Posición del registro en el origen
+ * @param username Username del registro (puede ser null si no se pudo leer)
+ * @param motivo Causa del rechazo
+ */
+public record ErrorImportacion(long linea, String username, String motivo) {
+}
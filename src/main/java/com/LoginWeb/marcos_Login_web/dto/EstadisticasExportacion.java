@@ -0,0 +1,23 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+import java.time.Duration;
+
+/**
+ * Resultado de una exportación de usuarios.
+ *
+ * @param filas Usuarios exportados
+ * @param bytes Bytes escritos en el canal de salida
+ * @param duracion Tiempo total de la exportación
+ */
+public record EstadisticasExportacion(long filas, long bytes, Duration duracion) {
+
+    public double filasPorSegundo() {
+        double segundos = duracion.toNanos() / 1_000_000_000.0;
+        return segundos == 0 ? 0 : filas / segundos;
+    }
+
+    public double megabytesPorSegundo() {
+        double segundos = duracion.toNanos() / 1_000_000_000.0;
+        return segundos == 0 ? 0 : bytes / 1_048_576.0 / segundos;
+    }
+}
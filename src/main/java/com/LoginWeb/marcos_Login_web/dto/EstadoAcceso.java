@@ -0,0 +1,18 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Estado de acceso de un usuario tras una actualización atómica de intentos.
+ *
+ * @param activo Si el usuario está activo
+ * @param intentosFallidos Intentos fallidos consecutivos
+ * @param bloqueado Si el usuario está bloqueado
+ */
+public record EstadoAcceso(Boolean activo, int intentosFallidos, boolean bloqueado) {
+
+    /**
+     * Indica si el usuario puede iniciar sesión con este estado.
+     */
+    public boolean puedeAcceder() {
+        return Boolean.TRUE.equals(activo) && !bloqueado;
+    }
+}
@@ -0,0 +1,13 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Formatos soportados por la exportación de usuarios.
+ */
+public enum FormatoExportacion {
+
+    /** Valores separados por comas, con cabecera. */
+    CSV,
+
+    /** Un objeto JSON por línea (newline-delimited JSON). */
+    NDJSON
+}
@@ -0,0 +1,13 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Cuerpo de POST /api/auth/login.
+ */
+public record LoginRequest(String username, String password) {
+
+    // Que la contraseña no acabe en logs si se imprime la petición
+    @Override
+    public String toString() {
+        return "LoginRequest[username=" + username + "]";
+    }
+}
@@ -0,0 +1,19 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Operaciones masivas sobre usuarios (OperacionesMasivasService).
+ */
+public enum OperacionMasiva {
+
+    /** Borrado lógico de los usuarios activos. */
+    DESACTIVAR,
+
+    /** Reactivación de los usuarios desactivados. */
+    ACTIVAR,
+
+    /** Desbloqueo (y reinicio de intentos fallidos) de los usuarios bloqueados. */
+    DESBLOQUEAR,
+
+    /** Borrado físico. */
+    ELIMINAR
+}
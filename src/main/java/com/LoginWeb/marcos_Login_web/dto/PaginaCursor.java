@@ -0,0 +1,39 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Página de resultados de una paginación por cursor (keyset).
+ *
+ * No incluye el total de elementos: calcularlo exigiría un COUNT(*) sobre
+ * toda la tabla en cada página.
+ *
+ * @param contenido Elementos de la página
+ * @param siguienteCursor Token opaco para pedir la página siguiente (null si es la última)
+ */
+public record PaginaCursor<T>(List<T> contenido, String siguienteCursor) {
+
+    /**
+     * Indica si existe una página siguiente.
+     */
+    public boolean hayMas() {
+        return siguienteCursor != null;
+    }
+
+    /**
+     * Construye la página a partir de una consulta que pidió tamaño + 1 filas:
+     * la fila sobrante solo indica que existe una página siguiente.
+     *
+     * @param filas Resultado de la consulta (como máximo tamaño + 1 filas)
+     * @param tamaño Tamaño de página solicitado
+     * @param cursorDe Función que genera el cursor a partir del último elemento
+     */
+    public static <T> PaginaCursor<T> de(List<T> filas, int tamaño, Function<T, String> cursorDe) {
+        if (filas.size() <= tamaño) {
+            return new PaginaCursor<>(filas, null);
+        }
+        List<T> contenido = filas.subList(0, tamaño);
+        return new PaginaCursor<>(contenido, cursorDe.apply(contenido.get(tamaño - 1)));
+    }
+}
@@ -0,0 +1,12 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Usuario a importar de forma masiva.
+ *
+ * @param linea Posición del registro en el origen (línea del fichero o índice), para los informes de error
+ * @param username Nombre de usuario
+ * @param email Email
+ * @param password Contraseña en texto plano (se hasheará)
+ */
+public record RegistroImportacion(long linea, String username, String email, String password) {
+}
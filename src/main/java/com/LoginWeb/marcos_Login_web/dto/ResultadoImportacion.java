@@ -0,0 +1,22 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Resultado de una importación masiva de usuarios.
+ *
+ * @param leidos Registros procesados
+ * @param importados Usuarios insertados
+ * @param rechazados Registros rechazados
+ * @param errores Detalle de los primeros registros rechazados
+ * @param duracion Tiempo total de la importación
+ */
+public record ResultadoImportacion(long leidos, long importados, long rechazados,
+                                   List<ErrorImportacion> errores, Duration duracion) {
+
+    public double importadosPorSegundo() {
+        double segundos = duracion.toNanos() / 1_000_000_000.0;
+        return segundos == 0 ? 0 : importados / segundos;
+    }
+}
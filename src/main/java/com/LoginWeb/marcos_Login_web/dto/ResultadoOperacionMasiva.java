@@ -0,0 +1,17 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+import java.time.Duration;
+
+/**
+ * Progreso (tras cada lote) o resultado final de una operación masiva.
+ *
+ * @param operacion Operación ejecutada
+ * @param candidatos Usuarios que cumplían los criterios
+ * @param afectados Usuarios modificados o eliminados (los que ya estaban en el
+ *                  estado destino cuentan como candidatos pero no como afectados)
+ * @param lotes Lotes confirmados
+ * @param duracion Tiempo transcurrido
+ */
+public record ResultadoOperacionMasiva(OperacionMasiva operacion, long candidatos, long afectados,
+                                       int lotes, Duration duracion) {
+}
@@ -0,0 +1,11 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+/**
+ * Número de usuarios (totales y activos) de un dominio de email.
+ *
+ * @param dominio Dominio normalizado (ver Usuario.dominioDe)
+ * @param usuarios Usuarios con email en el dominio
+ * @param activos De ellos, los activos
+ */
+public record ResumenDominio(String dominio, long usuarios, long activos) {
+}
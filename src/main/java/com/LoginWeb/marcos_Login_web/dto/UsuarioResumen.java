@@ -0,0 +1,36 @@
+package com.LoginWeb.marcos_Login_web.dto;
+
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de solo lectura de un usuario para listados y búsquedas.
+ *
+ * Se construye directamente en la consulta JPQL (SELECT new ...): solo viaja
+ * lo necesario para mostrar, y Hibernate no la gestiona en el contexto de
+ * persistencia (sin snapshot de dirty-checking). Solo lleva datos del perfil:
+ * nunca lee credenciales_usuario (hash, bloqueo, último login).
+ */
+public record UsuarioResumen(
+        Long id,
+        String username,
+        String email,
+        Boolean activo,
+        LocalDateTime fechaCreacion) {
+
+    /**
+     * Resumen de una entidad ya cargada (respuestas de la API: nunca el hash).
+     */
+    public static UsuarioResumen de(Usuario usuario) {
+        return new UsuarioResumen(usuario.getId(), usuario.getUsername(), usuario.getEmail(),
+                usuario.getActivo(), usuario.getFechaCreacion());
+    }
+
+    /**
+     * El mismo resumen sin email, para mostrar un usuario a otro.
+     */
+    public UsuarioResumen sinEmail() {
+        return new UsuarioResumen(id, username, null, activo, fechaCreacion);
+    }
+}
@@ -0,0 +1,47 @@
+package com.LoginWeb.marcos_Login_web.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Resumen diario de altas, desactivaciones y reactivaciones de usuarios.
+ *
+ * Lo mantiene ResumenAltasDiarias de forma incremental (sumando deltas), de
+ * modo que las gráficas de "altas en los últimos N días" leen N filas en
+ * lugar de recorrer la tabla usuarios. Solo se escribe con UPSERT desde
+ * ResumenAltasDiarias; la entidad se usa para leer y para el esquema.
+ */
+@Entity
+@Table(name = "resumen_altas_diarias")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AltasDiarias {
+
+    @Id
+    @Column(name = "dia")
+    private LocalDate dia;
+
+    @Column(name = "altas", nullable = false)
+    private long altas;
+
+    @Column(name = "desactivaciones", nullable = false)
+    private long desactivaciones;
+
+    @Column(name = "reactivaciones", nullable = false)
+    private long reactivaciones;
+
+    /**
+     * Variación neta de usuarios activos ese día.
+     */
+    public long getVariacionActivos() {
+        return altas - desactivaciones + reactivaciones;
+    }
+}
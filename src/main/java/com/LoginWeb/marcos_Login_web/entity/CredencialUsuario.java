@@ -0,0 +1,109 @@
+package com.LoginWeb.marcos_Login_web.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import java.time.LocalDateTime;
+
+/**
+ * Credencial y estado de autenticación de un usuario: contraseña, intentos
+ * fallidos, bloqueo y último login.
+ *
+ * Separada del perfil (Usuario) en una tabla estrecha: cada login escribe
+ * solo esta fila, y los listados de perfiles no la leen. Comparte la clave
+ * primaria con el usuario (@MapsId) y se borra con él (ON DELETE CASCADE).
+ * La asociación solo se mapea desde este lado; se carga con su repositorio.
+ */
+@Entity
+@Table(name = "credenciales_usuario", indexes = {
+        @Index(name = "idx_bloqueado_fecha_bloqueo", columnList = "bloqueado, fecha_bloqueo")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class CredencialUsuario {
+
+    // ========================================
+    // CAMPOS DE LA ENTIDAD
+    // ========================================
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @MapsId
+    @OneToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "usuario_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Usuario usuario;
+
+    @Column(name = "password_hash", nullable = false, length = 255)
+    private String passwordHash;
+
+    @Column(name = "intentos_fallidos", nullable = false)
+    private int intentosFallidos;
+
+    @Column(name = "bloqueado", nullable = false)
+    private boolean bloqueado;
+
+    /**
+     * Instante del bloqueo; null si no está bloqueado. El bloqueo expira
+     * pasado bloqueo.duracion-minutos (ver ExpiracionBloqueos).
+     */
+    @Column(name = "fecha_bloqueo")
+    private LocalDateTime fechaBloqueo;
+
+    @Column(name = "ultimo_login")
+    private LocalDateTime ultimoLogin;
+
+    // ========================================
+    // MÉTODOS DE NEGOCIO
+    // ========================================
+
+    /**
+     * Enlaza esta credencial en su usuario (Usuario.credencial) y lo devuelve.
+     * Para las consultas que cargan ambos con JOIN FETCH.
+     */
+    public Usuario enlazarUsuario() {
+        usuario.setCredencial(this);
+        return usuario;
+    }
+
+    /**
+     * Copia independiente de la credencial y de su usuario, enlazados entre sí.
+     */
+    public Usuario copiarUsuario() {
+        Usuario copiaUsuario = usuario.toBuilder().build();
+        CredencialUsuario copia = toBuilder().usuario(copiaUsuario).build();
+        return copia.enlazarUsuario();
+    }
+
+    public void reseteoIntentosFallidos() {
+        this.intentosFallidos = 0;
+        this.bloqueado = false;
+        this.fechaBloqueo = null;
+    }
+
+    public void incrementarIntentosFallidos() {
+        this.intentosFallidos++;
+        if (this.intentosFallidos >= Usuario.MAX_INTENTOS_FALLIDOS && !this.bloqueado) {
+            this.bloqueado = true;
+            this.fechaBloqueo = LocalDateTime.now();
+        }
+    }
+
+    public void registrarLoginExitoso() {
+        this.ultimoLogin = LocalDateTime.now();
+        reseteoIntentosFallidos();
+    }
+}
@@ -4,30 +4,46 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import lombok.ToString;
 
 import java.time.LocalDateTime;
+import java.util.Locale;
 
 /**
- * Entidad JPA que representa un usuario del sistema.
+ * Entidad JPA que representa el perfil de un usuario del sistema.
+ *
+ * La contraseña y el estado de autenticación (intentos, bloqueo, último
+ * login) están en CredencialUsuario, en su propia tabla. Cargar un Usuario
+ * no la lee: solo se carga cuando se pide (CredencialUsuarioRepository,
+ * consultas "ConUsuario") y queda enlazada en el campo credencial. Los
+ * accesores de esos campos delegan en ella y solo pueden usarse si está
+ * enlazada (si no, lanzan IllegalStateException).
  *
  * Tecnologías utilizadas:
  * - JPA/Hibernate: Mapeo objeto-relacional
  * - Lombok: Reducción de código boilerplate
- * - BCrypt: Verificación segura de contraseñas
  */
 @Entity
 @Table(name = "usuarios", indexes = {
         @Index(name = "idx_username", columnList = "username"),
-        @Index(name = "idx_email", columnList = "email")
+        @Index(name = "idx_email", columnList = "email"),
+        @Index(name = "idx_activo_fecha_creacion", columnList = "activo, fecha_creacion"),
+        @Index(name = "idx_fecha_creacion", columnList = "fecha_creacion"),
+        @Index(name = "idx_dominio_email_activo", columnList = "dominio_email, activo")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@Builder
+@Builder(toBuilder = true)
 public class Usuario {
 
+    /**
+     * Intentos fallidos consecutivos que provocan el bloqueo.
+     */
+    public static final int MAX_INTENTOS_FALLIDOS = 3;
+
     // ========================================
     // CAMPOS DE LA ENTIDAD
     // ========================================
@@ -42,24 +58,37 @@ public class Usuario {
     @Column(name = "email", nullable = false, unique = true, length = 100)
     private String email;
 
-    @Column(name = "password_hash", nullable = false, length = 255)
-    private String passwordHash;
+    /**
+     * Dominio del email en minúsculas (parte tras la última '@'). Se deriva del
+     * email al insertar/actualizar para poder buscar y agrupar por dominio con
+     * índice, en lugar de LIKE '%dominio' sobre el email.
+     */
+    @Column(name = "dominio_email", nullable = false, length = 100)
+    private String dominioEmail;
 
     @Column(name = "activo", nullable = false)
     @Builder.Default  // Lombok: valor por defecto en el builder
     private Boolean activo = true;
 
-    @Column(name = "fecha_creacion", updatable = false)
+    /**
+     * NOT NULL en la BBDD (V6): es la clave de la paginación por cursor.
+     */
+    @Column(name = "fecha_creacion", nullable = false, updatable = false)
     private LocalDateTime fechaCreacion;
 
     @Column(name = "fecha_actualizacion")
     private LocalDateTime fechaActualizacion;
-    @Column(name = "ultimo_login")
-    private LocalDateTime ultimoLogin;
-    @Column(name = "intentos_fallidos",nullable = false)
-    private int intentosFallidos = 0;
-    @Column(name = "bloqueado",nullable = false)
-    private boolean bloqueado = false;
+
+    /**
+     * Credencial enlazada por CredencialUsuario.enlazarUsuario, o null si no
+     * se cargó. No se mapea desde este lado: un @OneToOne inverso no puede
+     * cargarse de forma perezosa y leería la credencial con cada perfil.
+     */
+    @Transient
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private CredencialUsuario credencial;
+
     // ========================================
     // CALLBACKS DEL CICLO DE VIDA
     // ========================================
@@ -72,6 +101,7 @@ public class Usuario {
     protected void onCreate() {
         this.fechaCreacion = LocalDateTime.now();
         this.fechaActualizacion = LocalDateTime.now();
+        this.dominioEmail = dominioDe(email);
     }
 
     /**
@@ -81,35 +111,95 @@ public class Usuario {
     @PreUpdate
     protected void onUpdate() {
         this.fechaActualizacion = LocalDateTime.now();
+        this.dominioEmail = dominioDe(email);
+    }
+
+    /**
+     * Dominio normalizado de un email: lo que sigue a la última '@', en minúsculas.
+     * Acepta también un dominio suelto, con o sin '@' delante.
+     */
+    public static String dominioDe(String email) {
+        if (email == null) {
+            return null;
+        }
+        return email.substring(email.lastIndexOf('@') + 1).trim().toLowerCase(Locale.ROOT);
     }
 
     // ========================================
-    // MÉTODOS DE NEGOCIO
+    // CREDENCIAL (delegan en CredencialUsuario)
     // ========================================
 
-    // Encoder estático para verificación de contraseñas
-    private static final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
-
     /**
-     * Verifica si la contraseña proporcionada coincide con el hash almacenado.
-     *
-     * @param rawPassword Contraseña en texto plano a verificar
-     * @return true si la contraseña es correcta, false en caso contrario
+     * Crea la credencial de un usuario nuevo. Se guarda después del usuario
+     * (CredencialUsuarioRepository), que le asigna su ID.
      */
-    public boolean verificarPassword(String rawPassword) {
-        return encoder.matches(rawPassword, this.passwordHash);
+    public void inicializarCredencial(String passwordHash) {
+        this.credencial = CredencialUsuario.builder()
+                .usuario(this)
+                .passwordHash(passwordHash)
+                .build();
     }
 
     /**
-     * Hashea una contraseña y la asigna a este usuario.
-     * Útil al crear o actualizar la contraseña.
-     *
-     * @param rawPassword Contraseña en texto plano
+     * @throws IllegalStateException si la credencial no se cargó (Usuario
+     *         leído con UsuarioRepository en lugar de con las consultas
+     *         findUsuarioConCredencial* de CredencialUsuarioRepository)
      */
-    public void setPassword(String rawPassword) {
-        this.passwordHash = encoder.encode(rawPassword);
+    private CredencialUsuario credencialEnlazada() {
+        if (credencial == null) {
+            throw new IllegalStateException("Credencial no cargada para el usuario " + id
+                    + ": cargarlo con CredencialUsuarioRepository.findUsuarioConCredencial*");
+        }
+        return credencial;
     }
 
+    public String getPasswordHash() {
+        return credencialEnlazada().getPasswordHash();
+    }
+
+    public void setPasswordHash(String passwordHash) {
+        credencialEnlazada().setPasswordHash(passwordHash);
+    }
+
+    public int getIntentosFallidos() {
+        return credencialEnlazada().getIntentosFallidos();
+    }
+
+    public void setIntentosFallidos(int intentosFallidos) {
+        credencialEnlazada().setIntentosFallidos(intentosFallidos);
+    }
+
+    public boolean isBloqueado() {
+        return credencialEnlazada().isBloqueado();
+    }
+
+    public void setBloqueado(boolean bloqueado) {
+        credencialEnlazada().setBloqueado(bloqueado);
+    }
+
+    public LocalDateTime getFechaBloqueo() {
+        return credencialEnlazada().getFechaBloqueo();
+    }
+
+    public void setFechaBloqueo(LocalDateTime fechaBloqueo) {
+        credencialEnlazada().setFechaBloqueo(fechaBloqueo);
+    }
+
+    public LocalDateTime getUltimoLogin() {
+        return credencialEnlazada().getUltimoLogin();
+    }
+
+    public void setUltimoLogin(LocalDateTime ultimoLogin) {
+        credencialEnlazada().setUltimoLogin(ultimoLogin);
+    }
+
+    // ========================================
+    // MÉTODOS DE NEGOCIO
+    // ========================================
+    // Hashear o verificar contraseñas no se hace aquí: pasa por PasswordUtil
+    // (hashPasswordAsync, verifyPasswordAsync), que usa el ejecutor acotado
+    // de hashing y su rechazo por saturación.
+
     /**
      * Desactiva el usuario (borrado lógico).
      */
@@ -124,17 +214,12 @@ public class Usuario {
         this.activo = true;
     }
     public void reseteoIntentosFallidos() {
-        this.intentosFallidos = 0;
-        this.bloqueado = false;
+        credencialEnlazada().reseteoIntentosFallidos();
     }
     public void incrementarIntentosFallidos() {
-        this.intentosFallidos++;
-        if (this.intentosFallidos >= 3) {
-            this.bloqueado = true;
-        }
+        credencialEnlazada().incrementarIntentosFallidos();
     }
     public void registrarLoginExitoso() {
-        this.ultimoLogin = LocalDateTime.now();
-        reseteoIntentosFallidos();
+        credencialEnlazada().registrarLoginExitoso();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.LoginWeb.marcos_Login_web.limitador;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cubo de tokens sin bloqueos, implementado como GCRA (virtual scheduling):
+ * todo el estado es un único long, el instante teórico en que el cubo vuelve
+ * a estar lleno. Se actualiza con CAS, así que no hay locks ni asignaciones
+ * por intento.
+ *
+ * Equivale a un cubo de capacidad "rafaga" que recupera un token cada
+ * "intervaloNanos".
+ */
+final class CuboTokens {
+
+    private final AtomicLong llenoEn;
+
+    CuboTokens(long ahora) {
+        this.llenoEn = new AtomicLong(ahora);
+    }
+
+    /**
+     * Consume un token si hay alguno disponible.
+     *
+     * @return 0 si se consumió, o los nanosegundos hasta el próximo token
+     */
+    long consumir(long ahora, long intervaloNanos, long toleranciaNanos) {
+        while (true) {
+            long actual = llenoEn.get();
+            long base = Math.max(actual, ahora);
+            long siguiente = base + intervaloNanos;
+            long exceso = siguiente - ahora - toleranciaNanos;
+            if (exceso > 0) {
+                return exceso;
+            }
+            if (llenoEn.compareAndSet(actual, siguiente)) {
+                return 0;
+            }
+        }
+    }
+
+    /** true si el cubo lleva lleno al menos "inactividadNanos". */
+    boolean inactivo(long ahora, long inactividadNanos) {
+        return ahora - llenoEn.get() >= inactividadNanos;
+    }
+}
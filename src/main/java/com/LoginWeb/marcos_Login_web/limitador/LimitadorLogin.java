@@ -0,0 +1,184 @@
+package com.LoginWeb.marcos_Login_web.limitador;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitador de frecuencia de los intentos de login, previo a cualquier
+ * consulta o hash: un ataque de credential stuffing se rechaza sin coste
+ * de BBDD ni de CPU.
+ *
+ * Dos cubos de tokens por intento, uno por username (normalizado) y otro por
+ * identificador de cliente (IP, sesión...). Se consulta primero el del
+ * cliente: un cliente limitado no gasta tokens del usuario atacado.
+ *
+ * Memoria acotada: como máximo max-claves cubos por ámbito. Los cubos que
+ * llevan llenos más de inactividad-segundos se eliminan periódicamente; si
+ * aun así se alcanza el máximo, las claves nuevas comparten un conjunto fijo
+ * de cubos de desbordamiento (siguen limitadas, con menos precisión).
+ *
+ * Configuración (application.properties):
+ * - login.limitador.habilitado
+ * - login.limitador.usuario.rafaga / usuario.por-minuto
+ * - login.limitador.cliente.rafaga / cliente.por-minuto
+ * - login.limitador.max-claves, login.limitador.inactividad-segundos
+ */
+@Component
+@Slf4j
+public class LimitadorLogin {
+
+    public static final String AMBITO_USUARIO = "usuario";
+    public static final String AMBITO_CLIENTE = "cliente";
+
+    // Las claves se recortan: un username enorme no puede inflar la memoria
+    private static final int LONGITUD_MAXIMA_CLAVE = 64;
+    private static final int CUBOS_DESBORDAMIENTO = 1024;
+
+    private final boolean habilitado;
+    private final Ambito porUsuario;
+    private final Ambito porCliente;
+    private final int maxClaves;
+    private final long inactividadNanos;
+
+    public LimitadorLogin(@Value("${login.limitador.habilitado:true}") boolean habilitado,
+                          @Value("${login.limitador.usuario.rafaga:10}") int rafagaUsuario,
+                          @Value("${login.limitador.usuario.por-minuto:30}") int porMinutoUsuario,
+                          @Value("${login.limitador.cliente.rafaga:30}") int rafagaCliente,
+                          @Value("${login.limitador.cliente.por-minuto:120}") int porMinutoCliente,
+                          @Value("${login.limitador.max-claves:100000}") int maxClaves,
+                          @Value("${login.limitador.inactividad-segundos:600}") long inactividadSegundos) {
+        if (rafagaUsuario <= 0 || porMinutoUsuario <= 0 || rafagaCliente <= 0 || porMinutoCliente <= 0) {
+            throw new IllegalArgumentException("Las ráfagas y frecuencias del limitador de login deben ser mayores que 0");
+        }
+        this.habilitado = habilitado;
+        this.porUsuario = new Ambito(AMBITO_USUARIO, rafagaUsuario, porMinutoUsuario);
+        this.porCliente = new Ambito(AMBITO_CLIENTE, rafagaCliente, porMinutoCliente);
+        this.maxClaves = maxClaves;
+        this.inactividadNanos = TimeUnit.SECONDS.toNanos(inactividadSegundos);
+
+        log.info("Limitador de login {}: usuario {}/min (ráfaga {}), cliente {}/min (ráfaga {})",
+                habilitado ? "habilitado" : "deshabilitado",
+                porMinutoUsuario, rafagaUsuario, porMinutoCliente, rafagaCliente);
+    }
+
+    /**
+     * Consume un token del cliente y otro del username.
+     *
+     * @param username Username introducido (tal cual)
+     * @param cliente Identificador del cliente, o null si no hay (consola)
+     * @throws LoginLimitadoException si se supera alguno de los dos límites
+     */
+    public void comprobar(String username, String cliente) {
+        if (!habilitado) {
+            return;
+        }
+        long ahora = System.nanoTime();
+        if (cliente != null) {
+            porCliente.consumir(clave(cliente), ahora);
+        }
+        porUsuario.consumir(clave(username), ahora);
+    }
+
+    private static String clave(String valor) {
+        String normalizado = valor == null ? "" : valor.trim().toLowerCase(Locale.ROOT);
+        return normalizado.length() > LONGITUD_MAXIMA_CLAVE
+                ? normalizado.substring(0, LONGITUD_MAXIMA_CLAVE)
+                : normalizado;
+    }
+
+    /**
+     * Elimina los cubos inactivos (llenos desde hace más de la inactividad configurada).
+     */
+    @Scheduled(fixedDelayString = "${login.limitador.limpieza-ms:60000}")
+    public void limpiar() {
+        long ahora = System.nanoTime();
+        int eliminados = porUsuario.limpiar(ahora) + porCliente.limpiar(ahora);
+        if (eliminados > 0) {
+            log.debug("Limitador de login: {} cubos inactivos eliminados", eliminados);
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public long getRechazos(String ambito) {
+        return ambito(ambito).rechazos.sum();
+    }
+
+    public long getPermitidos(String ambito) {
+        return ambito(ambito).permitidos.sum();
+    }
+
+    public int getClaves(String ambito) {
+        return ambito(ambito).cubos.size();
+    }
+
+    public double getPorMinuto(String ambito) {
+        return ambito(ambito).porMinuto;
+    }
+
+    private Ambito ambito(String nombre) {
+        return AMBITO_CLIENTE.equals(nombre) ? porCliente : porUsuario;
+    }
+
+    /** Cubos y contadores de un ámbito (usuario o cliente). */
+    private final class Ambito {
+
+        private final String nombre;
+        private final int porMinuto;
+        private final long intervaloNanos;
+        private final long toleranciaNanos;
+        private final ConcurrentHashMap<String, CuboTokens> cubos = new ConcurrentHashMap<>();
+        private final CuboTokens[] desbordamiento = new CuboTokens[CUBOS_DESBORDAMIENTO];
+
+        private final LongAdder permitidos = new LongAdder();
+        private final LongAdder rechazos = new LongAdder();
+
+        Ambito(String nombre, int rafaga, int porMinuto) {
+            this.nombre = nombre;
+            this.porMinuto = porMinuto;
+            this.intervaloNanos = TimeUnit.MINUTES.toNanos(1) / porMinuto;
+            this.toleranciaNanos = intervaloNanos * rafaga;
+            long ahora = System.nanoTime();
+            for (int i = 0; i < desbordamiento.length; i++) {
+                desbordamiento[i] = new CuboTokens(ahora);
+            }
+        }
+
+        void consumir(String clave, long ahora) {
+            long espera = cubo(clave, ahora).consumir(ahora, intervaloNanos, toleranciaNanos);
+            if (espera == 0) {
+                permitidos.increment();
+                return;
+            }
+            rechazos.increment();
+            throw new LoginLimitadoException(nombre, Duration.ofNanos(espera));
+        }
+
+        private CuboTokens cubo(String clave, long ahora) {
+            CuboTokens cubo = cubos.get(clave);
+            if (cubo != null) {
+                return cubo;
+            }
+            if (cubos.size() >= maxClaves) {
+                return desbordamiento[(clave.hashCode() & 0x7fffffff) % CUBOS_DESBORDAMIENTO];
+            }
+            return cubos.computeIfAbsent(clave, k -> new CuboTokens(ahora));
+        }
+
+        int limpiar(long ahora) {
+            int antes = cubos.size();
+            cubos.values().removeIf(c -> c.inactivo(ahora, inactividadNanos));
+            return antes - cubos.size();
+        }
+    }
+}
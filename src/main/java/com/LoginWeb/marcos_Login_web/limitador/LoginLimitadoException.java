@@ -0,0 +1,31 @@
+package com.LoginWeb.marcos_Login_web.limitador;
+
+import java.time.Duration;
+
+/**
+ * Se lanza cuando un intento de login supera el límite de frecuencia por
+ * username o por cliente. Se rechaza antes de consultar la BBDD o hashear.
+ *
+ * Es un rechazo rápido: el llamante debe reintentar pasado reintentarEn.
+ */
+public class LoginLimitadoException extends IllegalStateException {
+
+    private final String ambito;
+    private final Duration reintentarEn;
+
+    public LoginLimitadoException(String ambito, Duration reintentarEn) {
+        super("Demasiados intentos de login (" + ambito + "), reintenta en "
+                + Math.max(1, reintentarEn.toSeconds()) + " s");
+        this.ambito = ambito;
+        this.reintentarEn = reintentarEn;
+    }
+
+    /** "usuario" o "cliente": qué límite se superó. */
+    public String getAmbito() {
+        return ambito;
+    }
+
+    public Duration getReintentarEn() {
+        return reintentarEn;
+    }
+}
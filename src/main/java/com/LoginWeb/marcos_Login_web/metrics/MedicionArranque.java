@@ -0,0 +1,142 @@
+package com.LoginWeb.marcos_Login_web.metrics;
+
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.service.UsuarioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Medición del arranque en frío: tiempo desde el inicio de la JVM hasta que
+ * la aplicación está lista y hasta el primer loginConIntentos correcto.
+ *
+ * Desactivada por defecto (arranque.medicion.habilitada). Al activarla, tras
+ * ApplicationReadyEvent hace login con el usuario sonda y escribe una línea
+ * con prefijo MEDICION_ARRANQUE que procesa scripts/medir-arranque.sh. Con
+ * arranque.medicion.salir=true la aplicación termina después, para encadenar
+ * ejecuciones (y para la ejecución de entrenamiento del archivo CDS).
+ *
+ * No hay contraseña por defecto:
+ * - Sin arranque.medicion.password (ARRANQUE_MEDICION_PASSWORD), la sonda se
+ *   crea en cada ejecución con una contraseña aleatoria (fuera del tiempo
+ *   medido) y se borra al terminar. Si ya existe un usuario con ese username
+ *   no se mide: no se entra en cuentas ajenas ni se borran
+ * - Con la contraseña configurada se usa una sonda ya existente, que no se
+ *   borra (medición sin la creación previa calentando el acceso a la BBDD)
+ *
+ * No se usa @ConditionalOnProperty: con el contexto procesado por AOT las
+ * condiciones se evalúan al compilar, y la medición se activa al ejecutar.
+ */
+@Component
+@Slf4j
+public class MedicionArranque {
+
+    private static final SecureRandom ALEATORIO = new SecureRandom();
+
+    private final UsuarioService usuarioService;
+    private final ApplicationContext contexto;
+    private final boolean habilitada;
+    private final boolean salir;
+    private final String username;
+    private final String password;
+
+    private volatile long listoMs = -1;
+    private volatile long primerLoginMs = -1;
+
+    public MedicionArranque(UsuarioService usuarioService,
+                            ApplicationContext contexto,
+                            @Value("${arranque.medicion.habilitada:false}") boolean habilitada,
+                            @Value("${arranque.medicion.salir:false}") boolean salir,
+                            @Value("${arranque.medicion.username:sonda-arranque}") String username,
+                            @Value("${arranque.medicion.password:}") String password) {
+        this.usuarioService = usuarioService;
+        this.contexto = contexto;
+        this.habilitada = habilitada;
+        this.salir = salir;
+        this.username = username;
+        this.password = password;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void medir(ApplicationReadyEvent evento) {
+        long inicioJvm = ManagementFactory.getRuntimeMXBean().getStartTime();
+        listoMs = System.currentTimeMillis() - inicioJvm;
+        if (!habilitada) {
+            return;
+        }
+
+        Optional<Usuario> existente = usuarioService.obtenerPorUsername(username);
+        boolean configurada = password != null && !password.isBlank();
+        if (existente.isPresent() && !configurada) {
+            log.warn("La sonda de arranque ({}) ya existe y no se configuró su contraseña "
+                    + "(ARRANQUE_MEDICION_PASSWORD): no se mide", username);
+            terminar(false);
+            return;
+        }
+
+        String clave = configurada ? password : contraseñaAleatoria();
+        Usuario sonda = existente.orElse(null);
+        long creacionMs = 0;
+        if (sonda == null) {
+            long inicio = System.nanoTime();
+            sonda = usuarioService.crearUsuario(username, username + "@arranque.local", clave);
+            creacionMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+        }
+
+        boolean correcto;
+        try {
+            long inicioLogin = System.nanoTime();
+            correcto = usuarioService.loginConIntentos(username, clave).isPresent();
+            long loginMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioLogin);
+            // Sin contar la creación de la sonda
+            primerLoginMs = System.currentTimeMillis() - inicioJvm - creacionMs;
+
+            log.info("MEDICION_ARRANQUE listo_ms={} primer_login_ms={} login_ms={} correcto={} aot={}",
+                    listoMs, primerLoginMs, loginMs, correcto, Boolean.getBoolean("spring.aot.enabled"));
+            if (!correcto) {
+                log.warn("El login de la sonda de arranque ({}) no fue correcto: revisar arranque.medicion.*", username);
+            }
+        } finally {
+            // Una sonda creada en esta ejecución no sobrevive a ella
+            if (existente.isEmpty()) {
+                usuarioService.eliminarUsuario(sonda.getId());
+            }
+        }
+        terminar(correcto);
+    }
+
+    private void terminar(boolean correcto) {
+        if (salir) {
+            // En otro hilo: el cierre del contexto no debe ejecutarse dentro del evento
+            Thread hilo = new Thread(() -> System.exit(SpringApplication.exit(contexto, () -> correcto ? 0 : 1)),
+                    "medicion-arranque-salida");
+            hilo.start();
+        }
+    }
+
+    private static String contraseñaAleatoria() {
+        byte[] bytes = new byte[24];
+        ALEATORIO.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /** Milisegundos desde el inicio de la JVM hasta ApplicationReadyEvent (-1 si aún no). */
+    public long getListoMs() {
+        return listoMs;
+    }
+
+    /** Milisegundos desde el inicio de la JVM hasta el primer login de la sonda (-1 si no se midió). */
+    public long getPrimerLoginMs() {
+        return primerLoginMs;
+    }
+}
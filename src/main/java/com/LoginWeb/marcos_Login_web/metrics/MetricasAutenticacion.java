@@ -0,0 +1,102 @@
+package com.LoginWeb.marcos_Login_web.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métricas del flujo de autenticación (Micrometer).
+ *
+ * - auth.operacion: duración total por operación y resultado (ok/error)
+ * - auth.etapa: duración por operación y etapa (lectura, bcrypt, escritura...)
+ * - auth.resultado: intentos de login por operación y ResultadoAutenticacion
+ *
+ * Los timers publican histogramas de percentiles, agregables entre nodos
+ * desde Prometheus (histogram_quantile). La espera por una conexión del
+ * pool la mide Hikari (hikaricp.connections.acquire).
+ */
+@Component
+public class MetricasAutenticacion {
+
+    // Operaciones
+    public static final String LOGIN = "loginConIntentos";
+    public static final String VERIFICAR_CREDENCIALES = "verificarCredenciales";
+    public static final String VERIFICAR_LOGIN = "verificarLogin";
+    public static final String CREAR_USUARIO = "crearUsuario";
+    public static final String CAMBIAR_PASSWORD = "cambiarPassword";
+
+    // Etapas
+    public static final String VALIDACION = "validacion";
+    public static final String LECTURA = "lectura";
+    public static final String BCRYPT = "bcrypt";
+    public static final String ESCRITURA = "escritura";
+
+    private static final Duration MINIMO_ESPERADO = Duration.ofMillis(1);
+    private static final Duration MAXIMO_ESPERADO = Duration.ofSeconds(10);
+
+    private final MeterRegistry registry;
+
+    // Caché de medidores: evita la búsqueda en el registro en cada login
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> contadores = new ConcurrentHashMap<>();
+
+    public MetricasAutenticacion(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Ejecuta una operación completa midiendo su duración; una excepción
+     * se registra con resultado "error" y se propaga.
+     */
+    public <T> T medirOperacion(String operacion, Supplier<T> accion) {
+        long inicio = System.nanoTime();
+        String resultado = "error";
+        try {
+            T valor = accion.get();
+            resultado = "ok";
+            return valor;
+        } finally {
+            timer("auth.operacion", "operacion", operacion, "resultado", resultado)
+                    .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Ejecuta una etapa de una operación midiendo su duración.
+     */
+    public <T> T medirEtapa(String operacion, String etapa, Supplier<T> accion) {
+        return timer("auth.etapa", "operacion", operacion, "etapa", etapa).record(accion);
+    }
+
+    public void medirEtapa(String operacion, String etapa, Runnable accion) {
+        timer("auth.etapa", "operacion", operacion, "etapa", etapa).record(accion);
+    }
+
+    public void registrarResultado(String operacion, ResultadoAutenticacion resultado) {
+        String clave = operacion + '|' + resultado.getEtiqueta();
+        contadores.computeIfAbsent(clave, k -> Counter.builder("auth.resultado")
+                        .description("Intentos de autenticación por resultado")
+                        .tag("operacion", operacion)
+                        .tag("resultado", resultado.getEtiqueta())
+                        .register(registry))
+                .increment();
+    }
+
+    private Timer timer(String nombre, String clave1, String valor1, String clave2, String valor2) {
+        String clave = nombre + '|' + valor1 + '|' + valor2;
+        return timers.computeIfAbsent(clave, k -> Timer.builder(nombre)
+                .tag(clave1, valor1)
+                .tag(clave2, valor2)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(MINIMO_ESPERADO)
+                .maximumExpectedValue(MAXIMO_ESPERADO)
+                .register(registry));
+    }
+}
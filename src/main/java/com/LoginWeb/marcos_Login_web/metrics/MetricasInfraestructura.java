@@ -0,0 +1,210 @@
+package com.LoginWeb.marcos_Login_web.metrics;
+
+import com.LoginWeb.marcos_Login_web.auditoria.AuditoriaLogin;
+import com.LoginWeb.marcos_Login_web.busqueda.IndiceTrigramas;
+import com.LoginWeb.marcos_Login_web.cache.UsuarioCache;
+import com.LoginWeb.marcos_Login_web.cache.VerificacionesCache;
+import com.LoginWeb.marcos_Login_web.limitador.LimitadorLogin;
+import com.LoginWeb.marcos_Login_web.service.ActualizadorHash;
+import com.LoginWeb.marcos_Login_web.service.EstadisticasUsuarios;
+import com.LoginWeb.marcos_Login_web.service.ExpiracionBloqueos;
+import com.LoginWeb.marcos_Login_web.sesion.SesionesEnCapasRepository;
+import com.LoginWeb.marcos_Login_web.service.UltimoLoginBuffer;
+import com.LoginWeb.marcos_Login_web.util.PasswordHashingExecutor;
+import com.LoginWeb.marcos_Login_web.util.PasswordUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publica como métricas los contadores que ya mantienen los componentes
+ * de infraestructura (ejecutor de hashing, cachés, último login diferido,
+ * rehash, limitador de login, auditoría, caché de sesiones, índice de
+ * búsqueda). Se leen en cada scrape: no añaden coste al camino del login.
+ *
+ * Las métricas del pool (hikaricp.*) las registra Spring Boot.
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricasInfraestructura implements MeterBinder {
+
+    private final PasswordHashingExecutor hashingExecutor;
+    private final PasswordUtil passwordUtil;
+    private final UsuarioCache usuarioCache;
+    private final VerificacionesCache verificaciones;
+    private final UltimoLoginBuffer ultimoLoginBuffer;
+    private final ActualizadorHash actualizadorHash;
+    private final LimitadorLogin limitadorLogin;
+    private final AuditoriaLogin auditoria;
+    private final IndiceTrigramas indiceTrigramas;
+    private final EstadisticasUsuarios estadisticas;
+    private final ExpiracionBloqueos expiracionBloqueos;
+    private final MedicionArranque medicionArranque;
+    private final ObjectProvider<SesionesEnCapasRepository<?>> sesiones;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Ejecutor de hashing
+        Gauge.builder("hashing.cola", hashingExecutor, PasswordHashingExecutor::getProfundidadCola)
+                .description("Tareas de hashing en cola")
+                .register(registry);
+        Gauge.builder("hashing.cola.capacidad", hashingExecutor, PasswordHashingExecutor::getCapacidadCola)
+                .register(registry);
+        Gauge.builder("hashing.tareas.en_curso", hashingExecutor, PasswordHashingExecutor::getTareasEnCurso)
+                .register(registry);
+        FunctionCounter.builder("hashing.tareas.completadas", hashingExecutor, PasswordHashingExecutor::getTareasCompletadas)
+                .register(registry);
+        FunctionCounter.builder("hashing.tareas.rechazadas", hashingExecutor, PasswordHashingExecutor::getTareasRechazadas)
+                .description("Tareas rechazadas por cola llena o espera excesiva")
+                .register(registry);
+        Gauge.builder("hashing.espera.media", hashingExecutor, PasswordHashingExecutor::getEsperaMediaMs)
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("hashing.espera.pico", hashingExecutor, PasswordHashingExecutor::getEsperaPicoMs)
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("hashing.bcrypt.coste", passwordUtil, PasswordUtil::getCoste)
+                .register(registry);
+
+        // Caché de usuarios
+        Gauge.builder("usuarios.cache.tamano", usuarioCache, UsuarioCache::getTamaño)
+                .register(registry);
+        FunctionCounter.builder("usuarios.cache.peticiones", usuarioCache, UsuarioCache::getAciertos)
+                .tag("resultado", "acierto")
+                .register(registry);
+        FunctionCounter.builder("usuarios.cache.peticiones", usuarioCache, UsuarioCache::getFallos)
+                .tag("resultado", "fallo")
+                .register(registry);
+        FunctionCounter.builder("usuarios.cache.expulsiones", usuarioCache, UsuarioCache::getExpulsiones)
+                .register(registry);
+        FunctionCounter.builder("usuarios.cache.invalidaciones", usuarioCache, UsuarioCache::getInvalidaciones)
+                .register(registry);
+
+        // Caché de verificaciones (cada acierto es un BCrypt evitado)
+        Gauge.builder("credenciales.cache.tamano", verificaciones, VerificacionesCache::getTamaño)
+                .register(registry);
+        FunctionCounter.builder("credenciales.cache.peticiones", verificaciones, VerificacionesCache::getAciertos)
+                .tag("resultado", "acierto")
+                .description("Verificaciones resueltas sin BCrypt")
+                .register(registry);
+        FunctionCounter.builder("credenciales.cache.peticiones", verificaciones, VerificacionesCache::getFallos)
+                .tag("resultado", "fallo")
+                .register(registry);
+        Gauge.builder("credenciales.cache.tasa_aciertos", verificaciones, VerificacionesCache::getTasaAciertos)
+                .register(registry);
+        FunctionCounter.builder("credenciales.cache.expulsiones", verificaciones, VerificacionesCache::getExpulsiones)
+                .register(registry);
+        FunctionCounter.builder("credenciales.cache.invalidaciones", verificaciones, VerificacionesCache::getInvalidaciones)
+                .register(registry);
+
+        // Último login diferido y rehash
+        Gauge.builder("usuarios.ultimo_login.pendientes", ultimoLoginBuffer, UltimoLoginBuffer::getPendientes)
+                .register(registry);
+        FunctionCounter.builder("usuarios.ultimo_login.escrituras_directas", ultimoLoginBuffer,
+                        UltimoLoginBuffer::getEscriturasDirectas)
+                .register(registry);
+        FunctionCounter.builder("usuarios.ultimo_login.descartados", ultimoLoginBuffer, UltimoLoginBuffer::getDescartados)
+                .register(registry);
+        FunctionCounter.builder("passwords.rehash", actualizadorHash, ActualizadorHash::getActualizados)
+                .tag("resultado", "actualizado")
+                .register(registry);
+        FunctionCounter.builder("passwords.rehash", actualizadorHash, ActualizadorHash::getOmitidos)
+                .tag("resultado", "omitido")
+                .register(registry);
+
+        // Limitador de login
+        for (String ambito : new String[]{LimitadorLogin.AMBITO_USUARIO, LimitadorLogin.AMBITO_CLIENTE}) {
+            FunctionCounter.builder("login.limitador.rechazos", limitadorLogin, l -> l.getRechazos(ambito))
+                    .tag("ambito", ambito)
+                    .register(registry);
+            FunctionCounter.builder("login.limitador.permitidos", limitadorLogin, l -> l.getPermitidos(ambito))
+                    .tag("ambito", ambito)
+                    .register(registry);
+            Gauge.builder("login.limitador.claves", limitadorLogin, l -> l.getClaves(ambito))
+                    .tag("ambito", ambito)
+                    .register(registry);
+            Gauge.builder("login.limitador.por_minuto", limitadorLogin, l -> l.getPorMinuto(ambito))
+                    .tag("ambito", ambito)
+                    .register(registry);
+        }
+
+        // Auditoría de login
+        Gauge.builder("auditoria.pendientes", auditoria, AuditoriaLogin::getPendientes)
+                .description("Eventos de auditoría en el buffer, aún sin escribir")
+                .register(registry);
+        Gauge.builder("auditoria.capacidad", auditoria, AuditoriaLogin::getCapacidad)
+                .register(registry);
+        FunctionCounter.builder("auditoria.eventos", auditoria, AuditoriaLogin::getPublicados)
+                .tag("estado", "publicado")
+                .register(registry);
+        FunctionCounter.builder("auditoria.eventos", auditoria, AuditoriaLogin::getEscritos)
+                .tag("estado", "escrito")
+                .register(registry);
+        FunctionCounter.builder("auditoria.eventos", auditoria, AuditoriaLogin::getDescartados)
+                .tag("estado", "descartado")
+                .register(registry);
+        FunctionCounter.builder("auditoria.eventos", auditoria, AuditoriaLogin::getErroresEscritura)
+                .tag("estado", "error")
+                .register(registry);
+
+        // Arranque en frío
+        Gauge.builder("arranque.listo", medicionArranque, MedicionArranque::getListoMs)
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("arranque.primer_login", medicionArranque, MedicionArranque::getPrimerLoginMs)
+                .baseUnit("milliseconds")
+                .description("Desde el inicio de la JVM hasta el primer login de la sonda (-1 sin medir)")
+                .register(registry);
+
+        // Usuarios por estado (contadores mantenidos, sin COUNT)
+        Gauge.builder("usuarios", estadisticas, e -> e.getConteo().activos())
+                .tag("estado", "activo")
+                .register(registry);
+        Gauge.builder("usuarios", estadisticas, e -> e.getConteo().inactivos())
+                .tag("estado", "inactivo")
+                .register(registry);
+        Gauge.builder("usuarios.bloqueados", estadisticas, e -> e.getConteo().bloqueados())
+                .register(registry);
+        Gauge.builder("usuarios.estadisticas.desviacion", estadisticas, EstadisticasUsuarios::getDesviacionUltima)
+                .description("Diferencia corregida en la última reconciliación con la tabla")
+                .register(registry);
+        FunctionCounter.builder("usuarios.bloqueos.expirados", expiracionBloqueos, ExpiracionBloqueos::getDesbloqueados)
+                .description("Bloqueos expirados levantados por el barrido")
+                .register(registry);
+
+        // Índice de búsqueda
+        Gauge.builder("busqueda.indice.usuarios", indiceTrigramas, IndiceTrigramas::getUsuariosIndexados)
+                .register(registry);
+        Gauge.builder("busqueda.indice.trigramas", indiceTrigramas, IndiceTrigramas::getTrigramas)
+                .register(registry);
+        Gauge.builder("busqueda.indice.listo", indiceTrigramas, i -> i.isListo() ? 1 : 0)
+                .register(registry);
+
+        // Caché de sesiones (solo en aplicación web)
+        sesiones.ifAvailable(repositorio -> {
+            Gauge.builder("sesiones.cache.tamano", repositorio, SesionesEnCapasRepository::getTamaño)
+                    .register(registry);
+            FunctionCounter.builder("sesiones.cache.peticiones", repositorio, SesionesEnCapasRepository::getAciertos)
+                    .tag("resultado", "acierto")
+                    .register(registry);
+            FunctionCounter.builder("sesiones.cache.peticiones", repositorio, SesionesEnCapasRepository::getFallos)
+                    .tag("resultado", "fallo")
+                    .register(registry);
+            FunctionCounter.builder("sesiones.escrituras", repositorio, SesionesEnCapasRepository::getEscriturasCompletas)
+                    .tag("tipo", "completa")
+                    .register(registry);
+            FunctionCounter.builder("sesiones.escrituras", repositorio, SesionesEnCapasRepository::getAccesosEscritos)
+                    .tag("tipo", "ultimo_acceso")
+                    .register(registry);
+            FunctionCounter.builder("sesiones.ultimo_acceso.agrupados", repositorio,
+                            SesionesEnCapasRepository::getAccesosAgrupados)
+                    .register(registry);
+            Gauge.builder("sesiones.ultimo_acceso.pendientes", repositorio, SesionesEnCapasRepository::getPendientes)
+                    .register(registry);
+        });
+    }
+}
@@ -0,0 +1,27 @@
+package com.LoginWeb.marcos_Login_web.metrics;
+
+/**
+ * Resultado de un intento de autenticación, usado como etiqueta de métricas.
+ */
+public enum ResultadoAutenticacion {
+
+    EXITO("exito"),
+    PASSWORD_INCORRECTA("password_incorrecta"),
+    USUARIO_INEXISTENTE("usuario_inexistente"),
+    BLOQUEADO("bloqueado"),
+    DESACTIVADO("desactivado"),
+    // El usuario cambió (eliminado, desactivado, nueva contraseña) durante el login
+    CONFLICTO("conflicto"),
+    // Rechazado por el limitador de frecuencia, antes de consultar o hashear
+    LIMITADO("limitado");
+
+    private final String etiqueta;
+
+    ResultadoAutenticacion(String etiqueta) {
+        this.etiqueta = etiqueta;
+    }
+
+    public String getEtiqueta() {
+        return etiqueta;
+    }
+}
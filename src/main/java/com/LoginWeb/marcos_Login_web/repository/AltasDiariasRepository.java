@@ -0,0 +1,20 @@
+package com.LoginWeb.marcos_Login_web.repository;
+
+import com.LoginWeb.marcos_Login_web.entity.AltasDiarias;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Lectura del resumen diario de altas (ver ResumenAltasDiarias para la escritura).
+ */
+@Repository
+public interface AltasDiariasRepository extends JpaRepository<AltasDiarias, LocalDate> {
+
+    /**
+     * Días desde la fecha indicada (incluida), en orden. Rango sobre la clave primaria.
+     */
+    List<AltasDiarias> findByDiaGreaterThanEqualOrderByDiaAsc(LocalDate desde);
+}
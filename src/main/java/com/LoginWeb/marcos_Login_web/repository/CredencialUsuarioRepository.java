@@ -0,0 +1,375 @@
+package com.LoginWeb.marcos_Login_web.repository;
+
+import com.LoginWeb.marcos_Login_web.dto.EstadoAcceso;
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.CredencialUsuario;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Repositorio de CredencialUsuario (tabla credenciales_usuario).
+ *
+ * Las escrituras del login (intentos, bloqueo, último login, rehash) son
+ * UPDATE condicionales sobre esta tabla estrecha; la fila del perfil solo se
+ * consulta por clave primaria para comprobar que el usuario sigue activo.
+ */
+@Repository
+public interface CredencialUsuarioRepository extends JpaRepository<CredencialUsuario, Long> {
+
+    /**
+     * Condición JPQL: el usuario de la credencial c sigue activo.
+     */
+    String USUARIO_ACTIVO = "EXISTS (SELECT u.id FROM Usuario u WHERE u.id = c.usuarioId AND u.activo = true)";
+
+    // ========================================
+    // CARGA CONJUNTA CON EL PERFIL
+    // ========================================
+
+    @Query("SELECT c FROM CredencialUsuario c JOIN FETCH c.usuario u WHERE u.username = :username")
+    Optional<CredencialUsuario> findConUsuarioByUsername(@Param("username") String username);
+
+    @Query("SELECT c FROM CredencialUsuario c JOIN FETCH c.usuario WHERE c.usuarioId = :id")
+    Optional<CredencialUsuario> findConUsuarioById(@Param("id") Long id);
+
+    /**
+     * Usuario por username con su credencial enlazada (login, caché).
+     */
+    default Optional<Usuario> findUsuarioConCredencialByUsername(String username) {
+        return findConUsuarioByUsername(username).map(CredencialUsuario::enlazarUsuario);
+    }
+
+    /**
+     * Usuario por ID con su credencial enlazada (login, caché).
+     */
+    default Optional<Usuario> findUsuarioConCredencialById(Long id) {
+        return findConUsuarioById(id).map(CredencialUsuario::enlazarUsuario);
+    }
+
+    @Query("SELECT c FROM CredencialUsuario c JOIN FETCH c.usuario ORDER BY c.usuarioId")
+    List<CredencialUsuario> findTodasConUsuario();
+
+    @Query("SELECT c FROM CredencialUsuario c JOIN FETCH c.usuario u WHERE u.activo = true ORDER BY c.usuarioId")
+    List<CredencialUsuario> findActivasConUsuario();
+
+    @Query("SELECT c FROM CredencialUsuario c JOIN FETCH c.usuario u WHERE u.dominioEmail = :dominio ORDER BY c.usuarioId")
+    List<CredencialUsuario> findConUsuarioByDominioEmail(@Param("dominio") String dominioEmail);
+
+    @Query("SELECT c FROM CredencialUsuario c JOIN FETCH c.usuario u WHERE u.fechaCreacion >= :desde ORDER BY c.usuarioId")
+    List<CredencialUsuario> findConUsuarioCreadasDesde(@Param("desde") LocalDateTime desde);
+
+    /**
+     * Página ordenada por ID sin COUNT: el total lo aporta EstadisticasUsuarios.
+     */
+    @Query("SELECT c FROM CredencialUsuario c JOIN FETCH c.usuario ORDER BY c.usuarioId")
+    Slice<CredencialUsuario> findPaginaConUsuario(Pageable pageable);
+
+    /**
+     * Todos los usuarios con su credencial enlazada.
+     */
+    default List<Usuario> findUsuariosConCredencial() {
+        return enlazar(findTodasConUsuario());
+    }
+
+    /**
+     * Usuarios activos con su credencial enlazada.
+     */
+    default List<Usuario> findUsuariosActivosConCredencial() {
+        return enlazar(findActivasConUsuario());
+    }
+
+    /**
+     * Usuarios del dominio (normalizado, igualdad exacta como
+     * UsuarioRepository.findByDominioEmail) con su credencial enlazada.
+     */
+    default List<Usuario> findUsuariosConCredencialByDominioEmail(String dominioEmail) {
+        return enlazar(findConUsuarioByDominioEmail(dominioEmail));
+    }
+
+    /**
+     * Usuarios creados en los últimos días (hoy y los N días naturales
+     * anteriores, como UsuarioRepository.findUsuariosRecientes) con su
+     * credencial enlazada.
+     */
+    default List<Usuario> findUsuariosRecientesConCredencial(int dias) {
+        return enlazar(findConUsuarioCreadasDesde(LocalDate.now().minusDays(dias).atStartOfDay()));
+    }
+
+    private static List<Usuario> enlazar(List<CredencialUsuario> credenciales) {
+        return credenciales.stream().map(CredencialUsuario::enlazarUsuario).toList();
+    }
+
+    // ========================================
+    // EXPORTACIÓN EN STREAMING
+    // ========================================
+
+    /**
+     * Recorre todos los usuarios (con su credencial) con un cursor de solo avance.
+     * Con MySQL, fetchSize = Integer.MIN_VALUE hace que el driver entregue las
+     * filas de una en una en vez de cargar el resultado completo en memoria.
+     * Las entidades se cargan en modo solo lectura (sin snapshot de dirty-checking).
+     *
+     * Debe consumirse dentro de una transacción y cerrarse al terminar.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT c FROM CredencialUsuario c JOIN FETCH c.usuario ORDER BY c.usuarioId")
+    Stream<CredencialUsuario> streamTodos();
+
+    /**
+     * Igual que streamTodos, limitado a usuarios activos.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT c FROM CredencialUsuario c JOIN FETCH c.usuario u WHERE u.activo = true ORDER BY c.usuarioId")
+    Stream<CredencialUsuario> streamActivos();
+
+    // ========================================
+    // ACTUALIZACIONES ATÓMICAS DE INTENTOS
+    // ========================================
+
+    /**
+     * Incrementa los intentos fallidos y bloquea al llegar al máximo en una
+     * única sentencia UPDATE. Solo afecta a usuarios activos, no bloqueados y
+     * cuyo hash sigue siendo el que se verificó (si la contraseña cambió
+     * entretanto, el intento no cuenta).
+     *
+     * MySQL evalúa las asignaciones de izquierda a derecha con los valores ya
+     * modificados: bloqueado se calcula ANTES de incrementar intentos_fallidos,
+     * y fecha_bloqueo DESPUÉS de calcular bloqueado.
+     *
+     * @return Filas afectadas (0 si no se cumplió alguna condición)
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CredencialUsuario c SET " +
+            "c.bloqueado = CASE WHEN c.intentosFallidos + 1 >= :maxIntentos THEN true ELSE false END, " +
+            "c.intentosFallidos = c.intentosFallidos + 1, " +
+            "c.fechaBloqueo = CASE WHEN c.bloqueado = true THEN :ahora ELSE NULL END " +
+            "WHERE c.usuarioId = :id AND c.passwordHash = :passwordHash AND c.bloqueado = false " +
+            "AND " + USUARIO_ACTIVO)
+    int incrementarIntentosFallidos(@Param("id") Long id,
+                                    @Param("passwordHash") String passwordHash,
+                                    @Param("maxIntentos") int maxIntentos,
+                                    @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Intento fallido sobre un bloqueo ya expirado: levanta el bloqueo y
+     * cuenta este intento como el primero de una nueva serie, en la misma
+     * sentencia que lo registra (MAX_INTENTOS_FALLIDOS es mayor que 1).
+     *
+     * @param limite Los bloqueos anteriores a este instante han expirado
+     * @return Filas afectadas (0 si ya no estaba bloqueado o el bloqueo sigue vigente)
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CredencialUsuario c SET c.bloqueado = false, c.intentosFallidos = 1, c.fechaBloqueo = NULL " +
+            "WHERE c.usuarioId = :id AND c.passwordHash = :passwordHash " +
+            "AND c.bloqueado = true AND c.fechaBloqueo < :limite AND " + USUARIO_ACTIVO)
+    int reiniciarIntentosTrasBloqueo(@Param("id") Long id,
+                                     @Param("passwordHash") String passwordHash,
+                                     @Param("limite") LocalDateTime limite);
+
+    /**
+     * Resetea los intentos fallidos y registra el último login en una única
+     * sentencia UPDATE. Solo afecta a usuarios activos, no bloqueados y cuyo
+     * hash sigue siendo el que se verificó.
+     *
+     * @return Filas afectadas (0 si no se cumplió alguna condición)
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CredencialUsuario c SET c.intentosFallidos = 0, c.ultimoLogin = :ahora " +
+            "WHERE c.usuarioId = :id AND c.passwordHash = :passwordHash AND c.bloqueado = false " +
+            "AND " + USUARIO_ACTIVO)
+    int resetearIntentosFallidos(@Param("id") Long id,
+                                 @Param("passwordHash") String passwordHash,
+                                 @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Login correcto sobre un bloqueo ya expirado: levanta el bloqueo,
+     * resetea los intentos y registra el último login en una única sentencia.
+     *
+     * @param limite Los bloqueos anteriores a este instante han expirado
+     * @return Filas afectadas (0 si ya no estaba bloqueado o el bloqueo sigue vigente)
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CredencialUsuario c SET c.bloqueado = false, c.intentosFallidos = 0, c.fechaBloqueo = NULL, " +
+            "c.ultimoLogin = :ahora " +
+            "WHERE c.usuarioId = :id AND c.passwordHash = :passwordHash " +
+            "AND c.bloqueado = true AND c.fechaBloqueo < :limite AND " + USUARIO_ACTIVO)
+    int desbloquearAlAcceder(@Param("id") Long id,
+                             @Param("passwordHash") String passwordHash,
+                             @Param("ahora") LocalDateTime ahora,
+                             @Param("limite") LocalDateTime limite);
+
+    /**
+     * Registra el último login si el usuario sigue activo y con el hash verificado.
+     *
+     * @return Filas afectadas (0 si no se cumplió alguna condición)
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CredencialUsuario c SET c.ultimoLogin = :ahora " +
+            "WHERE c.usuarioId = :id AND c.passwordHash = :passwordHash AND " + USUARIO_ACTIVO)
+    int actualizarUltimoLogin(@Param("id") Long id,
+                              @Param("passwordHash") String passwordHash,
+                              @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Sustituye el hash de la contraseña solo si sigue siendo el indicado:
+     * un cambio de contraseña concurrente nunca se pisa.
+     *
+     * @return Filas afectadas (0 si el hash ya había cambiado)
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CredencialUsuario c SET c.passwordHash = :nuevoHash " +
+            "WHERE c.usuarioId = :id AND c.passwordHash = :hashActual")
+    int reemplazarPasswordHash(@Param("id") Long id,
+                               @Param("hashActual") String hashActual,
+                               @Param("nuevoHash") String nuevoHash);
+
+    /**
+     * Desbloquea un usuario bloqueado por intentos fallidos y reinicia el contador.
+     *
+     * @return Filas afectadas (0 si no existe o no estaba bloqueado)
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CredencialUsuario c SET c.bloqueado = false, c.intentosFallidos = 0, c.fechaBloqueo = NULL " +
+            "WHERE c.usuarioId = :id AND c.bloqueado = true")
+    int desbloquear(@Param("id") Long id);
+
+    // ========================================
+    // EXPIRACIÓN DE BLOQUEOS
+    // ========================================
+
+    /**
+     * Siguiente tramo de bloqueos expirados, del más antiguo al más reciente
+     * (rango sobre idx_bloqueado_fecha_bloqueo). El username se lee para
+     * invalidar la caché.
+     */
+    @Query("SELECT " + UsuarioRepository.RESUMEN + " FROM CredencialUsuario c JOIN c.usuario u " +
+            "WHERE c.bloqueado = true AND c.fechaBloqueo < :limite ORDER BY c.fechaBloqueo, c.usuarioId")
+    List<UsuarioResumen> findResumenBloqueosExpirados(@Param("limite") LocalDateTime limite, Limit limit);
+
+    /**
+     * Desbloquea un tramo de usuarios cuyo bloqueo expiró. Repite la condición
+     * de expiración: un usuario desbloqueado (y quizá vuelto a bloquear)
+     * desde la lectura del tramo no se toca.
+     *
+     * @return Filas afectadas
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE CredencialUsuario c SET c.bloqueado = false, c.intentosFallidos = 0, c.fechaBloqueo = NULL " +
+            "WHERE c.usuarioId IN :ids AND c.bloqueado = true AND c.fechaBloqueo < :limite")
+    int desbloquearExpirados(@Param("ids") List<Long> ids, @Param("limite") LocalDateTime limite);
+
+    // ========================================
+    // ESTADO DE ACCESO
+    // ========================================
+
+    /**
+     * Comprueba que el hash almacenado sigue siendo el indicado
+     * (detecta cambios de contraseña posteriores a una lectura cacheada).
+     */
+    boolean existsByUsuarioIdAndPasswordHash(Long usuarioId, String passwordHash);
+
+    /**
+     * Lee solo las columnas de estado de acceso.
+     */
+    @Query("SELECT new com.LoginWeb.marcos_Login_web.dto.EstadoAcceso(u.activo, c.intentosFallidos, c.bloqueado) " +
+            "FROM CredencialUsuario c JOIN c.usuario u WHERE c.usuarioId = :id")
+    Optional<EstadoAcceso> findEstadoAccesoById(@Param("id") Long id);
+
+    /**
+     * Lee el estado de acceso solo si el hash sigue siendo el indicado.
+     * Permite confirmar un login sin escribir (último login diferido).
+     */
+    @Query("SELECT new com.LoginWeb.marcos_Login_web.dto.EstadoAcceso(u.activo, c.intentosFallidos, c.bloqueado) " +
+            "FROM CredencialUsuario c JOIN c.usuario u WHERE c.usuarioId = :id AND c.passwordHash = :passwordHash")
+    Optional<EstadoAcceso> findEstadoAccesoByIdAndPasswordHash(@Param("id") Long id,
+                                                               @Param("passwordHash") String passwordHash);
+
+    /**
+     * Registra un intento fallido y devuelve el estado resultante.
+     * El UPDATE mantiene el bloqueo de fila hasta el commit, por lo que la
+     * lectura posterior ve exactamente el estado que dejó esta sentencia.
+     *
+     * @return Estado tras el intento, o vacío si el UPDATE no se aplicó
+     *         (usuario eliminado, desactivado, ya bloqueado o contraseña cambiada)
+     */
+    @Transactional
+    default Optional<EstadoAcceso> registrarIntentoFallido(Long id, String passwordHash, LocalDateTime ahora) {
+        if (incrementarIntentosFallidos(id, passwordHash, Usuario.MAX_INTENTOS_FALLIDOS, ahora) == 0) {
+            return Optional.empty();
+        }
+        return findEstadoAccesoById(id);
+    }
+
+    /**
+     * Registra un intento fallido sobre un bloqueo expirado (primer intento de una nueva serie).
+     *
+     * @return Estado tras el intento, o vacío si el UPDATE no se aplicó
+     *         (bloqueo vigente o ya levantado, usuario desactivado o contraseña cambiada)
+     */
+    default Optional<EstadoAcceso> registrarIntentoTrasBloqueo(Long id, String passwordHash, LocalDateTime limite) {
+        if (reiniciarIntentosTrasBloqueo(id, passwordHash, limite) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new EstadoAcceso(true, 1, false));
+    }
+
+    /**
+     * Registra un login correcto y devuelve el estado resultante, que tras un
+     * reset aplicado es siempre activo, sin intentos y sin bloqueo.
+     *
+     * @return Estado tras el login, o vacío si el UPDATE no se aplicó
+     *         (usuario eliminado, desactivado, bloqueado o contraseña cambiada)
+     */
+    default Optional<EstadoAcceso> registrarAccesoCorrecto(Long id, String passwordHash, LocalDateTime ahora) {
+        if (resetearIntentosFallidos(id, passwordHash, ahora) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new EstadoAcceso(true, 0, false));
+    }
+
+    /**
+     * Registra un login correcto sobre un bloqueo expirado.
+     *
+     * @return Estado tras el login, o vacío si el UPDATE no se aplicó
+     *         (bloqueo vigente o ya levantado, usuario desactivado o contraseña cambiada)
+     */
+    default Optional<EstadoAcceso> registrarAccesoTrasBloqueo(Long id, String passwordHash, LocalDateTime ahora,
+                                                             LocalDateTime limite) {
+        if (desbloquearAlAcceder(id, passwordHash, ahora, limite) == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new EstadoAcceso(true, 0, false));
+    }
+}
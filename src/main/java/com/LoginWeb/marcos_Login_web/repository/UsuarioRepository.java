@@ -1,11 +1,21 @@
 package com.LoginWeb.marcos_Login_web.repository;
 
+import com.LoginWeb.marcos_Login_web.dto.ConteoUsuarios;
+import com.LoginWeb.marcos_Login_web.dto.ResumenDominio;
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
 import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,10 +29,21 @@ import java.util.Optional;
  * - deleteById(id): Eliminar por ID
  * - count(): Contar registros
  * - existsById(id): Verificar existencia
+ *
+ * Solo lee el perfil: la contraseña y el estado de autenticación están en
+ * CredencialUsuarioRepository. Los Usuario que devuelve no llevan la
+ * credencial enlazada (sus accesores lanzan IllegalStateException); si se
+ * necesita, cargarlos con CredencialUsuarioRepository.findUsuarioConCredencial*.
  */
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
+    /**
+     * Expresión constructora de la proyección UsuarioResumen.
+     */
+    String RESUMEN = "new com.LoginWeb.marcos_Login_web.dto.UsuarioResumen(" +
+            "u.id, u.username, u.email, u.activo, u.fechaCreacion)";
+
     // ========================================
     // QUERY METHODS - Derivados del nombre
     // ========================================
@@ -73,6 +94,18 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     // QUERIES PERSONALIZADAS CON @Query
     // ========================================
 
+    /**
+     * Devuelve cuáles de los usernames indicados ya existen (una consulta por lote).
+     */
+    @Query("SELECT u.username FROM Usuario u WHERE u.username IN :usernames")
+    List<String> findUsernamesExistentes(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Devuelve cuáles de los emails indicados ya existen (una consulta por lote).
+     */
+    @Query("SELECT u.email FROM Usuario u WHERE u.email IN :emails")
+    List<String> findEmailsExistentes(@Param("emails") Collection<String> emails);
+
     /**
      * Busca usuarios activos ordenados por fecha de creación.
      * Usa JPQL (Java Persistence Query Language).
@@ -81,22 +114,149 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     List<Usuario> findUsuariosActivosOrdenados();
 
     /**
-     * Busca usuarios por dominio de email.
-     * Usa JPQL con parámetro nombrado.
+     * Busca usuarios por dominio de email (normalizado, ver Usuario.dominioDe).
+     * Búsqueda por igualdad sobre idx_dominio_email_activo: "example.com" no
+     * incluye subdominios como "mail.example.com" (el antiguo LIKE '%dominio'
+     * sobre el email sí los incluía, y también "otroexample.com").
+     */
+    List<Usuario> findByDominioEmail(String dominioEmail);
+
+    /**
+     * Usuarios y activos de un dominio. Se resuelve solo con el índice
+     * (dominio_email, activo), sin leer filas de la tabla.
+     */
+    @Query("SELECT new com.LoginWeb.marcos_Login_web.dto.ResumenDominio(u.dominioEmail, COUNT(u), " +
+            "COALESCE(SUM(CASE WHEN u.activo = true THEN 1 ELSE 0 END), 0)) " +
+            "FROM Usuario u WHERE u.dominioEmail = :dominio GROUP BY u.dominioEmail")
+    Optional<ResumenDominio> findResumenDominio(@Param("dominio") String dominio);
+
+    /**
+     * Usuarios y activos por dominio, de más a menos usuarios. Recorre el
+     * índice (dominio_email, activo) en orden, agrupando sin tabla temporal
+     * ni lectura de filas.
      */
-    @Query("SELECT u FROM Usuario u WHERE u.email LIKE %:dominio")
-    List<Usuario> findByDominioEmail(@Param("dominio") String dominio);
+    @Query("SELECT new com.LoginWeb.marcos_Login_web.dto.ResumenDominio(u.dominioEmail, COUNT(u), " +
+            "COALESCE(SUM(CASE WHEN u.activo = true THEN 1 ELSE 0 END), 0)) " +
+            "FROM Usuario u GROUP BY u.dominioEmail ORDER BY COUNT(u) DESC, u.dominioEmail")
+    List<ResumenDominio> findResumenPorDominio(Limit limit);
 
     /**
-     * Cuenta usuarios activos.
+     * Cuenta usuarios activos. Recorre la tabla: para lecturas frecuentes
+     * usar EstadisticasUsuarios.
      */
     @Query("SELECT COUNT(u) FROM Usuario u WHERE u.activo = true")
     long countUsuariosActivos();
 
     /**
-     * Query nativa SQL (cuando JPQL no es suficiente).
+     * Usuarios totales, activos y bloqueados en un solo recorrido.
+     * Lo usa la reconciliación periódica de EstadisticasUsuarios.
+     */
+    @Query("SELECT new com.LoginWeb.marcos_Login_web.dto.ConteoUsuarios(COUNT(u), " +
+            "COALESCE(SUM(CASE WHEN u.activo = true THEN 1 ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN c.bloqueado = true THEN 1 ELSE 0 END), 0)) " +
+            "FROM Usuario u JOIN CredencialUsuario c ON c.usuarioId = u.id")
+    ConteoUsuarios contarPorEstado();
+
+    /**
+     * Usuarios creados desde el instante indicado. Rango sobre idx_fecha_creacion.
+     */
+    @Query("SELECT u FROM Usuario u WHERE u.fechaCreacion >= :desde")
+    List<Usuario> findCreadosDesde(@Param("desde") LocalDateTime desde);
+
+    /**
+     * Usuarios creados en los últimos días (hoy y los N días naturales anteriores).
+     * Equivale a DATEDIFF(NOW(), fecha_creacion) <= dias, pero como rango sobre
+     * la columna, sin aplicarle una función, para que pueda usar el índice.
+     */
+    default List<Usuario> findUsuariosRecientes(int dias) {
+        return findCreadosDesde(LocalDate.now().minusDays(dias).atStartOfDay());
+    }
+
+    // ========================================
+    // PROYECCIONES DE SOLO LECTURA (UsuarioResumen)
+    // ========================================
+
+    /**
+     * Variante ligera de findByActivoTrue para listados.
+     */
+    @Query("SELECT " + RESUMEN + " FROM Usuario u WHERE u.activo = true")
+    List<UsuarioResumen> findResumenActivos();
+
+    /**
+     * Variante ligera de findUsuariosActivosOrdenados para listados.
+     */
+    @Query("SELECT " + RESUMEN + " FROM Usuario u WHERE u.activo = true ORDER BY u.fechaCreacion DESC")
+    List<UsuarioResumen> findResumenActivosOrdenados();
+
+    /**
+     * Variante ligera de findByUsernameContainingIgnoreCase para búsquedas.
+     */
+    @Query("SELECT " + RESUMEN + " FROM Usuario u " +
+            "WHERE LOWER(u.username) LIKE LOWER(CONCAT('%', :texto, '%')) ORDER BY u.id")
+    List<UsuarioResumen> findResumenByUsernameContaining(@Param("texto") String texto, Limit limite);
+
+    /**
+     * Búsqueda por subcadena en username o email, para cuando el índice en
+     * memoria (IndiceTrigramas) aún no está listo. Recorre la tabla.
+     */
+    @Query("SELECT " + RESUMEN + " FROM Usuario u " +
+            "WHERE LOWER(u.username) LIKE CONCAT('%', :texto, '%') " +
+            "OR LOWER(u.email) LIKE CONCAT('%', :texto, '%')")
+    List<UsuarioResumen> findResumenByUsernameOrEmailContaining(@Param("texto") String texto);
+
+    /**
+     * Resúmenes de un conjunto de IDs (resultados de IndiceTrigramas), en una sola consulta.
+     */
+    @Query("SELECT " + RESUMEN + " FROM Usuario u WHERE u.id IN :ids")
+    List<UsuarioResumen> findResumenByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Variante ligera de findAll(Pageable) para listados paginados.
+     */
+    @Query(value = "SELECT " + RESUMEN + " FROM Usuario u",
+            countQuery = "SELECT COUNT(u) FROM Usuario u")
+    Page<UsuarioResumen> findResumenes(Pageable pageable);
+
+    /**
+     * Como findResumenes pero sin COUNT: el total lo aporta EstadisticasUsuarios.
+     */
+    @Query("SELECT " + RESUMEN + " FROM Usuario u")
+    Slice<UsuarioResumen> findResumenesSinTotal(Pageable pageable);
+
+    /**
+     * Como findAll(Pageable) pero sin COUNT: el total lo aporta EstadisticasUsuarios.
+     */
+    @Query("SELECT u FROM Usuario u")
+    Slice<Usuario> findPaginaSinTotal(Pageable pageable);
+
+    // ========================================
+    // PAGINACIÓN POR CURSOR (KEYSET)
+    // ========================================
+
+    /**
+     * Siguiente tramo de usuarios por orden de ID a partir del último devuelto.
+     * Busca directamente en la clave primaria: sin OFFSET ni COUNT(*).
+     * Para la primera página se pasa ultimoId = 0.
+     */
+    @Query("SELECT " + RESUMEN + " FROM Usuario u WHERE u.id > :ultimoId ORDER BY u.id ASC")
+    List<UsuarioResumen> findSiguientesPorId(@Param("ultimoId") Long ultimoId, Limit limit);
+
+    /**
+     * Primer tramo de usuarios activos, del más reciente al más antiguo.
+     * Mismo orden que findUsuariosActivosOrdenados, con desempate por ID.
+     */
+    @Query("SELECT " + RESUMEN + " FROM Usuario u WHERE u.activo = true ORDER BY u.fechaCreacion DESC, u.id DESC")
+    List<UsuarioResumen> findUsuariosActivosOrdenados(Limit limit);
+
+    /**
+     * Siguiente tramo de usuarios activos posteriores (en orden descendente)
+     * a la posición (fechaCreacion, id) de la última fila devuelta.
+     * Usa el índice idx_activo_fecha_creacion.
      */
-    @Query(value = "SELECT * FROM usuarios WHERE DATEDIFF(NOW(), fecha_creacion) <= :dias",
-            nativeQuery = true)
-    List<Usuario> findUsuariosRecientes(@Param("dias") int dias);
-}
\ No newline at end of file
+    @Query("SELECT " + RESUMEN + " FROM Usuario u WHERE u.activo = true AND " +
+            "(u.fechaCreacion < :fecha OR (u.fechaCreacion = :fecha AND u.id < :ultimoId)) " +
+            "ORDER BY u.fechaCreacion DESC, u.id DESC")
+    List<UsuarioResumen> findUsuariosActivosOrdenadosDespuesDe(@Param("fecha") LocalDateTime fecha,
+                                                        @Param("ultimoId") Long ultimoId,
+                                                        Limit limit);
+}
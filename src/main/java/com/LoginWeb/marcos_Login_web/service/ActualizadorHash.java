@@ -0,0 +1,93 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.cache.UsuarioCache;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.repository.CredencialUsuarioRepository;
+import com.LoginWeb.marcos_Login_web.util.PasswordHashingExecutor;
+import com.LoginWeb.marcos_Login_web.util.PasswordUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Regeneración en segundo plano de hashes con algoritmo, coste o formato
+ * desactualizados (rehash-on-login).
+ *
+ * Tras un login correcto la contraseña en claro está disponible: si el coste
+ * del hash almacenado queda fuera de la ventana aceptada de PasswordUtil (por
+ * arriba o por abajo) o su formato es antiguo, se genera uno nuevo con el
+ * coste objetivo en el ejecutor de hashing y se sustituye con un UPDATE
+ * condicional sobre el hash antiguo (si otro nodo lo cambió antes, no se
+ * pisa). Así el coste de la flota sube o baja gradualmente, según van
+ * entrando los usuarios.
+ *
+ * Nunca retrasa el login: solo se programa con la cola de hashing vacía y un
+ * rehash omitido o fallido se reintenta en el siguiente login del usuario.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ActualizadorHash {
+
+    private final PasswordUtil passwordUtil;
+    private final PasswordHashingExecutor hashingExecutor;
+    private final CredencialUsuarioRepository credencialRepository;
+    private final UsuarioCache usuarioCache;
+
+    // Usuarios con un rehash en vuelo: uno como máximo por usuario
+    private final Set<Long> enCurso = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder actualizados = new LongAdder();
+    private final LongAdder omitidos = new LongAdder();
+
+    /**
+     * Programa el rehash si el hash verificado del usuario está desactualizado.
+     *
+     * @param usuario Usuario recién autenticado, con el hash que se verificó
+     * @param rawPassword Contraseña en texto plano ya verificada
+     */
+    public void programarSiNecesario(Usuario usuario, String rawPassword) {
+        String hashActual = usuario.getPasswordHash();
+        if (!passwordUtil.necesitaRehash(hashActual)) {
+            return;
+        }
+        if (hashingExecutor.getProfundidadCola() > 0) {
+            omitidos.increment();
+            return;
+        }
+
+        Long id = usuario.getId();
+        String username = usuario.getUsername();
+        if (!enCurso.add(id)) {
+            return;
+        }
+
+        passwordUtil.hashPasswordAsync(rawPassword)
+                .thenAccept(nuevoHash -> {
+                    if (credencialRepository.reemplazarPasswordHash(id, hashActual, nuevoHash) == 1) {
+                        usuarioCache.invalidar(id, username);
+                        actualizados.increment();
+                        log.debug("Hash de {} regenerado con coste {}", username, passwordUtil.getCoste());
+                    }
+                })
+                .whenComplete((r, e) -> {
+                    enCurso.remove(id);
+                    if (e != null) {
+                        omitidos.increment();
+                        log.debug("Rehash de {} aplazado: {}", username, e.getMessage());
+                    }
+                });
+    }
+
+    public long getActualizados() {
+        return actualizados.sum();
+    }
+
+    public long getOmitidos() {
+        return omitidos.sum();
+    }
+}
@@ -0,0 +1,15 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+/**
+ * Se lanza cuando una operación choca con un cambio concurrente del mismo
+ * usuario (p. ej. la contraseña cambió entre la lectura y la escritura).
+ *
+ * Reintentar la operación puede funcionar; la API HTTP responde 409. El
+ * resto de IllegalStateException son errores internos (500).
+ */
+public class ConflictoException extends IllegalStateException {
+
+    public ConflictoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,207 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.dto.ConteoUsuarios;
+import com.LoginWeb.marcos_Login_web.repository.UsuarioRepository;
+import com.LoginWeb.marcos_Login_web.util.TransaccionUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contadores de usuarios por estado (total, activos, inactivos, bloqueados)
+ * mantenidos en memoria, para que paneles y cabeceras de paginación no
+ * ejecuten un COUNT(*) sobre usuarios en cada llamada.
+ *
+ * - UsuarioService (y la importación) notifican cada cambio de estado; el
+ *   delta se aplica tras el commit, así los contadores solo reflejan cambios
+ *   confirmados
+ * - Una reconciliación periódica cuenta la tabla real y corrige la
+ *   desviación (cambios hechos fuera de la aplicación u otros nodos,
+ *   operaciones concurrentes sobre el mismo usuario)
+ * - Hasta la primera reconciliación los contadores no son válidos: la
+ *   primera lectura la fuerza
+ *
+ * Los deltas que llegan mientras se cuenta la tabla se suman al resultado.
+ * Uno confirmado justo antes de que empiece la consulta puede contarse dos
+ * veces; la siguiente reconciliación lo corrige.
+ *
+ * Configuración:
+ * - estadisticas.reconciliacion-ms
+ */
+@Component
+@Slf4j
+public class EstadisticasUsuarios {
+
+    /** Contadores (o deltas acumulados durante una reconciliación). */
+    private static final class Contadores {
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong activos = new AtomicLong();
+        final AtomicLong bloqueados = new AtomicLong();
+
+        void sumar(long total, long activos, long bloqueados) {
+            this.total.addAndGet(total);
+            this.activos.addAndGet(activos);
+            this.bloqueados.addAndGet(bloqueados);
+        }
+
+        ConteoUsuarios leer() {
+            return new ConteoUsuarios(total.get(), activos.get(), bloqueados.get());
+        }
+    }
+
+    private final UsuarioRepository usuarioRepository;
+
+    private final Contadores contadores = new Contadores();
+    private volatile Contadores duranteReconciliacion;
+    private volatile boolean listo;
+    private final AtomicLong desviacionUltima = new AtomicLong();
+    private final ReentrantLock reconciliando = new ReentrantLock();
+
+    public EstadisticasUsuarios(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    // ========================================
+    // LECTURA (O(1))
+    // ========================================
+
+    public ConteoUsuarios getConteo() {
+        if (!listo) {
+            reconciliando.lock();
+            try {
+                // Otro hilo pudo completar la primera reconciliación mientras se esperaba
+                if (!listo) {
+                    reconciliar();
+                }
+            } finally {
+                reconciliando.unlock();
+            }
+        }
+        return contadores.leer();
+    }
+
+    public long getTotal() {
+        return getConteo().total();
+    }
+
+    public long getActivos() {
+        return getConteo().activos();
+    }
+
+    // ========================================
+    // CAMBIOS DE ESTADO (tras el commit)
+    // ========================================
+
+    /**
+     * Altas de usuarios activos y sin bloquear.
+     */
+    public void altasAlConfirmar(int cantidad) {
+        if (cantidad > 0) {
+            alConfirmar(cantidad, cantidad, 0);
+        }
+    }
+
+    public void bajaAlConfirmar(boolean activo, boolean bloqueado) {
+        bajasAlConfirmar(1, activo ? 1 : 0, bloqueado ? 1 : 0);
+    }
+
+    /**
+     * Bajas de usuarios, de los que estaban activos y bloqueados los indicados.
+     */
+    public void bajasAlConfirmar(long total, long activos, long bloqueados) {
+        alConfirmar(-total, -activos, -bloqueados);
+    }
+
+    public void activacionAlConfirmar() {
+        activacionesAlConfirmar(1);
+    }
+
+    public void activacionesAlConfirmar(long cantidad) {
+        alConfirmar(0, cantidad, 0);
+    }
+
+    public void desactivacionAlConfirmar() {
+        desactivacionesAlConfirmar(1);
+    }
+
+    public void desactivacionesAlConfirmar(long cantidad) {
+        alConfirmar(0, -cantidad, 0);
+    }
+
+    public void bloqueoAlConfirmar() {
+        alConfirmar(0, 0, 1);
+    }
+
+    public void desbloqueoAlConfirmar() {
+        desbloqueosAlConfirmar(1);
+    }
+
+    public void desbloqueosAlConfirmar(long cantidad) {
+        alConfirmar(0, 0, -cantidad);
+    }
+
+    private void alConfirmar(long total, long activos, long bloqueados) {
+        if (total == 0 && activos == 0 && bloqueados == 0) {
+            return;
+        }
+        TransaccionUtil.despuesDelCommit(() -> {
+            contadores.sumar(total, activos, bloqueados);
+            Contadores durante = duranteReconciliacion;
+            if (durante != null) {
+                durante.sumar(total, activos, bloqueados);
+            }
+        });
+    }
+
+    // ========================================
+    // RECONCILIACIÓN
+    // ========================================
+
+    /**
+     * Cuenta la tabla real y sustituye los contadores. Recorre la tabla:
+     * solo se ejecuta al arrancar y cada estadisticas.reconciliacion-ms.
+     */
+    @Scheduled(fixedDelayString = "${estadisticas.reconciliacion-ms:300000}")
+    public void reconciliar() {
+        // ReentrantLock y no synchronized: no fija el hilo virtual durante la consulta
+        reconciliando.lock();
+        Contadores durante = new Contadores();
+        duranteReconciliacion = durante;
+        try {
+            ConteoUsuarios real = usuarioRepository.contarPorEstado();
+            ConteoUsuarios delta = durante.leer();
+            ConteoUsuarios anterior = contadores.leer();
+
+            contadores.total.set(real.total() + delta.total());
+            contadores.activos.set(real.activos() + delta.activos());
+            contadores.bloqueados.set(real.bloqueados() + delta.bloqueados());
+
+            if (listo) {
+                long desviacion = Math.abs(anterior.total() - contadores.total.get())
+                        + Math.abs(anterior.activos() - contadores.activos.get())
+                        + Math.abs(anterior.bloqueados() - contadores.bloqueados.get());
+                desviacionUltima.set(desviacion);
+                if (desviacion > 0) {
+                    log.info("Estadísticas de usuarios reconciliadas: desviación de {}", desviacion);
+                }
+            }
+            listo = true;
+        } catch (DataAccessException e) {
+            log.error("No se pudieron reconciliar las estadísticas de usuarios: {}", e.getMessage());
+        } finally {
+            duranteReconciliacion = null;
+            reconciliando.unlock();
+        }
+    }
+
+    /**
+     * Suma de las diferencias corregidas en la última reconciliación.
+     */
+    public long getDesviacionUltima() {
+        return desviacionUltima.get();
+    }
+}
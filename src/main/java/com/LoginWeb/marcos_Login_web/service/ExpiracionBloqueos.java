@@ -0,0 +1,135 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.cache.UsuarioCache;
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.repository.CredencialUsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Expiración de los bloqueos por intentos fallidos.
+ *
+ * Un bloqueo expira bloqueo.duracion-minutos después de fecha_bloqueo
+ * (0 = no expira: solo se levanta a mano). Hay dos caminos, sin que
+ * ninguno tenga que esperar al otro:
+ * - Login: un bloqueo expirado se trata como levantado. No se escribe
+ *   nada antes de verificar la contraseña; la sentencia que registra el
+ *   resultado del login levanta también el bloqueo (UsuarioService).
+ * - Barrido: cada bloqueo.barrido.intervalo-ms levanta los bloqueos
+ *   expirados por tramos (rango sobre idx_bloqueado_fecha_bloqueo, un
+ *   UPDATE y un commit por tramo). Mantiene al día las estadísticas y las
+ *   consultas por bloqueado de quienes no vuelven a intentarlo.
+ *
+ * Ambos caminos usan UPDATE condicionales sobre bloqueado y fecha_bloqueo:
+ * si los dos llegan a la vez, solo uno aplica el desbloqueo.
+ */
+@Component
+@Slf4j
+public class ExpiracionBloqueos {
+
+    private final CredencialUsuarioRepository credencialRepository;
+    private final UsuarioCache usuarioCache;
+    private final EstadisticasUsuarios estadisticas;
+    private final Duration duracion;
+    private final int tamañoLote;
+
+    private final ReentrantLock barriendo = new ReentrantLock();
+    private final LongAdder desbloqueados = new LongAdder();
+
+    public ExpiracionBloqueos(CredencialUsuarioRepository credencialRepository,
+                              UsuarioCache usuarioCache,
+                              EstadisticasUsuarios estadisticas,
+                              @Value("${bloqueo.duracion-minutos:15}") long duracionMinutos,
+                              @Value("${bloqueo.barrido.tamano-lote:500}") int tamañoLote) {
+        this.credencialRepository = credencialRepository;
+        this.usuarioCache = usuarioCache;
+        this.estadisticas = estadisticas;
+        this.duracion = duracionMinutos > 0 ? Duration.ofMinutes(duracionMinutos) : null;
+        this.tamañoLote = tamañoLote;
+    }
+
+    public boolean isHabilitada() {
+        return duracion != null;
+    }
+
+    /**
+     * Instante antes del cual un bloqueo ha expirado.
+     * Con la expiración deshabilitada, ninguno: LocalDateTime.MIN.
+     */
+    public LocalDateTime limite(LocalDateTime ahora) {
+        return duracion != null ? ahora.minus(duracion) : LocalDateTime.MIN;
+    }
+
+    /**
+     * Indica si el usuario tiene un bloqueo que sigue en vigor.
+     * Un bloqueo sin fecha (anterior a fecha_bloqueo) no expira.
+     */
+    public boolean bloqueoVigente(Usuario usuario, LocalDateTime ahora) {
+        return usuario.isBloqueado() && !bloqueoExpirado(usuario, ahora);
+    }
+
+    /**
+     * Indica si el usuario está bloqueado pero su bloqueo ya expiró.
+     */
+    public boolean bloqueoExpirado(Usuario usuario, LocalDateTime ahora) {
+        return usuario.isBloqueado() && usuario.getFechaBloqueo() != null
+                && usuario.getFechaBloqueo().isBefore(limite(ahora));
+    }
+
+    /**
+     * Levanta los bloqueos expirados por tramos.
+     *
+     * @return Usuarios desbloqueados
+     */
+    @Scheduled(initialDelayString = "${bloqueo.barrido.intervalo-ms:60000}",
+            fixedDelayString = "${bloqueo.barrido.intervalo-ms:60000}")
+    public int barrer() {
+        if (duracion == null || !barriendo.tryLock()) {
+            return 0;
+        }
+        try {
+            LocalDateTime limite = limite(LocalDateTime.now());
+            int total = 0;
+            List<UsuarioResumen> tramo;
+            do {
+                tramo = credencialRepository.findResumenBloqueosExpirados(limite, Limit.of(tamañoLote));
+                if (tramo.isEmpty()) {
+                    break;
+                }
+                // Un UPDATE y un commit por tramo (transacción del repositorio)
+                int n = credencialRepository.desbloquearExpirados(
+                        tramo.stream().map(UsuarioResumen::id).toList(), limite);
+                tramo.forEach(u -> usuarioCache.invalidar(u.id(), u.username()));
+                estadisticas.desbloqueosAlConfirmar(n);
+                desbloqueados.add(n);
+                total += n;
+            } while (tramo.size() == tamañoLote);
+
+            if (total > 0) {
+                log.info("{} bloqueos expirados levantados", total);
+            }
+            return total;
+        } catch (DataAccessException e) {
+            // Se reintenta en el siguiente barrido
+            log.error("Error levantando bloqueos expirados", e);
+            return 0;
+        } finally {
+            barriendo.unlock();
+        }
+    }
+
+    public long getDesbloqueados() {
+        return desbloqueados.sum();
+    }
+}
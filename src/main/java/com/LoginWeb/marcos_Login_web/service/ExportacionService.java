@@ -0,0 +1,233 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.dto.EstadisticasExportacion;
+import com.LoginWeb.marcos_Login_web.dto.FormatoExportacion;
+import com.LoginWeb.marcos_Login_web.entity.CredencialUsuario;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.repository.CredencialUsuarioRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportación de la tabla de usuarios en memoria constante.
+ *
+ * Las filas se leen con un cursor de solo avance (ver CredencialUsuarioRepository.streamTodos)
+ * (cada credencial junto con su usuario) y se escriben directamente al canal
+ * de salida. Cada entidad se separa del
+ * contexto de persistencia en cuanto se escribe, por lo que la memoria usada
+ * no depende del número de usuarios.
+ *
+ * La contraseña (password_hash) nunca se exporta.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ExportacionService {
+
+    private static final int TAMAÑO_BUFFER = 64 * 1024;
+    private static final int FILAS_POR_TRAZA = 100_000;
+
+    private static final String CABECERA_CSV =
+            "id,username,email,activo,fecha_creacion,fecha_actualizacion,ultimo_login,intentos_fallidos,bloqueado\n";
+
+    private final CredencialUsuarioRepository credencialRepository;
+    private final UltimoLoginBuffer ultimoLoginBuffer;
+    private final EntityManager entityManager;
+
+    /**
+     * Exporta usuarios al canal indicado. El canal no se cierra: pertenece al llamante.
+     *
+     * @param canal Canal de salida (fichero, socket, respuesta HTTP...)
+     * @param formato CSV o NDJSON
+     * @param soloActivos true para exportar solo usuarios activos
+     * @return Estadísticas de filas, bytes y rendimiento
+     */
+    @Transactional(readOnly = true)
+    public EstadisticasExportacion exportar(WritableByteChannel canal, FormatoExportacion formato,
+                                            boolean soloActivos) throws IOException {
+        log.info("Exportando usuarios en formato {} (solo activos: {})", formato, soloActivos);
+        ultimoLoginBuffer.volcar(); // la exportación lee directamente de la BBDD
+
+        long inicio = System.nanoTime();
+        long filas = 0;
+        CanalContador contador = new CanalContador(canal);
+        Writer writer = new BufferedWriter(Channels.newWriter(contador, StandardCharsets.UTF_8), TAMAÑO_BUFFER);
+        StringBuilder linea = new StringBuilder(256);
+
+        if (formato == FormatoExportacion.CSV) {
+            writer.write(CABECERA_CSV);
+        }
+
+        try (Stream<CredencialUsuario> credenciales = soloActivos
+                ? credencialRepository.streamActivos() : credencialRepository.streamTodos()) {
+            Iterator<CredencialUsuario> it = credenciales.iterator();
+            while (it.hasNext()) {
+                CredencialUsuario credencial = it.next();
+                Usuario usuario = credencial.enlazarUsuario();
+
+                linea.setLength(0);
+                if (formato == FormatoExportacion.CSV) {
+                    escribirCsv(usuario, linea);
+                } else {
+                    escribirJson(usuario, linea);
+                }
+                writer.append(linea);
+
+                entityManager.detach(credencial);
+                entityManager.detach(usuario);
+
+                if (++filas % FILAS_POR_TRAZA == 0) {
+                    log.info("Exportados {} usuarios", filas);
+                }
+            }
+        }
+        writer.flush();
+
+        EstadisticasExportacion estadisticas = new EstadisticasExportacion(
+                filas, contador.getBytes(), Duration.ofNanos(System.nanoTime() - inicio));
+        log.info("Exportación completada: {} usuarios, {} bytes, {} usuarios/s",
+                filas, estadisticas.bytes(), Math.round(estadisticas.filasPorSegundo()));
+        return estadisticas;
+    }
+
+    // ========================================
+    // FORMATOS DE SALIDA
+    // ========================================
+
+    private void escribirCsv(Usuario u, StringBuilder sb) {
+        sb.append(u.getId()).append(',');
+        campoCsv(sb, u.getUsername()).append(',');
+        campoCsv(sb, u.getEmail()).append(',');
+        sb.append(u.getActivo()).append(',');
+        fecha(sb, u.getFechaCreacion(), "").append(',');
+        fecha(sb, u.getFechaActualizacion(), "").append(',');
+        fecha(sb, u.getUltimoLogin(), "").append(',');
+        sb.append(u.getIntentosFallidos()).append(',');
+        sb.append(u.isBloqueado()).append('\n');
+    }
+
+    private void escribirJson(Usuario u, StringBuilder sb) {
+        sb.append("{\"id\":").append(u.getId());
+        sb.append(",\"username\":");
+        cadenaJson(sb, u.getUsername());
+        sb.append(",\"email\":");
+        cadenaJson(sb, u.getEmail());
+        sb.append(",\"activo\":").append(u.getActivo());
+        sb.append(",\"fechaCreacion\":");
+        fechaJson(sb, u.getFechaCreacion());
+        sb.append(",\"fechaActualizacion\":");
+        fechaJson(sb, u.getFechaActualizacion());
+        sb.append(",\"ultimoLogin\":");
+        fechaJson(sb, u.getUltimoLogin());
+        sb.append(",\"intentosFallidos\":").append(u.getIntentosFallidos());
+        sb.append(",\"bloqueado\":").append(u.isBloqueado());
+        sb.append("}\n");
+    }
+
+    private StringBuilder campoCsv(StringBuilder sb, String valor) {
+        if (valor == null) {
+            return sb;
+        }
+        boolean comillas = valor.indexOf(',') >= 0 || valor.indexOf('"') >= 0
+                || valor.indexOf('\n') >= 0 || valor.indexOf('\r') >= 0;
+        if (!comillas) {
+            return sb.append(valor);
+        }
+        sb.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == '"') {
+                sb.append('"');
+            }
+            sb.append(c);
+        }
+        return sb.append('"');
+    }
+
+    private void cadenaJson(StringBuilder sb, String valor) {
+        if (valor == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private StringBuilder fecha(StringBuilder sb, LocalDateTime fecha, String siNula) {
+        return sb.append(fecha != null ? fecha.toString() : siNula);
+    }
+
+    private void fechaJson(StringBuilder sb, LocalDateTime fecha) {
+        if (fecha == null) {
+            sb.append("null");
+        } else {
+            sb.append('"').append(fecha).append('"');
+        }
+    }
+
+    /**
+     * Envoltorio que cuenta los bytes escritos en el canal de destino.
+     */
+    private static final class CanalContador implements WritableByteChannel {
+
+        private final WritableByteChannel destino;
+        private long bytes;
+
+        private CanalContador(WritableByteChannel destino) {
+            this.destino = destino;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int escritos = destino.write(src);
+            bytes += escritos;
+            return escritos;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return destino.isOpen();
+        }
+
+        @Override
+        public void close() {
+            // El canal de destino pertenece al llamante
+        }
+
+        long getBytes() {
+            return bytes;
+        }
+    }
+}
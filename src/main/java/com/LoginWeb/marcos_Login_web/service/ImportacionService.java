@@ -0,0 +1,470 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.busqueda.IndiceTrigramas;
+import com.LoginWeb.marcos_Login_web.cache.UsuarioCache;
+import com.LoginWeb.marcos_Login_web.dto.ErrorImportacion;
+import com.LoginWeb.marcos_Login_web.dto.RegistroImportacion;
+import com.LoginWeb.marcos_Login_web.dto.ResultadoImportacion;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.repository.UsuarioRepository;
+import com.LoginWeb.marcos_Login_web.util.HashingSaturadoException;
+import com.LoginWeb.marcos_Login_web.util.PasswordHashingExecutor;
+import com.LoginWeb.marcos_Login_web.util.PasswordUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de usuarios.
+ *
+ * Procesa los registros por lotes:
+ * 1. Validación de formato y duplicados dentro del lote
+ * 2. Comprobación de unicidad contra la BBDD con una consulta IN por lote
+ * 3. Hash BCrypt en paralelo en el ejecutor de hashing, con un máximo de
+ *    tareas en vuelo para no acaparar los hilos que usan los logins
+ * 4. INSERT con batch JDBC real en una transacción por lote (usuarios y
+ *    después sus credenciales)
+ *
+ * Los INSERT se hacen con JdbcTemplate y no con JPA: con GenerationType.IDENTITY
+ * Hibernate desactiva el batching porque necesita el ID de cada fila, y aquí no
+ * hace falta. Con rewriteBatchedStatements=true (URL de conexión) el driver de
+ * MySQL convierte cada lote en un INSERT multi-fila.
+ *
+ * Un registro erróneo no aborta la importación: se anota y se continúa.
+ */
+@Service
+@Slf4j
+public class ImportacionService {
+
+    private static final String SQL_INSERT = "INSERT INTO usuarios " +
+            "(username, email, dominio_email, activo, fecha_creacion, fecha_actualizacion) " +
+            "VALUES (?, ?, ?, true, ?, ?)";
+
+    // La credencial toma el ID generado buscando por username (índice único)
+    private static final String SQL_INSERT_CREDENCIAL = "INSERT INTO credenciales_usuario " +
+            "(usuario_id, password_hash, intentos_fallidos, bloqueado) " +
+            "SELECT id, ?, 0, false FROM usuarios WHERE username = ?";
+
+    private static final String CABECERA_CSV = "username,email,password";
+    private static final int MAX_ERRORES_DETALLADOS = 10_000;
+    private static final long PAUSA_SATURACION_MS = 50;
+
+    private final UsuarioRepository usuarioRepository;
+    private final PasswordUtil passwordUtil;
+    private final UsuarioCache usuarioCache;
+    private final IndiceTrigramas indiceTrigramas;
+    private final ResumenAltasDiarias resumenAltas;
+    private final EstadisticasUsuarios estadisticas;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int tamañoLote;
+    private final Semaphore hashesEnVuelo;
+
+    public ImportacionService(UsuarioRepository usuarioRepository,
+                              PasswordUtil passwordUtil,
+                              PasswordHashingExecutor hashingExecutor,
+                              UsuarioCache usuarioCache,
+                              IndiceTrigramas indiceTrigramas,
+                              ResumenAltasDiarias resumenAltas,
+                              EstadisticasUsuarios estadisticas,
+                              JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${importacion.tamano-lote:1000}") int tamañoLote,
+                              @Value("${importacion.hashes-en-vuelo:0}") int maxHashesEnVuelo) {
+        this.usuarioRepository = usuarioRepository;
+        this.passwordUtil = passwordUtil;
+        this.usuarioCache = usuarioCache;
+        this.indiceTrigramas = indiceTrigramas;
+        this.resumenAltas = resumenAltas;
+        this.estadisticas = estadisticas;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.tamañoLote = tamañoLote;
+        // Por defecto la importación usa como mucho la mitad de los hilos de hashing
+        this.hashesEnVuelo = new Semaphore(maxHashesEnVuelo > 0
+                ? maxHashesEnVuelo
+                : Math.max(1, hashingExecutor.getHilos() / 2));
+    }
+
+    /**
+     * Importa usuarios desde un fichero CSV con columnas username,email,password
+     * (la cabecera es opcional). El fichero se lee en streaming.
+     *
+     * Los campos pueden ir entre comillas dobles, con las comillas internas
+     * duplicadas y con comas o saltos de línea dentro (RFC 4180, el mismo
+     * escapado que usa ExportacionService).
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoImportacion importarCsv(Path fichero) throws IOException {
+        log.info("Importando usuarios desde {}", fichero);
+
+        try (BufferedReader reader = Files.newBufferedReader(fichero, StandardCharsets.UTF_8)) {
+            Iterator<String> lineas = reader.lines().iterator();
+            Iterable<RegistroImportacion> registros = () -> new Iterator<>() {
+                private long numero = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return lineas.hasNext();
+                }
+
+                @Override
+                public RegistroImportacion next() {
+                    // Un registro puede ocupar varias líneas si un campo entre comillas las contiene
+                    long inicio = ++numero;
+                    StringBuilder registro = new StringBuilder(lineas.next());
+                    while (comillasAbiertas(registro) && lineas.hasNext()) {
+                        registro.append('\n').append(lineas.next());
+                        numero++;
+                    }
+                    if (inicio == 1 && registro.toString().trim().equalsIgnoreCase(CABECERA_CSV)) {
+                        return null;
+                    }
+                    List<String> campos = camposCsv(registro);
+                    if (campos == null || campos.size() != 3) {
+                        return new RegistroImportacion(inicio, null, null, null);
+                    }
+                    return new RegistroImportacion(inicio, campos.get(0).trim(), campos.get(1).trim(), campos.get(2));
+                }
+            };
+            return importar(registros);
+        }
+    }
+
+    /**
+     * Importa usuarios desde cualquier origen iterable. Los registros se
+     * consumen por lotes, sin cargarlos todos en memoria.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoImportacion importar(Iterable<RegistroImportacion> registros) {
+        long inicio = System.nanoTime();
+        Progreso progreso = new Progreso();
+        List<RegistroImportacion> lote = new ArrayList<>(tamañoLote);
+
+        for (RegistroImportacion registro : registros) {
+            if (registro == null) {
+                continue;
+            }
+            lote.add(registro);
+            if (lote.size() == tamañoLote) {
+                procesarLote(lote, progreso);
+                lote.clear();
+            }
+        }
+        if (!lote.isEmpty()) {
+            procesarLote(lote, progreso);
+        }
+
+        ResultadoImportacion resultado = new ResultadoImportacion(progreso.leidos, progreso.importados,
+                progreso.rechazados, progreso.errores, Duration.ofNanos(System.nanoTime() - inicio));
+        log.info("Importación completada: {} leídos, {} importados, {} rechazados, {} usuarios/s",
+                resultado.leidos(), resultado.importados(), resultado.rechazados(),
+                Math.round(resultado.importadosPorSegundo()));
+        return resultado;
+    }
+
+    // ========================================
+    // PROCESAMIENTO DE UN LOTE
+    // ========================================
+
+    private void procesarLote(List<RegistroImportacion> lote, Progreso progreso) {
+        progreso.leidos += lote.size();
+
+        // 1. Validación y duplicados dentro del lote
+        List<RegistroImportacion> validos = new ArrayList<>(lote.size());
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (RegistroImportacion r : lote) {
+            String motivo = validar(r);
+            if (motivo == null && !usernames.add(normalizar(r.username()))) {
+                motivo = "Username repetido en la importación";
+            }
+            if (motivo == null && !emails.add(normalizar(r.email()))) {
+                motivo = "Email repetido en la importación";
+            }
+            if (motivo != null) {
+                progreso.rechazar(r, motivo);
+            } else {
+                validos.add(r);
+            }
+        }
+        if (validos.isEmpty()) {
+            return;
+        }
+
+        // 2. Unicidad contra la BBDD: una consulta por columna y lote
+        Set<String> usernamesExistentes = normalizar(usuarioRepository.findUsernamesExistentes(
+                validos.stream().map(RegistroImportacion::username).toList()));
+        Set<String> emailsExistentes = normalizar(usuarioRepository.findEmailsExistentes(
+                validos.stream().map(RegistroImportacion::email).toList()));
+        validos.removeIf(r -> {
+            if (usernamesExistentes.contains(normalizar(r.username()))) {
+                progreso.rechazar(r, "El username ya existe");
+                return true;
+            }
+            if (emailsExistentes.contains(normalizar(r.email()))) {
+                progreso.rechazar(r, "El email ya está registrado");
+                return true;
+            }
+            return false;
+        });
+        if (validos.isEmpty()) {
+            return;
+        }
+
+        // 3. Hash en paralelo
+        List<String> hashes = hashear(validos);
+
+        // 4. INSERT por lotes
+        LocalDateTime ahora = LocalDateTime.now();
+        List<RegistroImportacion> insertables = new ArrayList<>(validos.size());
+        List<Object[]> filas = new ArrayList<>(validos.size());
+        List<Object[]> credenciales = new ArrayList<>(validos.size());
+        for (int i = 0; i < validos.size(); i++) {
+            RegistroImportacion r = validos.get(i);
+            if (hashes.get(i) == null) {
+                progreso.rechazar(r, "No se pudo hashear la contraseña");
+                continue;
+            }
+            insertables.add(r);
+            filas.add(new Object[]{r.username(), r.email(), Usuario.dominioDe(r.email()), ahora, ahora});
+            credenciales.add(new Object[]{hashes.get(i), r.username()});
+        }
+        long importadosAntes = progreso.importados;
+        insertar(insertables, filas, credenciales, progreso);
+        int importados = Math.toIntExact(progreso.importados - importadosAntes);
+        resumenAltas.altasAlConfirmar(ahora.toLocalDate(), importados);
+        estadisticas.altasAlConfirmar(importados);
+
+        // Los usernames nuevos pueden tener entradas negativas en caché
+        insertables.forEach(r -> usuarioCache.invalidar(null, r.username()));
+        // Los INSERT JDBC no pasan por UsuarioService: se indexan por ID creciente
+        if (!insertables.isEmpty()) {
+            indiceTrigramas.sincronizarNuevos();
+        }
+    }
+
+    private String validar(RegistroImportacion r) {
+        if (r.username() == null || r.email() == null || r.password() == null) {
+            return "Línea mal formada: se esperaban username, email y password";
+        }
+        if (r.username().isBlank() || r.username().length() > 50) {
+            return "Username vacío o de más de 50 caracteres";
+        }
+        if (r.email().isBlank() || r.email().length() > 100 || r.email().indexOf('@') <= 0) {
+            return "Email no válido";
+        }
+        if (r.password().isEmpty()) {
+            return "Contraseña vacía";
+        }
+        return null;
+    }
+
+    /**
+     * Hashea las contraseñas del lote en el ejecutor de hashing, con como mucho
+     * N tareas en vuelo. Si el ejecutor está saturado por logins, la importación
+     * cede y reintenta: los logins tienen prioridad.
+     *
+     * @return Hashes en el mismo orden (null si una contraseña no se pudo hashear)
+     */
+    private List<String> hashear(List<RegistroImportacion> registros) {
+        List<CompletableFuture<String>> futuros = new ArrayList<>(registros.size());
+        for (RegistroImportacion r : registros) {
+            futuros.add(lanzarHash(r.password()));
+        }
+
+        List<String> hashes = new ArrayList<>(registros.size());
+        for (int i = 0; i < futuros.size(); i++) {
+            String hash = null;
+            while (hash == null) {
+                try {
+                    hash = PasswordHashingExecutor.esperar(futuros.get(i));
+                } catch (HashingSaturadoException e) {
+                    pausa();
+                    futuros.set(i, lanzarHash(registros.get(i).password()));
+                } catch (RuntimeException e) {
+                    log.warn("Error hasheando la contraseña de {}: {}", registros.get(i).username(), e.getMessage());
+                    break;
+                }
+            }
+            hashes.add(hash);
+        }
+        return hashes;
+    }
+
+    private CompletableFuture<String> lanzarHash(String password) {
+        while (true) {
+            hashesEnVuelo.acquireUninterruptibly();
+            CompletableFuture<String> futuro = passwordUtil.hashPasswordAsync(password);
+            futuro.whenComplete((hash, error) -> hashesEnVuelo.release());
+
+            // Cola llena: se rechaza al instante, se cede y se reintenta
+            if (futuro.isCompletedExceptionally() && futuro.exceptionNow() instanceof HashingSaturadoException) {
+                pausa();
+                continue;
+            }
+            return futuro;
+        }
+    }
+
+    private void pausa() {
+        try {
+            Thread.sleep(PAUSA_SATURACION_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Importación interrumpida", e);
+        }
+    }
+
+    /**
+     * Inserta el lote con batch JDBC en una transacción: primero los usuarios y
+     * después sus credenciales. Si falla (p. ej. un usuario creado
+     * concurrentemente viola la unicidad), se reintenta fila a fila, cada
+     * usuario con su credencial, para aislar los registros erróneos.
+     */
+    private void insertar(List<RegistroImportacion> registros, List<Object[]> filas,
+                          List<Object[]> credenciales, Progreso progreso) {
+        if (filas.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(SQL_INSERT, filas);
+                jdbcTemplate.batchUpdate(SQL_INSERT_CREDENCIAL, credenciales);
+            });
+            progreso.importados += filas.size();
+            return;
+        } catch (DataAccessException e) {
+            log.warn("Lote de {} usuarios rechazado ({}), reintentando fila a fila",
+                    filas.size(), e.getMostSpecificCause().getMessage());
+        }
+
+        for (int i = 0; i < filas.size(); i++) {
+            Object[] fila = filas.get(i);
+            Object[] credencial = credenciales.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.update(SQL_INSERT, fila);
+                    jdbcTemplate.update(SQL_INSERT_CREDENCIAL, credencial);
+                });
+                progreso.importados++;
+            } catch (DuplicateKeyException e) {
+                progreso.rechazar(registros.get(i), "Username o email ya registrado");
+            } catch (DataAccessException e) {
+                progreso.rechazar(registros.get(i), e.getMostSpecificCause().getMessage());
+            }
+        }
+    }
+
+    /**
+     * Indica si el texto termina dentro de un campo entre comillas (número
+     * impar de comillas): el registro continúa en la línea siguiente.
+     */
+    private static boolean comillasAbiertas(CharSequence texto) {
+        boolean abiertas = false;
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '"') {
+                abiertas = !abiertas;
+            }
+        }
+        return abiertas;
+    }
+
+    /**
+     * Separa un registro CSV en campos. Un campo entre comillas puede contener
+     * comas, saltos de línea y comillas duplicadas ("").
+     *
+     * @return Campos del registro, o null si las comillas están mal formadas
+     */
+    static List<String> camposCsv(CharSequence registro) {
+        List<String> campos = new ArrayList<>(3);
+        StringBuilder campo = new StringBuilder();
+        int i = 0;
+        int n = registro.length();
+        while (true) {
+            campo.setLength(0);
+            if (i < n && registro.charAt(i) == '"') {
+                // Campo entre comillas: hasta la comilla de cierre no duplicada
+                i++;
+                while (true) {
+                    if (i >= n) {
+                        return null;
+                    }
+                    char c = registro.charAt(i++);
+                    if (c != '"') {
+                        campo.append(c);
+                    } else if (i < n && registro.charAt(i) == '"') {
+                        campo.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < n && registro.charAt(i) != ',') {
+                    return null;
+                }
+            } else {
+                while (i < n && registro.charAt(i) != ',') {
+                    char c = registro.charAt(i++);
+                    if (c == '"') {
+                        return null;
+                    }
+                    campo.append(c);
+                }
+            }
+            campos.add(campo.toString());
+            if (i >= n) {
+                return campos;
+            }
+            i++; // la coma
+        }
+    }
+
+    private static String normalizar(String valor) {
+        return valor.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> normalizar(List<String> valores) {
+        return valores.stream().map(ImportacionService::normalizar).collect(Collectors.toSet());
+    }
+
+    /**
+     * Contadores y errores acumulados de una importación.
+     */
+    private static final class Progreso {
+        private long leidos;
+        private long importados;
+        private long rechazados;
+        private final List<ErrorImportacion> errores = new ArrayList<>();
+
+        void rechazar(RegistroImportacion registro, String motivo) {
+            rechazados++;
+            if (errores.size() < MAX_ERRORES_DETALLADOS) {
+                errores.add(new ErrorImportacion(registro.linea(), registro.username(), motivo));
+            }
+        }
+    }
+}
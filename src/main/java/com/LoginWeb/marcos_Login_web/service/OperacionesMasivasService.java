@@ -0,0 +1,272 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.busqueda.IndiceTrigramas;
+import com.LoginWeb.marcos_Login_web.cache.UsuarioCache;
+import com.LoginWeb.marcos_Login_web.cache.VerificacionesCache;
+import com.LoginWeb.marcos_Login_web.dto.CriteriosMasivos;
+import com.LoginWeb.marcos_Login_web.dto.OperacionMasiva;
+import com.LoginWeb.marcos_Login_web.dto.ResultadoOperacionMasiva;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Operaciones masivas sobre usuarios seleccionados por criterios
+ * (desactivar, activar, desbloquear, eliminar).
+ *
+ * En lugar de findById + save/delete por usuario (tres viajes a la BBDD por
+ * usuario y entidades acumuladas en el contexto de persistencia), procesa
+ * por lotes de IDs:
+ * 1. Selecciona el siguiente lote de IDs que cumplen los criterios y están
+ *    en el estado de origen (keyset por ID, o por tramos de la lista de IDs)
+ * 2. Aplica un único UPDATE/DELETE al lote, repitiendo los criterios y el
+ *    estado de origen en el WHERE (un usuario que cambió entretanto no se toca)
+ * 3. Confirma el lote en su propia transacción: los bloqueos de fila duran
+ *    un lote, no toda la operación
+ *
+ * Tras cada lote se notifica el progreso y se actualizan caché, índice de
+ * búsqueda, estadísticas y resumen diario. La caché se invalida solo para
+ * los usuarios del lote (por ID y username, leídos en el paso 1), no entera:
+ * una operación de muchos lotes no deja la caché vacía para todos los demás.
+ *
+ * Los UPDATE y DELETE se hacen con SQL y no con JPA: no cargan entidades.
+ * Los criterios pueden mezclar columnas del perfil (usuarios u) y de la
+ * credencial (credenciales_usuario c), por lo que todas las sentencias usan
+ * ambas tablas unidas; el DELETE del usuario borra su credencial en cascada.
+ */
+@Service
+@Slf4j
+public class OperacionesMasivasService {
+
+    private static final String TABLAS = "usuarios u JOIN credenciales_usuario c ON c.usuario_id = u.id";
+
+    /** Usuario candidato de un lote: lo necesario para invalidar sus entradas de caché. */
+    private record Candidato(long id, String username) {
+    }
+
+    private static final RowMapper<Candidato> FILA_CANDIDATO =
+            (rs, fila) -> new Candidato(rs.getLong("id"), rs.getString("username"));
+
+    private final NamedParameterJdbcTemplate jdbc;
+    private final TransactionTemplate transactionTemplate;
+    private final UsuarioCache usuarioCache;
+    private final VerificacionesCache verificaciones;
+    private final IndiceTrigramas indiceTrigramas;
+    private final EstadisticasUsuarios estadisticas;
+    private final ResumenAltasDiarias resumenAltas;
+    private final UltimoLoginBuffer ultimoLoginBuffer;
+    private final int tamañoLote;
+
+    public OperacionesMasivasService(NamedParameterJdbcTemplate jdbc,
+                                     TransactionTemplate transactionTemplate,
+                                     UsuarioCache usuarioCache,
+                                     VerificacionesCache verificaciones,
+                                     IndiceTrigramas indiceTrigramas,
+                                     EstadisticasUsuarios estadisticas,
+                                     ResumenAltasDiarias resumenAltas,
+                                     UltimoLoginBuffer ultimoLoginBuffer,
+                                     @Value("${operaciones-masivas.tamano-lote:1000}") int tamañoLote) {
+        this.jdbc = jdbc;
+        this.transactionTemplate = transactionTemplate;
+        this.usuarioCache = usuarioCache;
+        this.verificaciones = verificaciones;
+        this.indiceTrigramas = indiceTrigramas;
+        this.estadisticas = estadisticas;
+        this.resumenAltas = resumenAltas;
+        this.ultimoLoginBuffer = ultimoLoginBuffer;
+        this.tamañoLote = tamañoLote;
+    }
+
+    /**
+     * Ejecuta la operación sobre los usuarios que cumplen los criterios.
+     *
+     * @param progreso Se llama tras confirmar cada lote con los totales acumulados
+     * @return Totales finales
+     * @throws IllegalArgumentException si no se indica ningún criterio
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoOperacionMasiva ejecutar(OperacionMasiva operacion, CriteriosMasivos criterios,
+                                             Consumer<ResultadoOperacionMasiva> progreso) {
+        if (criterios == null || criterios.vacios()) {
+            throw new IllegalArgumentException("Indica al menos un criterio para la operación masiva");
+        }
+        if (criterios.sinAccesoDesde() != null) {
+            // El criterio de inactividad debe ver los últimos logins aún sin escribir
+            ultimoLoginBuffer.volcar();
+        }
+
+        long inicio = System.nanoTime();
+        String condicion = condicion(operacion, criterios);
+        MapSqlParameterSource parametros = parametros(criterios);
+        List<Long> ids = criterios.ids() == null ? null
+                : criterios.ids().stream().distinct().sorted().toList();
+
+        log.info("Operación masiva {} iniciada ({})", operacion, criterios);
+        long candidatos = 0;
+        long afectados = 0;
+        int lotes = 0;
+        long ultimoId = 0;
+        int posicion = 0;
+        ResultadoOperacionMasiva resultado = new ResultadoOperacionMasiva(operacion, 0, 0, 0, Duration.ZERO);
+
+        while (true) {
+            // 1. Siguiente lote de candidatos
+            List<Candidato> lote;
+            if (ids != null) {
+                if (posicion >= ids.size()) {
+                    break;
+                }
+                List<Long> tramo = ids.subList(posicion, Math.min(posicion + tamañoLote, ids.size()));
+                posicion += tramo.size();
+                lote = jdbc.query("SELECT u.id, u.username FROM " + TABLAS + " WHERE u.id IN (:tramo)" + condicion
+                                + " ORDER BY u.id",
+                        parametros.addValue("tramo", tramo), FILA_CANDIDATO);
+            } else {
+                lote = jdbc.query("SELECT u.id, u.username FROM " + TABLAS + " WHERE u.id > :ultimoId" + condicion
+                                + " ORDER BY u.id LIMIT :tamanoLote",
+                        parametros.addValue("ultimoId", ultimoId).addValue("tamanoLote", tamañoLote), FILA_CANDIDATO);
+                if (lote.isEmpty()) {
+                    break;
+                }
+                ultimoId = lote.getLast().id();
+            }
+            if (lote.isEmpty()) {
+                continue;
+            }
+
+            // 2 y 3. Una sentencia y un commit por lote; la caché se invalida
+            // ya y otra vez tras el commit, como en UsuarioService
+            parametros.addValue("lote", lote.stream().map(Candidato::id).toList())
+                    .addValue("ahora", LocalDateTime.now());
+            Integer aplicados = transactionTemplate.execute(status -> {
+                int n = aplicar(operacion, condicion, parametros);
+                invalidarCaches(operacion, lote);
+                return n;
+            });
+
+            candidatos += lote.size();
+            afectados += aplicados == null ? 0 : aplicados;
+            lotes++;
+            resultado = new ResultadoOperacionMasiva(operacion, candidatos, afectados, lotes,
+                    Duration.ofNanos(System.nanoTime() - inicio));
+            progreso.accept(resultado);
+        }
+
+        resultado = new ResultadoOperacionMasiva(operacion, candidatos, afectados, lotes,
+                Duration.ofNanos(System.nanoTime() - inicio));
+        log.info("Operación masiva {} terminada: {} afectados en {} lotes ({} ms)",
+                operacion, afectados, lotes, resultado.duracion().toMillis());
+        return resultado;
+    }
+
+    private void invalidarCaches(OperacionMasiva operacion, List<Candidato> lote) {
+        boolean verificacionesAfectadas = operacion == OperacionMasiva.DESACTIVAR || operacion == OperacionMasiva.ELIMINAR;
+        for (Candidato candidato : lote) {
+            usuarioCache.invalidar(candidato.id(), candidato.username());
+            if (verificacionesAfectadas) {
+                verificaciones.invalidar(candidato.username());
+            }
+        }
+    }
+
+    // Dentro de la transacción del lote: los deltas se aplican tras su commit
+    private int aplicar(OperacionMasiva operacion, String condicion, MapSqlParameterSource parametros) {
+        return switch (operacion) {
+            case DESACTIVAR -> {
+                int n = jdbc.update("UPDATE " + TABLAS + " SET u.activo = false, u.fecha_actualizacion = :ahora " +
+                        "WHERE u.id IN (:lote)" + condicion, parametros);
+                estadisticas.desactivacionesAlConfirmar(n);
+                resumenAltas.desactivacionesAlConfirmar(n);
+                yield n;
+            }
+            case ACTIVAR -> {
+                int n = jdbc.update("UPDATE " + TABLAS + " SET u.activo = true, u.fecha_actualizacion = :ahora " +
+                        "WHERE u.id IN (:lote)" + condicion, parametros);
+                estadisticas.activacionesAlConfirmar(n);
+                resumenAltas.reactivacionesAlConfirmar(n);
+                yield n;
+            }
+            case DESBLOQUEAR -> {
+                // Solo escribe la credencial: el perfil no cambia
+                int n = jdbc.update("UPDATE " + TABLAS + " SET c.bloqueado = false, c.intentos_fallidos = 0, " +
+                        "c.fecha_bloqueo = NULL WHERE u.id IN (:lote)" + condicion, parametros);
+                estadisticas.desbloqueosAlConfirmar(n);
+                yield n;
+            }
+            case ELIMINAR -> eliminar(condicion, parametros);
+        };
+    }
+
+    private int eliminar(String condicion, MapSqlParameterSource parametros) {
+        // Se bloquean las filas y se lee su estado para las estadísticas y el índice
+        List<Long> ids = new ArrayList<>();
+        long[] activosYBloqueados = new long[2];
+        jdbc.query("SELECT u.id, u.activo, c.bloqueado FROM " + TABLAS + " WHERE u.id IN (:lote)" + condicion
+                        + " FOR UPDATE",
+                parametros, rs -> {
+                    ids.add(rs.getLong("id"));
+                    activosYBloqueados[0] += rs.getBoolean("activo") ? 1 : 0;
+                    activosYBloqueados[1] += rs.getBoolean("bloqueado") ? 1 : 0;
+                });
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // La credencial se borra en cascada (FK ON DELETE CASCADE)
+        int n = jdbc.update("DELETE FROM usuarios WHERE id IN (:bloqueadas)",
+                new MapSqlParameterSource("bloqueadas", ids));
+        estadisticas.bajasAlConfirmar(n, activosYBloqueados[0], activosYBloqueados[1]);
+        ids.forEach(indiceTrigramas::eliminarAlConfirmar);
+        return n;
+    }
+
+    /**
+     * Criterios y estado de origen como " AND ..." (los IDs se aplican aparte, por tramos).
+     */
+    private static String condicion(OperacionMasiva operacion, CriteriosMasivos criterios) {
+        StringBuilder sql = new StringBuilder();
+        switch (operacion) {
+            case DESACTIVAR -> sql.append(" AND u.activo = true");
+            case ACTIVAR -> sql.append(" AND u.activo = false");
+            case DESBLOQUEAR -> sql.append(" AND c.bloqueado = true");
+            case ELIMINAR -> { }
+        }
+        if (criterios.dominioEmail() != null) {
+            sql.append(" AND u.dominio_email = :dominio");
+        }
+        if (criterios.bloqueado() != null) {
+            sql.append(" AND c.bloqueado = :bloqueado");
+        }
+        if (criterios.sinAccesoDesde() != null) {
+            sql.append(" AND (c.ultimo_login < :sinAccesoDesde OR (c.ultimo_login IS NULL AND u.fecha_creacion < :sinAccesoDesde))");
+        }
+        return sql.toString();
+    }
+
+    private static MapSqlParameterSource parametros(CriteriosMasivos criterios) {
+        MapSqlParameterSource parametros = new MapSqlParameterSource();
+        if (criterios.dominioEmail() != null) {
+            parametros.addValue("dominio", Usuario.dominioDe(criterios.dominioEmail()));
+        }
+        if (criterios.bloqueado() != null) {
+            parametros.addValue("bloqueado", criterios.bloqueado());
+        }
+        if (criterios.sinAccesoDesde() != null) {
+            parametros.addValue("sinAccesoDesde", criterios.sinAccesoDesde());
+        }
+        return parametros;
+    }
+}
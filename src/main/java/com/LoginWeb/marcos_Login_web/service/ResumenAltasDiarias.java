@@ -0,0 +1,210 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.entity.AltasDiarias;
+import com.LoginWeb.marcos_Login_web.repository.AltasDiariasRepository;
+import com.LoginWeb.marcos_Login_web.util.TransaccionUtil;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Mantenimiento incremental del resumen diario de altas (resumen_altas_diarias).
+ *
+ * Cada alta, desactivación o reactivación confirmada suma 1 al contador del
+ * día en memoria; los deltas acumulados se vuelcan cada cierto intervalo con
+ * un UPSERT en batch (una fila por día con cambios). Así la fila del día no
+ * se convierte en un punto de bloqueo compartido por todas las altas, que
+ * solo pagan un incremento en memoria.
+ *
+ * Las lecturas (ultimosDias) suman lo pendiente de volcar, así que son
+ * coherentes con lo ya confirmado. Al parar la aplicación se vuelca lo
+ * pendiente; una parada abrupta puede perder como mucho un intervalo de
+ * deltas (las altas se pueden recalcular desde usuarios.fecha_creacion,
+ * ver la migración V3).
+ *
+ * Configuración:
+ * - resumen.altas.intervalo-ms
+ */
+@Component
+@Slf4j
+public class ResumenAltasDiarias {
+
+    private static final String SQL_UPSERT = "INSERT INTO resumen_altas_diarias " +
+            "(dia, altas, desactivaciones, reactivaciones) VALUES (?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE altas = altas + VALUES(altas), " +
+            "desactivaciones = desactivaciones + VALUES(desactivaciones), " +
+            "reactivaciones = reactivaciones + VALUES(reactivaciones)";
+
+    /** Deltas de un día aún sin volcar. */
+    private static final class Deltas {
+        final AtomicLong altas = new AtomicLong();
+        final AtomicLong desactivaciones = new AtomicLong();
+        final AtomicLong reactivaciones = new AtomicLong();
+
+        boolean vacios() {
+            return altas.get() == 0 && desactivaciones.get() == 0 && reactivaciones.get() == 0;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AltasDiariasRepository altasDiariasRepository;
+
+    private final Map<LocalDate, Deltas> pendientes = new ConcurrentHashMap<>();
+    private final ReentrantLock volcando = new ReentrantLock();
+
+    public ResumenAltasDiarias(JdbcTemplate jdbcTemplate, AltasDiariasRepository altasDiariasRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.altasDiariasRepository = altasDiariasRepository;
+    }
+
+    // ========================================
+    // REGISTRO (tras el commit)
+    // ========================================
+
+    /**
+     * Anota altas del día indicado cuando confirme la transacción actual.
+     */
+    public void altasAlConfirmar(LocalDate dia, int cantidad) {
+        if (cantidad > 0) {
+            TransaccionUtil.despuesDelCommit(() -> deltas(dia).altas.addAndGet(cantidad));
+        }
+    }
+
+    /**
+     * Anota una desactivación de hoy cuando confirme la transacción actual.
+     */
+    public void desactivacionAlConfirmar() {
+        desactivacionesAlConfirmar(1);
+    }
+
+    public void desactivacionesAlConfirmar(long cantidad) {
+        if (cantidad > 0) {
+            TransaccionUtil.despuesDelCommit(() -> deltas(LocalDate.now()).desactivaciones.addAndGet(cantidad));
+        }
+    }
+
+    /**
+     * Anota una reactivación de hoy cuando confirme la transacción actual.
+     */
+    public void reactivacionAlConfirmar() {
+        reactivacionesAlConfirmar(1);
+    }
+
+    public void reactivacionesAlConfirmar(long cantidad) {
+        if (cantidad > 0) {
+            TransaccionUtil.despuesDelCommit(() -> deltas(LocalDate.now()).reactivaciones.addAndGet(cantidad));
+        }
+    }
+
+    private Deltas deltas(LocalDate dia) {
+        return pendientes.computeIfAbsent(dia, d -> new Deltas());
+    }
+
+    // ========================================
+    // LECTURA
+    // ========================================
+
+    /**
+     * Resumen de los últimos días (hoy incluido), uno por día y en orden,
+     * con cero en los días sin movimientos. Lee como mucho una fila por día.
+     */
+    public List<AltasDiarias> ultimosDias(int dias) {
+        LocalDate desde = LocalDate.now().minusDays(Math.max(dias, 1) - 1L);
+
+        Map<LocalDate, AltasDiarias> porDia = new TreeMap<>();
+        for (LocalDate d = desde; !d.isAfter(LocalDate.now()); d = d.plusDays(1)) {
+            porDia.put(d, new AltasDiarias(d, 0, 0, 0));
+        }
+        // Sin volcado en curso: un delta está o en la BBDD o en pendientes, no en ambos
+        volcando.lock();
+        try {
+            for (AltasDiarias fila : altasDiariasRepository.findByDiaGreaterThanEqualOrderByDiaAsc(desde)) {
+                // Copia: no modificar entidades gestionadas si hay transacción
+                porDia.put(fila.getDia(), new AltasDiarias(fila.getDia(), fila.getAltas(),
+                        fila.getDesactivaciones(), fila.getReactivaciones()));
+            }
+            // Lo confirmado pero aún sin volcar
+            pendientes.forEach((dia, d) -> {
+                AltasDiarias fila = porDia.get(dia);
+                if (fila != null) {
+                    fila.setAltas(fila.getAltas() + d.altas.get());
+                    fila.setDesactivaciones(fila.getDesactivaciones() + d.desactivaciones.get());
+                    fila.setReactivaciones(fila.getReactivaciones() + d.reactivaciones.get());
+                }
+            });
+        } finally {
+            volcando.unlock();
+        }
+        return new ArrayList<>(porDia.values());
+    }
+
+    // ========================================
+    // VOLCADO
+    // ========================================
+
+    /**
+     * Vuelca los deltas acumulados con un UPSERT en batch. Los deltas se
+     * retiran antes de escribir; si la escritura falla se devuelven para el
+     * siguiente volcado.
+     */
+    @Scheduled(fixedDelayString = "${resumen.altas.intervalo-ms:5000}")
+    public void volcar() {
+        if (pendientes.isEmpty()) {
+            return;
+        }
+
+        volcando.lock();
+        try {
+            List<Object[]> filas = new ArrayList<>();
+            pendientes.forEach((dia, d) -> {
+                long altas = d.altas.getAndSet(0);
+                long desactivaciones = d.desactivaciones.getAndSet(0);
+                long reactivaciones = d.reactivaciones.getAndSet(0);
+                if (altas != 0 || desactivaciones != 0 || reactivaciones != 0) {
+                    filas.add(new Object[]{dia, altas, desactivaciones, reactivaciones});
+                }
+            });
+            // Días ya pasados y sin deltas: no se esperan más
+            pendientes.entrySet().removeIf(e -> e.getKey().isBefore(LocalDate.now()) && e.getValue().vacios());
+
+            if (filas.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.batchUpdate(SQL_UPSERT, filas);
+                log.debug("Resumen de altas volcado: {} días", filas.size());
+            } catch (DataAccessException e) {
+                log.error("Error volcando el resumen de altas ({} días): {}", filas.size(), e.getMessage());
+                for (Object[] fila : filas) {
+                    Deltas d = deltas((LocalDate) fila[0]);
+                    d.altas.addAndGet((long) fila[1]);
+                    d.desactivaciones.addAndGet((long) fila[2]);
+                    d.reactivaciones.addAndGet((long) fila[3]);
+                }
+            }
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    public int getDiasPendientes() {
+        return pendientes.size();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        volcar();
+    }
+}
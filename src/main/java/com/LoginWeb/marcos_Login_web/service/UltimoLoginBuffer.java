@@ -0,0 +1,194 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Escritura diferida (write-behind) del último login. Opcional, desactivada por defecto.
+ *
+ * En lugar de un UPDATE por login, guarda el instante más reciente por usuario
+ * y lo vuelca con UPDATE en batch cada cierto intervalo o al alcanzar un
+ * número de usuarios pendientes. Varios logins del mismo usuario entre dos
+ * volcados se agrupan en una sola escritura.
+ *
+ * Un valor solo se retira de pendientes cuando ya está escrito, así que las
+ * lecturas de UsuarioService (que aplican aplicarPendiente) ven siempre el
+ * último valor. Al parar la aplicación se vuelca lo pendiente.
+ *
+ * Si los volcados fallan, lo pendiente no crece sin límite: a partir de
+ * max-retenidos usuarios (límite aproximado) un login de un usuario que no
+ * está pendiente se escribe directamente, y si tampoco se puede escribir se
+ * descarta (métrica usuarios.ultimo_login.descartados). El último login es
+ * informativo: perder alguno es preferible a agotar la memoria.
+ *
+ * Configuración:
+ * - usuarios.ultimo-login.diferido.habilitado
+ * - usuarios.ultimo-login.diferido.intervalo-ms
+ * - usuarios.ultimo-login.diferido.max-pendientes
+ * - usuarios.ultimo-login.diferido.max-retenidos
+ */
+@Component
+@Slf4j
+public class UltimoLoginBuffer {
+
+    private static final String SQL_ACTUALIZAR = "UPDATE credenciales_usuario SET ultimo_login = ? " +
+            "WHERE usuario_id = ? AND (ultimo_login IS NULL OR ultimo_login < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TaskScheduler taskScheduler;
+    private final boolean habilitado;
+    private final int maxPendientes;
+    private final int maxRetenidos;
+
+    private final Map<Long, LocalDateTime> pendientes = new ConcurrentHashMap<>();
+    private final ReentrantLock volcando = new ReentrantLock();
+    private final AtomicBoolean volcadoSolicitado = new AtomicBoolean();
+    private final LongAdder escriturasDirectas = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+
+    public UltimoLoginBuffer(JdbcTemplate jdbcTemplate,
+                             TaskScheduler taskScheduler,
+                             @Value("${usuarios.ultimo-login.diferido.habilitado:false}") boolean habilitado,
+                             @Value("${usuarios.ultimo-login.diferido.max-pendientes:5000}") int maxPendientes,
+                             @Value("${usuarios.ultimo-login.diferido.max-retenidos:50000}") int maxRetenidos) {
+        if (maxRetenidos < maxPendientes) {
+            throw new IllegalArgumentException(
+                    "usuarios.ultimo-login.diferido.max-retenidos no puede ser menor que max-pendientes");
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.habilitado = habilitado;
+        this.maxPendientes = maxPendientes;
+        this.maxRetenidos = maxRetenidos;
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Anota un login. Si ya había uno pendiente para el usuario se conserva el más reciente.
+     */
+    public void registrar(Long usuarioId, LocalDateTime instante) {
+        // Volcados fallando: no se retienen más usuarios (uno ya pendiente no suma)
+        if (pendientes.size() >= maxRetenidos && !pendientes.containsKey(usuarioId)) {
+            escribirDirectamente(usuarioId, instante);
+            return;
+        }
+
+        pendientes.merge(usuarioId, instante, (actual, nuevo) -> nuevo.isAfter(actual) ? nuevo : actual);
+
+        if (pendientes.size() >= maxPendientes && volcadoSolicitado.compareAndSet(false, true)) {
+            // Se vuelca en el planificador, no en el hilo del login
+            taskScheduler.schedule(this::volcar, Instant.now());
+        }
+    }
+
+    private void escribirDirectamente(Long usuarioId, LocalDateTime instante) {
+        try {
+            jdbcTemplate.update(SQL_ACTUALIZAR, instante, usuarioId, instante);
+            escriturasDirectas.increment();
+        } catch (DataAccessException e) {
+            descartados.increment();
+            log.debug("Último login descartado para usuario {}: {}", usuarioId, e.getMessage());
+        }
+    }
+
+    // ========================================
+    // LECTURA COHERENTE
+    // ========================================
+
+    /**
+     * Aplica al usuario el último login pendiente de escribir, si es posterior al que tiene.
+     * Un usuario cargado sin credencial (solo perfil) se devuelve tal cual.
+     */
+    public Usuario aplicarPendiente(Usuario usuario) {
+        if (usuario.getCredencial() == null) {
+            return usuario;
+        }
+        LocalDateTime pendiente = pendientes.get(usuario.getId());
+        if (pendiente != null && (usuario.getUltimoLogin() == null || pendiente.isAfter(usuario.getUltimoLogin()))) {
+            usuario.setUltimoLogin(pendiente);
+        }
+        return usuario;
+    }
+
+    // ========================================
+    // VOLCADO
+    // ========================================
+
+    @Scheduled(fixedDelayString = "${usuarios.ultimo-login.diferido.intervalo-ms:1000}")
+    public void volcarPeriodicamente() {
+        if (habilitado) {
+            volcar();
+        }
+    }
+
+    /**
+     * Escribe todo lo pendiente con un UPDATE en batch. Si falla, los valores
+     * siguen pendientes y se reintentan en el siguiente volcado.
+     */
+    public void volcar() {
+        volcadoSolicitado.set(false);
+        if (pendientes.isEmpty()) {
+            return;
+        }
+
+        volcando.lock();
+        try {
+            List<Map.Entry<Long, LocalDateTime>> lote = new ArrayList<>(pendientes.size());
+            List<Object[]> filas = new ArrayList<>(pendientes.size());
+            pendientes.forEach((id, instante) -> {
+                lote.add(Map.entry(id, instante));
+                filas.add(new Object[]{instante, id, instante});
+            });
+
+            jdbcTemplate.batchUpdate(SQL_ACTUALIZAR, filas);
+
+            // Solo se retira lo que no cambió durante el volcado
+            lote.forEach(e -> pendientes.remove(e.getKey(), e.getValue()));
+            log.debug("Volcados {} últimos logins", lote.size());
+        } catch (DataAccessException e) {
+            log.error("Error volcando últimos logins ({} pendientes): {}", pendientes.size(), e.getMessage());
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    public long getEscriturasDirectas() {
+        return escriturasDirectas.sum();
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        if (!pendientes.isEmpty()) {
+            log.info("Volcando {} últimos logins pendientes antes de parar", pendientes.size());
+            volcar();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+/**
+ * Se lanza cuando una operación se refiere a un usuario que no existe.
+ *
+ * Extiende IllegalArgumentException para que el código que ya captura
+ * esa excepción (menú de consola) siga funcionando; la API HTTP la
+ * distingue para responder 404.
+ */
+public class UsuarioNoEncontradoException extends IllegalArgumentException {
+
+    public UsuarioNoEncontradoException(Long id) {
+        super("Usuario no encontrado con ID: " + id);
+    }
+}
@@ -1,19 +1,60 @@
 package com.LoginWeb.marcos_Login_web.service;
 
+import com.LoginWeb.marcos_Login_web.auditoria.AuditoriaLogin;
+import com.LoginWeb.marcos_Login_web.busqueda.IndiceTrigramas;
+import com.LoginWeb.marcos_Login_web.cache.UsuarioCache;
+import com.LoginWeb.marcos_Login_web.cache.VerificacionesCache;
+import com.LoginWeb.marcos_Login_web.dto.ConteoUsuarios;
+import com.LoginWeb.marcos_Login_web.dto.CriteriosMasivos;
+import com.LoginWeb.marcos_Login_web.dto.EstadoAcceso;
+import com.LoginWeb.marcos_Login_web.dto.OperacionMasiva;
+import com.LoginWeb.marcos_Login_web.dto.PaginaCursor;
+import com.LoginWeb.marcos_Login_web.dto.ResultadoOperacionMasiva;
+import com.LoginWeb.marcos_Login_web.dto.ResumenDominio;
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.AltasDiarias;
+import com.LoginWeb.marcos_Login_web.entity.CredencialUsuario;
 import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.limitador.LimitadorLogin;
+import com.LoginWeb.marcos_Login_web.limitador.LoginLimitadoException;
+import com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion;
+import com.LoginWeb.marcos_Login_web.metrics.ResultadoAutenticacion;
+import com.LoginWeb.marcos_Login_web.repository.CredencialUsuarioRepository;
 import com.LoginWeb.marcos_Login_web.repository.UsuarioRepository;
+import com.LoginWeb.marcos_Login_web.util.CursorUtil;
+import com.LoginWeb.marcos_Login_web.util.PasswordHashingExecutor;
 import com.LoginWeb.marcos_Login_web.util.PasswordUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+
+import static com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion.BCRYPT;
+import static com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion.CAMBIAR_PASSWORD;
+import static com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion.CREAR_USUARIO;
+import static com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion.ESCRITURA;
+import static com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion.LECTURA;
+import static com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion.LOGIN;
+import static com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion.VALIDACION;
+import static com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion.VERIFICAR_CREDENCIALES;
+import static com.LoginWeb.marcos_Login_web.metrics.MetricasAutenticacion.VERIFICAR_LOGIN;
 
 /**
  * Servicio que implementa la lógica de negocio para gestión de usuarios.
@@ -23,6 +64,38 @@ import java.util.Optional;
  * - @Transactional: Gestión automática de transacciones
  * - @Slf4j: Logger automático de Lombok
  * - @RequiredArgsConstructor: Inyección de dependencias por constructor
+ *
+ * Los métodos de autenticación se ejecutan SIN transacción envolvente
+ * (Propagation.NOT_SUPPORTED): BCrypt tarda ~250 ms y no debe ejecutarse
+ * con una conexión del pool Hikari retenida. Siguen tres fases:
+ * 1. Lectura corta (la conexión se devuelve al terminar la consulta)
+ * 2. Hash/verificación BCrypt sin conexión
+ * 3. Escritura corta y condicional con TransactionTemplate
+ *
+ * El hashing se delega en el ejecutor dedicado (PasswordHashingExecutor);
+ * si está saturado se propaga HashingSaturadoException.
+ *
+ * Las búsquedas por username/ID pasan por UsuarioCache. Como la copia cacheada
+ * puede estar obsoleta, las escrituras de login son condicionales sobre el hash
+ * verificado; si no se aplican, se invalida la caché y se repite contra la BBDD.
+ *
+ * Con el último login diferido (UltimoLoginBuffer) habilitado, un login correcto
+ * sin intentos fallidos previos no escribe: solo confirma el estado con una
+ * lectura por clave primaria. Las lecturas aplican el último login pendiente.
+ *
+ * Las operaciones de autenticación, alta y cambio de contraseña miden su
+ * duración por etapa y su resultado en MetricasAutenticacion.
+ *
+ * Los puntos de entrada de login pasan antes por LimitadorLogin: un exceso de
+ * intentos por username o por cliente se rechaza (LoginLimitadoException) sin
+ * consultar la BBDD ni hashear.
+ *
+ * Cada resultado de autenticación se publica además en AuditoriaLogin, que lo
+ * escribe en segundo plano sin añadir latencia al login.
+ *
+ * Las búsquedas por subcadena/prefijo de username y email usan IndiceTrigramas
+ * (en memoria) y cargan los resultados por ID en una sola consulta; mientras el
+ * índice no está listo se recurre al LIKE de la BBDD.
  */
 @Service
 @Transactional
@@ -30,8 +103,29 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class UsuarioService {
 
+    /** Resultados máximos de buscarResumenPorUsername sin límite explícito. */
+    public static final int MAX_RESULTADOS_BUSQUEDA = 200;
+
+    // IDs por consulta IN al cargar resultados del índice de búsqueda
+    private static final int TAMAÑO_IN = 1000;
+
     private final UsuarioRepository usuarioRepository;
-    private final PasswordUtil passwordUtil = new PasswordUtil();
+    private final CredencialUsuarioRepository credencialRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordUtil passwordUtil;
+    private final UsuarioCache usuarioCache;
+    private final VerificacionesCache verificaciones;
+    private final UltimoLoginBuffer ultimoLoginBuffer;
+    private final ActualizadorHash actualizadorHash;
+    private final MetricasAutenticacion metricas;
+    private final LimitadorLogin limitadorLogin;
+    private final AuditoriaLogin auditoria;
+    private final IndiceTrigramas indiceTrigramas;
+    private final ResumenAltasDiarias resumenAltas;
+    private final EstadisticasUsuarios estadisticas;
+    private final OperacionesMasivasService operacionesMasivas;
+    private final ExpiracionBloqueos expiracionBloqueos;
+
     // ========================================
     // OPERACIONES CREATE
     // ========================================
@@ -45,26 +139,44 @@ public class UsuarioService {
      * @return Usuario creado
      * @throws IllegalArgumentException si username o email ya existen
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Usuario crearUsuario(String username, String email, String rawPassword) {
+        return metricas.medirOperacion(CREAR_USUARIO, () -> registrarUsuario(username, email, rawPassword));
+    }
+
+    private Usuario registrarUsuario(String username, String email, String rawPassword) {
         log.info("Creando nuevo usuario: {}", username);
 
         // Validaciones de negocio
-        if (usuarioRepository.existsByUsername(username)) {
-            throw new IllegalArgumentException("El username '" + username + "' ya existe");
-        }
-        if (usuarioRepository.existsByEmail(email)) {
-            throw new IllegalArgumentException("El email '" + email + "' ya está registrado");
-        }
+        metricas.medirEtapa(CREAR_USUARIO, VALIDACION, () -> {
+            if (usuarioRepository.existsByUsername(username)) {
+                throw new IllegalArgumentException("El username '" + username + "' ya existe");
+            }
+            if (usuarioRepository.existsByEmail(email)) {
+                throw new IllegalArgumentException("El email '" + email + "' ya está registrado");
+            }
+        });
 
-        // Crear usuario con contraseña hasheada
+        // Crear usuario con contraseña hasheada (sin conexión retenida)
+        String passwordHash = metricas.medirEtapa(CREAR_USUARIO, BCRYPT,
+                () -> PasswordHashingExecutor.esperar(passwordUtil.hashPasswordAsync(rawPassword)));
         Usuario usuario = Usuario.builder()
                 .username(username)
                 .email(email)
-                .passwordHash(passwordUtil.hashPassword(rawPassword))
                 .activo(true)
                 .build();
-
-        Usuario guardado = usuarioRepository.save(usuario);
+        usuario.inicializarCredencial(passwordHash);
+
+        // Perfil y credencial en la misma transacción
+        Usuario guardado = metricas.medirEtapa(CREAR_USUARIO, ESCRITURA, () -> transactionTemplate.execute(status -> {
+            Usuario perfil = usuarioRepository.save(usuario);
+            perfil.setCredencial(credencialRepository.save(usuario.getCredencial()));
+            return perfil;
+        }));
+        usuarioCache.invalidar(guardado); // descarta una posible entrada negativa del username
+        indiceTrigramas.indexarAlConfirmar(guardado);
+        resumenAltas.altasAlConfirmar(guardado.getFechaCreacion().toLocalDate(), 1);
+        estadisticas.altasAlConfirmar(1);
         log.info("Usuario creado con ID: {}", guardado.getId());
 
         return guardado;
@@ -75,38 +187,219 @@ public class UsuarioService {
     // ========================================
 
     /**
-     * Obtiene todos los usuarios.
+     * Obtiene todos los usuarios, con su credencial enlazada.
      */
     @Transactional(readOnly = true)
     public List<Usuario> obtenerTodos() {
         log.debug("Obteniendo todos los usuarios");
-        return usuarioRepository.findAll();
+        return credencialRepository.findUsuariosConCredencial();
     }
 
     /**
-     * Obtiene un usuario por su ID.
+     * Obtiene un usuario por su ID (a través de la caché).
+     * Sin transacción: un acierto de caché no debe ocupar una conexión del pool.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Usuario> obtenerPorId(Long id) {
         log.debug("Buscando usuario con ID: {}", id);
-        return usuarioRepository.findById(id);
+        return usuarioCache.buscarPorId(id, credencialRepository::findUsuarioConCredencialById)
+                .map(ultimoLoginBuffer::aplicarPendiente);
     }
 
     /**
-     * Obtiene un usuario por su username.
+     * Obtiene un usuario por su username (a través de la caché).
+     * Sin transacción: un acierto de caché no debe ocupar una conexión del pool.
      */
-    @Transactional(readOnly = true)
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Usuario> obtenerPorUsername(String username) {
         log.debug("Buscando usuario con username: {}", username);
-        return usuarioRepository.findByUsername(username);
+        return buscarPorUsername(username, true);
+    }
+
+    private Optional<Usuario> buscarPorUsername(String username, boolean usarCache) {
+        Optional<Usuario> usuario = usarCache
+                ? usuarioCache.buscarPorUsername(username, credencialRepository::findUsuarioConCredencialByUsername)
+                : credencialRepository.findUsuarioConCredencialByUsername(username);
+        return usuario.map(ultimoLoginBuffer::aplicarPendiente);
     }
 
     /**
-     * Obtiene todos los usuarios activos.
+     * Obtiene todos los usuarios activos, con su credencial enlazada.
      */
     @Transactional(readOnly = true)
     public List<Usuario> obtenerUsuariosActivos() {
-        return usuarioRepository.findByActivoTrue();
+        return credencialRepository.findUsuariosActivosConCredencial();
+    }
+
+    // ========================================
+    // LISTADOS Y BÚSQUEDAS LIGERAS (PROYECCIONES)
+    // ========================================
+
+    /**
+     * Lista los usuarios activos sin cargar entidades completas.
+     * Preferible a obtenerUsuariosActivos cuando solo se van a mostrar.
+     */
+    @Transactional(readOnly = true)
+    public List<UsuarioResumen> obtenerResumenActivos() {
+        return usuarioRepository.findResumenActivos();
+    }
+
+    /**
+     * Lista los usuarios activos del más reciente al más antiguo, sin cargar entidades.
+     */
+    @Transactional(readOnly = true)
+    public List<UsuarioResumen> obtenerResumenActivosRecientes() {
+        return usuarioRepository.findResumenActivosOrdenados();
+    }
+
+    /**
+     * Busca usuarios cuyo username contenga el texto (sin distinguir mayúsculas),
+     * como mucho MAX_RESULTADOS_BUSQUEDA.
+     */
+    @Transactional(readOnly = true)
+    public List<UsuarioResumen> buscarResumenPorUsername(String texto) {
+        return buscarResumenPorUsername(texto, MAX_RESULTADOS_BUSQUEDA);
+    }
+
+    /**
+     * Variante con límite: un texto de uno o dos caracteres puede coincidir con
+     * casi toda la tabla.
+     *
+     * @param limite Número máximo de resultados
+     */
+    @Transactional(readOnly = true)
+    public List<UsuarioResumen> buscarResumenPorUsername(String texto, int limite) {
+        if (indiceTrigramas.isListo()) {
+            return cargarResumenes(indiceTrigramas.buscarSubcadena(texto, false, limite));
+        }
+        return usuarioRepository.findResumenByUsernameContaining(texto, Limit.of(limite));
+    }
+
+    /**
+     * Busca usuarios cuyo username o email contenga el texto (sin distinguir
+     * mayúsculas), ordenados por relevancia: coincidencia exacta de username,
+     * username que empieza por el texto, username que lo contiene y después email.
+     *
+     * @param limite Número máximo de resultados
+     */
+    @Transactional(readOnly = true)
+    public List<UsuarioResumen> buscarUsuarios(String texto, int limite) {
+        if (indiceTrigramas.isListo()) {
+            return cargarResumenes(indiceTrigramas.buscarSubcadena(texto, true, limite));
+        }
+        return buscarEnBaseDeDatos(texto, limite);
+    }
+
+    /**
+     * Autocompletado: usuarios cuyo username o email empieza por el texto,
+     * ordenados por relevancia (username antes que email, más cortos primero).
+     */
+    @Transactional(readOnly = true)
+    public List<UsuarioResumen> buscarUsuariosPorPrefijo(String texto, int limite) {
+        if (indiceTrigramas.isListo()) {
+            return cargarResumenes(indiceTrigramas.buscarPrefijo(texto, true, limite));
+        }
+        String prefijo = texto.trim().toLowerCase();
+        return buscarEnBaseDeDatos(texto, Integer.MAX_VALUE).stream()
+                .filter(u -> u.username().toLowerCase().startsWith(prefijo)
+                        || u.email().toLowerCase().startsWith(prefijo))
+                .limit(limite)
+                .toList();
+    }
+
+    // Sin índice: LIKE sobre username y email (recorre la tabla)
+    private List<UsuarioResumen> buscarEnBaseDeDatos(String texto, int limite) {
+        String t = texto.trim().toLowerCase();
+        return usuarioRepository.findResumenByUsernameOrEmailContaining(t)
+                .stream()
+                .sorted(Comparator.comparing((UsuarioResumen u) -> !u.username().toLowerCase().contains(t))
+                        .thenComparingInt(u -> u.username().length()))
+                .limit(limite)
+                .toList();
+    }
+
+    // Carga los resúmenes de los IDs por tramos de TAMAÑO_IN, conservando el orden del índice
+    private List<UsuarioResumen> cargarResumenes(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, UsuarioResumen> porId = new HashMap<>();
+        for (int i = 0; i < ids.size(); i += TAMAÑO_IN) {
+            for (UsuarioResumen u : usuarioRepository.findResumenByIdIn(
+                    ids.subList(i, Math.min(i + TAMAÑO_IN, ids.size())))) {
+                porId.put(u.id(), u);
+            }
+        }
+        // Un ID borrado después de la búsqueda no aparece en la consulta
+        return ids.stream()
+                .map(porId::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Usuarios con email en el dominio indicado ("empresa.com" o "@empresa.com",
+     * sin distinguir mayúsculas). Búsqueda por igualdad sobre el dominio indexado:
+     * solo el dominio exacto, sin sus subdominios ("mail.empresa.com" es otro dominio).
+     * Con su credencial enlazada.
+     */
+    @Transactional(readOnly = true)
+    public List<Usuario> obtenerPorDominioEmail(String dominio) {
+        return credencialRepository.findUsuariosConCredencialByDominioEmail(Usuario.dominioDe(dominio));
+    }
+
+    /**
+     * Usuarios y activos de un dominio (cero si no hay ninguno).
+     */
+    @Transactional(readOnly = true)
+    public ResumenDominio obtenerResumenDominio(String dominio) {
+        String normalizado = Usuario.dominioDe(dominio);
+        return usuarioRepository.findResumenDominio(normalizado)
+                .orElse(new ResumenDominio(normalizado, 0, 0));
+    }
+
+    /**
+     * Dominios con más usuarios, con su número de usuarios y de activos.
+     */
+    @Transactional(readOnly = true)
+    public List<ResumenDominio> obtenerResumenPorDominio(int limite) {
+        return usuarioRepository.findResumenPorDominio(Limit.of(limite));
+    }
+
+    /**
+     * Usuarios creados en los últimos días (hoy y los N días anteriores),
+     * con su credencial enlazada.
+     */
+    @Transactional(readOnly = true)
+    public List<Usuario> obtenerUsuariosRecientes(int dias) {
+        return credencialRepository.findUsuariosRecientesConCredencial(dias);
+    }
+
+    /**
+     * Altas, desactivaciones y reactivaciones por día de los últimos días,
+     * leídas del resumen diario (una fila por día, sin recorrer usuarios).
+     */
+    @Transactional(readOnly = true)
+    public List<AltasDiarias> obtenerAltasUltimosDias(int dias) {
+        return resumenAltas.ultimosDias(dias);
+    }
+
+    /**
+     * Variante ligera de buscarUsuariosPaginados.
+     */
+    @Transactional(readOnly = true)
+    public Page<UsuarioResumen> buscarResumenPaginado(int pagina, int tamaño) {
+        Pageable pageable = PageRequest.of(pagina, tamaño);
+        Slice<UsuarioResumen> slice = usuarioRepository.findResumenesSinTotal(pageable);
+        return new PageImpl<>(slice.getContent(), pageable,
+                estadisticas.getTotal());
+    }
+
+    /**
+     * Usuarios totales, activos, inactivos y bloqueados, sin consultar la BBDD.
+     */
+    public ConteoUsuarios obtenerConteoUsuarios() {
+        return estadisticas.getConteo();
     }
 
     // ========================================
@@ -114,19 +407,22 @@ public class UsuarioService {
     // ========================================
 
     /**
-     * Actualiza email y/o contraseña de un usuario.
+     * Actualiza el email de un usuario.
+     *
+     * La contraseña se cambia con cambiarPassword: verifica la actual y calcula
+     * el hash fuera de la transacción, sin retener una conexión durante BCrypt.
      *
      * @param id ID del usuario a actualizar
      * @param nuevoEmail Nuevo email (null para no cambiar)
-     * @param nuevaPassword Nueva contraseña en texto plano (null para no cambiar)
      * @return Usuario actualizado
-     * @throws IllegalArgumentException si el usuario no existe o email duplicado
+     * @throws UsuarioNoEncontradoException si el usuario no existe
+     * @throws IllegalArgumentException si el email ya está en uso
      */
-    public Usuario actualizarUsuario(Long id, String nuevoEmail, String nuevaPassword) {
+    public Usuario actualizarUsuario(Long id, String nuevoEmail) {
         log.info("Actualizando usuario ID: {}", id);
 
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado con ID: " + id));
+        Usuario usuario = credencialRepository.findUsuarioConCredencialById(id)
+                .orElseThrow(() -> new UsuarioNoEncontradoException(id));
 
         // Actualizar email si se proporciona
         if (nuevoEmail != null && !nuevoEmail.equals(usuario.getEmail())) {
@@ -137,13 +433,10 @@ public class UsuarioService {
             log.debug("Email actualizado a: {}", nuevoEmail);
         }
 
-        // Actualizar contraseña si se proporciona
-        if (nuevaPassword != null && !nuevaPassword.isEmpty()) {
-            usuario.setPasswordHash(passwordUtil.hashPassword(nuevaPassword));
-            log.debug("Contraseña actualizada para usuario: {}", usuario.getUsername());
-        }
-
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        usuarioCache.invalidar(guardado);
+        indiceTrigramas.indexarAlConfirmar(guardado);
+        return guardado;
     }
 
     // ========================================
@@ -154,16 +447,20 @@ public class UsuarioService {
      * Elimina un usuario de forma permanente (borrado físico).
      *
      * @param id ID del usuario a eliminar
-     * @throws IllegalArgumentException si el usuario no existe
+     * @throws UsuarioNoEncontradoException si el usuario no existe
      */
     public void eliminarUsuario(Long id) {
         log.warn("Eliminando usuario ID: {} (borrado físico)", id);
 
-        if (!usuarioRepository.existsById(id)) {
-            throw new IllegalArgumentException("Usuario no encontrado con ID: " + id);
-        }
+        Usuario usuario = credencialRepository.findUsuarioConCredencialById(id)
+                .orElseThrow(() -> new UsuarioNoEncontradoException(id));
 
-        usuarioRepository.deleteById(id);
+        // La credencial se borra con el usuario (ON DELETE CASCADE)
+        usuarioRepository.delete(usuario);
+        usuarioCache.invalidar(usuario);
+        verificaciones.invalidar(usuario.getUsername());
+        indiceTrigramas.eliminarAlConfirmar(id);
+        estadisticas.bajaAlConfirmar(Boolean.TRUE.equals(usuario.getActivo()), usuario.isBloqueado());
         log.info("Usuario eliminado permanentemente");
     }
 
@@ -177,11 +474,18 @@ public class UsuarioService {
     public Usuario desactivarUsuario(Long id) {
         log.info("Desactivando usuario ID: {} (borrado lógico)", id);
 
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado con ID: " + id));
+        Usuario usuario = credencialRepository.findUsuarioConCredencialById(id)
+                .orElseThrow(() -> new UsuarioNoEncontradoException(id));
 
+        if (Boolean.TRUE.equals(usuario.getActivo())) {
+            resumenAltas.desactivacionAlConfirmar();
+            estadisticas.desactivacionAlConfirmar();
+        }
         usuario.setActivo(false);
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        usuarioCache.invalidar(guardado);
+        verificaciones.invalidar(guardado.getUsername());
+        return guardado;
     }
 
     /**
@@ -190,11 +494,81 @@ public class UsuarioService {
     public Usuario activarUsuario(Long id) {
         log.info("Reactivando usuario ID: {}", id);
 
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado con ID: " + id));
+        Usuario usuario = credencialRepository.findUsuarioConCredencialById(id)
+                .orElseThrow(() -> new UsuarioNoEncontradoException(id));
 
+        if (!Boolean.TRUE.equals(usuario.getActivo())) {
+            resumenAltas.reactivacionAlConfirmar();
+            estadisticas.activacionAlConfirmar();
+        }
         usuario.setActivo(true);
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        usuarioCache.invalidar(guardado);
+        return guardado;
+    }
+
+    /**
+     * Desbloquea un usuario bloqueado por intentos fallidos.
+     *
+     * @return false si el usuario no estaba bloqueado
+     * @throws UsuarioNoEncontradoException si el usuario no existe
+     */
+    public boolean desbloquearUsuario(Long id) {
+        Usuario usuario = credencialRepository.findUsuarioConCredencialById(id)
+                .orElseThrow(() -> new UsuarioNoEncontradoException(id));
+
+        // UPDATE condicional: dos desbloqueos concurrentes solo cuentan una vez
+        if (credencialRepository.desbloquear(id) == 0) {
+            return false;
+        }
+        log.info("Usuario {} desbloqueado", usuario.getUsername());
+        usuarioCache.invalidar(usuario);
+        estadisticas.desbloqueoAlConfirmar();
+        return true;
+    }
+
+    // ========================================
+    // OPERACIONES MASIVAS
+    // ========================================
+
+    /**
+     * Desactiva los usuarios activos que cumplen los criterios, por lotes
+     * con un UPDATE y un commit por lote (ver OperacionesMasivasService).
+     *
+     * @param progreso Recibe los totales acumulados tras cada lote
+     * @throws IllegalArgumentException si no se indica ningún criterio
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoOperacionMasiva desactivarUsuarios(CriteriosMasivos criterios,
+                                                       Consumer<ResultadoOperacionMasiva> progreso) {
+        return operacionesMasivas.ejecutar(OperacionMasiva.DESACTIVAR, criterios, progreso);
+    }
+
+    /**
+     * Reactiva los usuarios desactivados que cumplen los criterios.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoOperacionMasiva activarUsuarios(CriteriosMasivos criterios,
+                                                    Consumer<ResultadoOperacionMasiva> progreso) {
+        return operacionesMasivas.ejecutar(OperacionMasiva.ACTIVAR, criterios, progreso);
+    }
+
+    /**
+     * Desbloquea los usuarios bloqueados que cumplen los criterios.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoOperacionMasiva desbloquearUsuarios(CriteriosMasivos criterios,
+                                                        Consumer<ResultadoOperacionMasiva> progreso) {
+        return operacionesMasivas.ejecutar(OperacionMasiva.DESBLOQUEAR, criterios, progreso);
+    }
+
+    /**
+     * Elimina (borrado físico) los usuarios que cumplen los criterios.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public ResultadoOperacionMasiva eliminarUsuarios(CriteriosMasivos criterios,
+                                                     Consumer<ResultadoOperacionMasiva> progreso) {
+        return operacionesMasivas.ejecutar(OperacionMasiva.ELIMINAR, criterios, progreso);
     }
 
     // ========================================
@@ -208,13 +582,31 @@ public class UsuarioService {
      * @param rawPassword Contraseña en texto plano
      * @return Optional con el usuario si las credenciales son válidas
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Usuario> verificarCredenciales(String username, String rawPassword) {
+        return verificarCredenciales(username, rawPassword, (String) null);
+    }
+
+    /**
+     * Variante con identificador de cliente (IP, sesión...) para el limitador de login.
+     *
+     * @throws LoginLimitadoException si se superó el límite de intentos
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<Usuario> verificarCredenciales(String username, String rawPassword, String cliente) {
+        limitar(VERIFICAR_CREDENCIALES, username, cliente);
         log.debug("Verificando credenciales para: {}", username);
+        return metricas.medirOperacion(VERIFICAR_CREDENCIALES, () -> verificarCredenciales(username, rawPassword, true));
+    }
 
-        Optional<Usuario> usuarioOpt = usuarioRepository.findByUsername(username);
+    private Optional<Usuario> verificarCredenciales(String username, String rawPassword, boolean usarCache) {
+        // Fase 1: lectura corta (o acierto de caché)
+        Optional<Usuario> usuarioOpt = metricas.medirEtapa(VERIFICAR_CREDENCIALES, LECTURA,
+                () -> buscarPorUsername(username, usarCache));
 
         if (usuarioOpt.isEmpty()) {
             log.warn("Intento de login con usuario inexistente: {}", username);
+            registrarResultado(VERIFICAR_CREDENCIALES, username, ResultadoAutenticacion.USUARIO_INEXISTENTE, 0);
             return Optional.empty();
         }
 
@@ -222,25 +614,84 @@ public class UsuarioService {
 
         if (!usuario.getActivo()) {
             log.warn("Intento de login con usuario desactivado: {}", username);
+            registrarResultado(VERIFICAR_CREDENCIALES, username, ResultadoAutenticacion.DESACTIVADO,
+                    usuario.getIntentosFallidos());
             return Optional.empty();
         }
 
-        if (passwordUtil.verifyPassword(rawPassword, usuario.getPasswordHash())) {
-            log.info("Login exitoso para usuario: {}", username);
+        // Fase 2: BCrypt sin conexión retenida, salvo que la misma contraseña
+        // ya se verificara contra el mismo hash hace poco (caché de verificaciones)
+        boolean verificadaEnCache = verificaciones.verificada(username, usuario.getPasswordHash(), rawPassword);
+        boolean correcta = verificadaEnCache || metricas.medirEtapa(VERIFICAR_CREDENCIALES, BCRYPT,
+                () -> passwordUtil.verifyPassword(rawPassword, usuario.getPasswordHash()));
+        if (!correcta) {
+            if (usarCache && hashObsoleto(usuario)) {
+                return verificarCredenciales(username, rawPassword, false);
+            }
+            log.warn("Contraseña incorrecta para usuario: {}", username);
+            registrarResultado(VERIFICAR_CREDENCIALES, username, ResultadoAutenticacion.PASSWORD_INCORRECTA,
+                    usuario.getIntentosFallidos());
+            return Optional.empty();
+        }
 
-            // Actualizar último login
-            usuario.setUltimoLogin(LocalDateTime.now());
-            usuarioRepository.save(usuario);
+        // Fase 3: escritura corta (o confirmación + escritura diferida),
+        // solo si sigue activo y con el mismo hash
+        LocalDateTime ahora = LocalDateTime.now();
+        boolean confirmado = metricas.medirEtapa(VERIFICAR_CREDENCIALES, ESCRITURA,
+                () -> confirmarAcceso(usuario, ahora));
 
-            return Optional.of(usuario);
+        if (!confirmado) {
+            usuarioCache.invalidar(usuario);
+            if (usarCache) {
+                return verificarCredenciales(username, rawPassword, false);
+            }
+            log.warn("Usuario {} desactivado, eliminado o con contraseña cambiada durante la verificación", username);
+            registrarResultado(VERIFICAR_CREDENCIALES, username, ResultadoAutenticacion.CONFLICTO,
+                    usuario.getIntentosFallidos());
+            return Optional.empty();
         }
 
-        log.warn("Contraseña incorrecta para usuario: {}", username);
-        return Optional.empty();
+        usuario.setUltimoLogin(ahora);
+        usuarioCache.actualizarEstadoAcceso(usuario.getId(), usuario.getIntentosFallidos(), usuario.isBloqueado(),
+                usuario.getFechaBloqueo(), ahora);
+        if (!verificadaEnCache) {
+            // Sin renovar en cada acierto: la entrada caduca a su TTL aunque se siga usando
+            verificaciones.registrar(username, usuario.getPasswordHash(), rawPassword);
+        }
+        actualizadorHash.programarSiNecesario(usuario, rawPassword);
+        registrarResultado(VERIFICAR_CREDENCIALES, username, ResultadoAutenticacion.EXITO,
+                usuario.getIntentosFallidos());
+        log.info("Login exitoso para usuario: {}", username);
+        return Optional.of(usuario);
     }
 
+    /**
+     * Registra el último login (o lo confirma y lo difiere) si el usuario sigue
+     * activo y con el hash verificado.
+     *
+     * @return false si el usuario cambió desde que se leyó
+     */
+    private boolean confirmarAcceso(Usuario usuario, LocalDateTime ahora) {
+        if (ultimoLoginBuffer.isHabilitado()) {
+            boolean confirmado = credencialRepository.findEstadoAccesoByIdAndPasswordHash(usuario.getId(), usuario.getPasswordHash())
+                    .filter(e -> Boolean.TRUE.equals(e.activo()))
+                    .isPresent();
+            if (confirmado) {
+                ultimoLoginBuffer.registrar(usuario.getId(), ahora);
+            }
+            return confirmado;
+        }
+        return credencialRepository.actualizarUltimoLogin(usuario.getId(), usuario.getPasswordHash(), ahora) == 1;
+    }
+
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public boolean verificarLogin(String username, String passwordIntroducida) {
-        Optional<Usuario> usuarioOpt = usuarioRepository.findByUsername(username);
+        limitar(VERIFICAR_LOGIN, username, null);
+        return verificarLogin(username, passwordIntroducida, true);
+    }
+
+    private boolean verificarLogin(String username, String passwordIntroducida, boolean usarCache) {
+        Optional<Usuario> usuarioOpt = buscarPorUsername(username, usarCache);
 
         if (usuarioOpt.isEmpty()) return false;
 
@@ -248,7 +699,31 @@ public class UsuarioService {
 
         if (!usuario.getActivo()) return false;
 
-        return passwordUtil.verifyPassword(passwordIntroducida, usuario.getPasswordHash());
+        boolean correcta = passwordUtil.verifyPassword(passwordIntroducida, usuario.getPasswordHash());
+
+        // Un fallo puede deberse a un hash cacheado obsoleto (contraseña cambiada en
+        // otro nodo): solo entonces se consulta la BBDD, como en verificarCredenciales.
+        // Un acierto no hace ninguna consulta; los cambios de otro nodo se ven al
+        // expirar la entrada (usuarios.cache.ttl-segundos)
+        if (!correcta && usarCache && hashObsoleto(usuario)) {
+            return verificarLogin(username, passwordIntroducida, false);
+        }
+        if (correcta) {
+            actualizadorHash.programarSiNecesario(usuario, passwordIntroducida);
+        }
+        return correcta;
+    }
+
+    /**
+     * Comprueba si la contraseña del usuario cambió respecto a la copia leída
+     * (p. ej. cacheada en este nodo y cambiada en otro). Si es así, invalida la caché.
+     */
+    private boolean hashObsoleto(Usuario usuario) {
+        if (credencialRepository.existsByUsuarioIdAndPasswordHash(usuario.getId(), usuario.getPasswordHash())) {
+            return false;
+        }
+        usuarioCache.invalidar(usuario);
+        return true;
     }
 
     // ========================================
@@ -256,22 +731,52 @@ public class UsuarioService {
     // ========================================
     public void actualizarUltimoLogin(Usuario usuario) {
         usuario.setUltimoLogin(LocalDateTime.now());
-        usuarioRepository.save(usuario);
+        if (ultimoLoginBuffer.isHabilitado()) {
+            ultimoLoginBuffer.registrar(usuario.getId(), usuario.getUltimoLogin());
+            usuarioCache.actualizarEstadoAcceso(usuario.getId(), usuario.getIntentosFallidos(),
+                    usuario.isBloqueado(), usuario.getFechaBloqueo(), usuario.getUltimoLogin());
+            return;
+        }
+        credencialRepository.actualizarUltimoLogin(usuario.getId(), usuario.getPasswordHash(), usuario.getUltimoLogin());
+        usuarioCache.invalidar(usuario);
     }
 
     // ========================================
     // EJERCICIO 2: CAMBIO DE CONTRASEÑA
     // ========================================
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Usuario cambiarPassword(Long id, String passwordActual, String passwordNueva) {
-        Usuario usuario = usuarioRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
-
-        if (!passwordUtil.verifyPassword(passwordActual, usuario.getPasswordHash())) {
-            throw new IllegalArgumentException("La contraseña actual es incorrecta");
-        }
+        return metricas.medirOperacion(CAMBIAR_PASSWORD, () -> sustituirPassword(id, passwordActual, passwordNueva));
+    }
 
-        usuario.setPasswordHash(passwordUtil.hashPassword(passwordNueva));
-        return usuarioRepository.save(usuario);
+    private Usuario sustituirPassword(Long id, String passwordActual, String passwordNueva) {
+        // Fase 1: lectura corta
+        CredencialUsuario credencial = metricas.medirEtapa(CAMBIAR_PASSWORD, LECTURA,
+                        () -> credencialRepository.findById(id))
+                .orElseThrow(() -> new UsuarioNoEncontradoException(id));
+        String hashVerificado = credencial.getPasswordHash();
+
+        // Fase 2: verificación y nuevo hash sin conexión retenida
+        String nuevoHash = metricas.medirEtapa(CAMBIAR_PASSWORD, BCRYPT, () -> {
+            if (!PasswordHashingExecutor.esperar(passwordUtil.verifyPasswordAsync(passwordActual, hashVerificado))) {
+                throw new IllegalArgumentException("La contraseña actual es incorrecta");
+            }
+            return PasswordHashingExecutor.esperar(passwordUtil.hashPasswordAsync(passwordNueva));
+        });
+
+        // Fase 3: escritura corta, solo si nadie cambió la contraseña entretanto
+        Usuario guardado = metricas.medirEtapa(CAMBIAR_PASSWORD, ESCRITURA, () -> transactionTemplate.execute(status -> {
+            CredencialUsuario actual = credencialRepository.findConUsuarioById(id)
+                    .orElseThrow(() -> new UsuarioNoEncontradoException(id));
+            if (!hashVerificado.equals(actual.getPasswordHash())) {
+                throw new ConflictoException("La contraseña se modificó durante la operación, inténtalo de nuevo");
+            }
+            actual.setPasswordHash(nuevoHash);
+            return credencialRepository.save(actual).enlazarUsuario();
+        }));
+        usuarioCache.invalidar(guardado);
+        verificaciones.invalidar(guardado.getUsername());
+        return guardado;
     }
 
     // ========================================
@@ -280,40 +785,204 @@ public class UsuarioService {
     @Transactional(readOnly = true)
     public Page<Usuario> buscarUsuariosPaginados(int pagina, int tamaño) {
         Pageable pageable = PageRequest.of(pagina, tamaño);
-        return usuarioRepository.findAll(pageable);
+        // El total sale de EstadisticasUsuarios: sin COUNT(*) por página
+        List<Usuario> contenido = credencialRepository.findPaginaConUsuario(pageable).getContent().stream()
+                .map(CredencialUsuario::enlazarUsuario)
+                .toList();
+        return new PageImpl<>(contenido, pageable, estadisticas.getTotal());
+    }
+
+    // ========================================
+    // PAGINACIÓN POR CURSOR (KEYSET)
+    // ========================================
+
+    /**
+     * Lista usuarios por orden de ID con paginación por cursor.
+     * A diferencia de buscarUsuariosPaginados, no usa OFFSET ni COUNT(*):
+     * la página N cuesta lo mismo que la primera.
+     *
+     * @param cursor Token devuelto por la página anterior (null para la primera)
+     * @param tamaño Número máximo de usuarios por página
+     * @throws IllegalArgumentException si el cursor o el tamaño no son válidos
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<UsuarioResumen> listarUsuariosPorCursor(String cursor, int tamaño) {
+        validarTamañoPagina(tamaño);
+        Long ultimoId = cursor == null ? 0L : CursorUtil.decodificarId(cursor);
+
+        List<UsuarioResumen> filas = 
+                usuarioRepository.findSiguientesPorId(ultimoId, Limit.of(tamaño + 1));
+        return PaginaCursor.de(filas, tamaño, u -> CursorUtil.codificarId(u.id()));
+    }
+
+    /**
+     * Lista usuarios activos del más reciente al más antiguo con paginación por cursor.
+     *
+     * @param cursor Token devuelto por la página anterior (null para la primera)
+     * @param tamaño Número máximo de usuarios por página
+     * @throws IllegalArgumentException si el cursor o el tamaño no son válidos
+     */
+    @Transactional(readOnly = true)
+    public PaginaCursor<UsuarioResumen> listarActivosRecientesPorCursor(String cursor, int tamaño) {
+        validarTamañoPagina(tamaño);
+        Limit limite = Limit.of(tamaño + 1);
+
+        List<UsuarioResumen> filas;
+        if (cursor == null) {
+            filas = usuarioRepository.findUsuariosActivosOrdenados(limite);
+        } else {
+            CursorUtil.PosicionFecha posicion = CursorUtil.decodificarFecha(cursor);
+            filas = usuarioRepository.findUsuariosActivosOrdenadosDespuesDe(posicion.fecha(), posicion.id(), limite);
+        }
+        return PaginaCursor.de(filas, tamaño,
+                u -> CursorUtil.codificarFecha(u.fechaCreacion(), u.id()));
+    }
+
+    private void validarTamañoPagina(int tamaño) {
+        if (tamaño <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor que 0");
+        }
     }
 
     // ========================================
     // EJERCICIO 4: CONTADOR DE INTENTOS FALLIDOS Y BLOQUEO
     // ========================================
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public Optional<Usuario> loginConIntentos(String username, String password) {
-        Optional<Usuario> usuarioOpt = usuarioRepository.findByUsername(username);
-        if (usuarioOpt.isEmpty()) return Optional.empty();
+        return loginConIntentos(username, password, (String) null);
+    }
+
+    /**
+     * Variante con identificador de cliente (IP, sesión...) para el limitador de login.
+     *
+     * @throws LoginLimitadoException si se superó el límite de intentos
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public Optional<Usuario> loginConIntentos(String username, String password, String cliente) {
+        limitar(LOGIN, username, cliente);
+        return metricas.medirOperacion(LOGIN, () -> loginConIntentos(username, password, true));
+    }
+
+    private void registrarResultado(String operacion, String username, ResultadoAutenticacion resultado,
+                                    int intentosFallidos) {
+        metricas.registrarResultado(operacion, resultado);
+        auditoria.registrar(operacion, username, resultado, intentosFallidos);
+    }
+
+    private void limitar(String operacion, String username, String cliente) {
+        try {
+            limitadorLogin.comprobar(username, cliente);
+        } catch (LoginLimitadoException e) {
+            registrarResultado(operacion, username, ResultadoAutenticacion.LIMITADO, 0);
+            log.warn("Login limitado ({}) para usuario: {}", e.getAmbito(), username);
+            throw e;
+        }
+    }
+
+    private Optional<Usuario> loginConIntentos(String username, String password, boolean usarCache) {
+        // Fase 1: lectura corta (o acierto de caché)
+        Optional<Usuario> usuarioOpt = metricas.medirEtapa(LOGIN, LECTURA, () -> buscarPorUsername(username, usarCache));
+        if (usuarioOpt.isEmpty()) {
+            registrarResultado(LOGIN, username, ResultadoAutenticacion.USUARIO_INEXISTENTE, 0);
+            return Optional.empty();
+        }
 
         Usuario usuario = usuarioOpt.get();
 
-        // Bloqueo por usuario desactivado o bloqueado
-        if (!usuario.getActivo() || usuario.isBloqueado()) {
+        // Bloqueo por usuario desactivado o bloqueado. Un bloqueo expirado no
+        // impide el login: se levanta al registrar el resultado (fase 3)
+        if (!usuario.getActivo() || expiracionBloqueos.bloqueoVigente(usuario, LocalDateTime.now())) {
             log.warn("Usuario bloqueado o desactivado: {}", username);
+            registrarResultado(LOGIN, username, usuario.getActivo()
+                    ? ResultadoAutenticacion.BLOQUEADO : ResultadoAutenticacion.DESACTIVADO,
+                    usuario.getIntentosFallidos());
+            return Optional.empty();
+        }
+
+        // Fase 2: BCrypt sin conexión retenida
+        boolean passwordCorrecta = metricas.medirEtapa(LOGIN, BCRYPT, () -> PasswordHashingExecutor.esperar(
+                passwordUtil.verifyPasswordAsync(password, usuario.getPasswordHash())));
+
+        // Fase 3: una única sentencia UPDATE condicional sobre el estado actual
+        // de la fila, que pudo cambiar mientras se verificaba la contraseña
+        LocalDateTime ahora = LocalDateTime.now();
+        Optional<EstadoAcceso> estadoOpt = metricas.medirEtapa(LOGIN, ESCRITURA,
+                () -> registrarEstadoAcceso(usuario, passwordCorrecta, ahora));
+
+        if (estadoOpt.isEmpty()) {
+            usuarioCache.invalidar(usuario);
+            if (usarCache) {
+                // La copia leída pudo quedar obsoleta: se repite una vez contra la BBDD
+                return loginConIntentos(username, password, false);
+            }
+            log.warn("Usuario eliminado, desactivado, bloqueado o con contraseña cambiada durante el login: {}", username);
+            registrarResultado(LOGIN, username, ResultadoAutenticacion.CONFLICTO, usuario.getIntentosFallidos());
             return Optional.empty();
         }
 
-        // Contraseña correcta
-        if (passwordUtil.verifyPassword(password, usuario.getPasswordHash())) {
-            usuario.registrarLoginExitoso(); // actualiza último login y resetea intentos
-            usuarioRepository.save(usuario);
+        EstadoAcceso estado = estadoOpt.get();
+        usuario.setIntentosFallidos(estado.intentosFallidos());
+        usuario.setBloqueado(estado.bloqueado());
+        usuario.setFechaBloqueo(estado.bloqueado() ? ahora : null);
+        usuarioCache.actualizarEstadoAcceso(usuario.getId(), estado.intentosFallidos(), estado.bloqueado(),
+                usuario.getFechaBloqueo(), passwordCorrecta ? ahora : null);
+
+        if (passwordCorrecta && estado.puedeAcceder()) {
+            usuario.setUltimoLogin(ahora);
+            actualizadorHash.programarSiNecesario(usuario, password);
+            registrarResultado(LOGIN, username, ResultadoAutenticacion.EXITO, usuario.getIntentosFallidos());
             log.info("Login exitoso: {}", username);
             return Optional.of(usuario);
         }
 
-        // Contraseña incorrecta -> incrementar intentos fallidos y bloquear si corresponde
-        usuario.incrementarIntentosFallidos();
-        usuarioRepository.save(usuario);
-
-        if (usuario.isBloqueado()) {
-            log.warn("Usuario {} bloqueado por 3 intentos fallidos", username);
+        if (estado.bloqueado()) {
+            // registrarIntentoFallido solo se aplica a usuarios sin bloquear: es la transición
+            log.warn("Usuario {} bloqueado por {} intentos fallidos", username, Usuario.MAX_INTENTOS_FALLIDOS);
+            estadisticas.bloqueoAlConfirmar();
+            verificaciones.invalidar(username);
         }
 
+        registrarResultado(LOGIN, username, ResultadoAutenticacion.PASSWORD_INCORRECTA, usuario.getIntentosFallidos());
         return Optional.empty();
     }
+
+    /**
+     * Fase 3 de loginConIntentos: aplica el resultado de la verificación.
+     *
+     * @return Estado resultante, o vacío si el usuario cambió desde que se leyó
+     */
+    private Optional<EstadoAcceso> registrarEstadoAcceso(Usuario usuario, boolean passwordCorrecta, LocalDateTime ahora) {
+        if (expiracionBloqueos.bloqueoExpirado(usuario, ahora)) {
+            // La misma sentencia que registra el resultado levanta el bloqueo expirado
+            LocalDateTime limite = expiracionBloqueos.limite(ahora);
+            Optional<EstadoAcceso> estadoOpt = passwordCorrecta
+                    ? credencialRepository.registrarAccesoTrasBloqueo(usuario.getId(), usuario.getPasswordHash(), ahora, limite)
+                    : credencialRepository.registrarIntentoTrasBloqueo(usuario.getId(), usuario.getPasswordHash(), limite);
+            if (estadoOpt.isPresent()) {
+                estadisticas.desbloqueoAlConfirmar();
+                return estadoOpt;
+            }
+            // El barrido (o un desbloqueo manual) se adelantó: se registra como usuario sin bloqueo
+        }
+        if (!passwordCorrecta) {
+            return credencialRepository.registrarIntentoFallido(usuario.getId(), usuario.getPasswordHash(), ahora);
+        }
+        if (ultimoLoginBuffer.isHabilitado() && usuario.getIntentosFallidos() == 0) {
+            // Nada que resetear según la copia leída (quizá cacheada): se confirma con una
+            // lectura que tampoco haya intentos en la BBDD (p. ej. fallos en otro nodo) y el
+            // último login se difiere. Con intentos pendientes el reset sigue siendo síncrono:
+            // diferirlo competiría con el incremento atómico de un fallo posterior.
+            Optional<EstadoAcceso> estadoOpt = credencialRepository
+                    .findEstadoAccesoByIdAndPasswordHash(usuario.getId(), usuario.getPasswordHash())
+                    .filter(EstadoAcceso::puedeAcceder);
+            if (estadoOpt.isEmpty()) {
+                return estadoOpt;
+            }
+            if (estadoOpt.get().intentosFallidos() == 0) {
+                ultimoLoginBuffer.registrar(usuario.getId(), ahora);
+                return estadoOpt;
+            }
+        }
+        return credencialRepository.registrarAccesoCorrecto(usuario.getId(), usuario.getPasswordHash(), ahora);
+    }
 }
@@ -0,0 +1,164 @@
+package com.LoginWeb.marcos_Login_web.sesion;
+
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Sesión servida por SesionesEnCapasRepository.
+ *
+ * Trabaja sobre una copia en memoria (MapSession) y anota qué cambió:
+ * atributos modificados, intervalo de inactividad e ID. Al guardar, el
+ * repositorio escribe en JDBC solo esos cambios; si únicamente cambió el
+ * último acceso, la escritura se agrupa y se difiere.
+ */
+public final class SesionEnCapas implements Session {
+
+    private final SesionesEnCapasRepository<?> repositorio;
+    private final MapSession datos;
+    private String idOriginal;
+    private long ultimoAccesoPersistido;
+
+    // Sesión JDBC ya cargada: nueva, con cambio de ID o devuelta por una búsqueda por índice
+    private Session jdbc;
+    private boolean nueva;
+    private boolean intervaloModificado;
+    private final Set<String> atributosModificados = new HashSet<>();
+
+    SesionEnCapas(SesionesEnCapasRepository<?> repositorio, MapSession datos, Session jdbc,
+                  boolean nueva, long ultimoAccesoPersistido) {
+        this.repositorio = repositorio;
+        this.datos = datos;
+        this.idOriginal = datos.getId();
+        this.jdbc = jdbc;
+        this.nueva = nueva;
+        this.ultimoAccesoPersistido = ultimoAccesoPersistido;
+    }
+
+    @Override
+    public String getId() {
+        return datos.getId();
+    }
+
+    /**
+     * El nuevo ID lo genera la sesión JDBC (es la que lo persistirá), así que
+     * se carga en este momento si aún no lo estaba.
+     */
+    @Override
+    public String changeSessionId() {
+        if (jdbc == null) {
+            jdbc = repositorio.cargarJdbc(idOriginal);
+        }
+        if (jdbc == null) {
+            // Expiró o se eliminó en otro nodo: se persistirá como sesión nueva
+            jdbc = repositorio.crearJdbc();
+            nueva = true;
+            intervaloModificado = true;
+            atributosModificados.addAll(datos.getAttributeNames());
+        }
+        String nuevoId = jdbc.changeSessionId();
+        datos.setId(nuevoId);
+        return nuevoId;
+    }
+
+    @Override
+    public <T> T getAttribute(String attributeName) {
+        return datos.getAttribute(attributeName);
+    }
+
+    @Override
+    public Set<String> getAttributeNames() {
+        return datos.getAttributeNames();
+    }
+
+    @Override
+    public void setAttribute(String attributeName, Object attributeValue) {
+        datos.setAttribute(attributeName, attributeValue);
+        atributosModificados.add(attributeName);
+    }
+
+    @Override
+    public void removeAttribute(String attributeName) {
+        datos.removeAttribute(attributeName);
+        atributosModificados.add(attributeName);
+    }
+
+    @Override
+    public Instant getCreationTime() {
+        return datos.getCreationTime();
+    }
+
+    @Override
+    public void setLastAccessedTime(Instant lastAccessedTime) {
+        datos.setLastAccessedTime(lastAccessedTime);
+    }
+
+    @Override
+    public Instant getLastAccessedTime() {
+        return datos.getLastAccessedTime();
+    }
+
+    @Override
+    public void setMaxInactiveInterval(Duration interval) {
+        datos.setMaxInactiveInterval(interval);
+        intervaloModificado = true;
+    }
+
+    @Override
+    public Duration getMaxInactiveInterval() {
+        return datos.getMaxInactiveInterval();
+    }
+
+    @Override
+    public boolean isExpired() {
+        return datos.isExpired();
+    }
+
+    // ========================================
+    // ESTADO PARA EL REPOSITORIO
+    // ========================================
+
+    MapSession getDatos() {
+        return datos;
+    }
+
+    String getIdOriginal() {
+        return idOriginal;
+    }
+
+    Session getJdbc() {
+        return jdbc;
+    }
+
+    long getUltimoAccesoPersistido() {
+        return ultimoAccesoPersistido;
+    }
+
+    Set<String> getAtributosModificados() {
+        return atributosModificados;
+    }
+
+    boolean isIntervaloModificado() {
+        return intervaloModificado;
+    }
+
+    /** true si hay que escribir algo más que el último acceso. */
+    boolean requiereEscrituraCompleta() {
+        return nueva || intervaloModificado || !atributosModificados.isEmpty()
+                || !idOriginal.equals(datos.getId());
+    }
+
+    /** Tras persistirse: los siguientes cambios se cuentan desde aquí. */
+    void marcarGuardada(Session jdbcGuardada) {
+        idOriginal = datos.getId();
+        ultimoAccesoPersistido = datos.getLastAccessedTime().toEpochMilli();
+        jdbc = jdbcGuardada;
+        nueva = false;
+        intervaloModificado = false;
+        atributosModificados.clear();
+    }
+}
@@ -0,0 +1,353 @@
+package com.LoginWeb.marcos_Login_web.sesion;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.session.FindByIndexNameSessionRepository;
+import org.springframework.session.MapSession;
+import org.springframework.session.Session;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Repositorio de sesiones en dos niveles: caché en memoria delante del
+ * almacén JDBC de Spring Session (JdbcIndexedSessionRepository).
+ *
+ * - Lectura: una sesión cacheada se sirve sin consultar la BBDD durante
+ *   ttl; pasado ese tiempo se relee, así que los cambios hechos en otro
+ *   nodo (logout, nuevos atributos) se ven como mucho ttl después
+ * - Escritura de atributos, intervalo o ID: se carga la sesión JDBC y se le
+ *   aplican solo los cambios, que el repositorio JDBC escribe como delta
+ * - Último acceso: no se escribe en cada petición. Solo cuando avanzó más de
+ *   umbral respecto al valor persistido, y en lote con el resto de sesiones
+ *   en el siguiente volcado (cada intervalo)
+ *
+ * Caducidad: la comprobación en memoria usa el último acceso real. En BBDD
+ * EXPIRY_TIME va como mucho umbral + intervalo por detrás; si la caducidad
+ * persistida está a menos de dos intervalos, el último acceso se escribe en
+ * el momento, de modo que la limpieza de sesiones caducadas nunca elimina
+ * una sesión viva.
+ *
+ * @param <S> Tipo de sesión del repositorio JDBC (no es público)
+ */
+@Slf4j
+public class SesionesEnCapasRepository<S extends Session> implements FindByIndexNameSessionRepository<SesionEnCapas> {
+
+    /** Copia cacheada de una sesión y último acceso escrito en BBDD. */
+    private record Entrada(MapSession datos, long ultimoAccesoPersistido, long cargadaEn) {
+    }
+
+    /** Último acceso pendiente de escribir y caducidad resultante (epoch ms). */
+    private record AccesoPendiente(long ultimoAcceso, long expira) {
+    }
+
+    private final FindByIndexNameSessionRepository<S> delegado;
+    private final JdbcTemplate jdbcTemplate;
+    private final String sqlUltimoAcceso;
+    private final int tamañoMaximo;
+    private final long ttlNanos;
+    private final long umbralMillis;
+    private final long intervaloMillis;
+
+    private final Map<String, Entrada> cache;
+    private final Map<String, AccesoPendiente> pendientes = new ConcurrentHashMap<>();
+    private final ReentrantLock volcando = new ReentrantLock();
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder escriturasCompletas = new LongAdder();
+    private final LongAdder accesosAgrupados = new LongAdder();
+    private final LongAdder accesosEscritos = new LongAdder();
+
+    private SesionesEnCapasRepository(FindByIndexNameSessionRepository<S> delegado, JdbcTemplate jdbcTemplate,
+                                      String tabla, int tamañoMaximo, long ttlSegundos,
+                                      long umbralSegundos, long intervaloMillis) {
+        this.delegado = delegado;
+        this.jdbcTemplate = jdbcTemplate;
+        this.sqlUltimoAcceso = "UPDATE " + tabla + " SET LAST_ACCESS_TIME = ?, EXPIRY_TIME = ? " +
+                "WHERE SESSION_ID = ? AND LAST_ACCESS_TIME < ?";
+        this.tamañoMaximo = tamañoMaximo;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSegundos);
+        this.umbralMillis = TimeUnit.SECONDS.toMillis(umbralSegundos);
+        this.intervaloMillis = intervaloMillis;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                return size() > SesionesEnCapasRepository.this.tamañoMaximo;
+            }
+        };
+    }
+
+    /**
+     * Envuelve un repositorio JDBC. Método de fábrica: el tipo de sesión de
+     * JdbcIndexedSessionRepository no es público y solo puede inferirse.
+     */
+    public static <S extends Session> SesionesEnCapasRepository<S> envolver(
+            FindByIndexNameSessionRepository<S> delegado, JdbcTemplate jdbcTemplate, String tabla,
+            int tamañoMaximo, long ttlSegundos, long umbralSegundos, long intervaloMillis) {
+        return new SesionesEnCapasRepository<>(delegado, jdbcTemplate, tabla, tamañoMaximo,
+                ttlSegundos, umbralSegundos, intervaloMillis);
+    }
+
+    // ========================================
+    // SessionRepository
+    // ========================================
+
+    @Override
+    public SesionEnCapas createSession() {
+        S jdbc = delegado.createSession();
+        MapSession datos = new MapSession(jdbc);
+        return new SesionEnCapas(this, datos, jdbc, true, datos.getLastAccessedTime().toEpochMilli());
+    }
+
+    @Override
+    public void save(SesionEnCapas sesion) {
+        if (sesion.requiereEscrituraCompleta()) {
+            guardarCompleta(sesion);
+            return;
+        }
+
+        MapSession datos = sesion.getDatos();
+        long ultimoAcceso = datos.getLastAccessedTime().toEpochMilli();
+        long persistido = sesion.getUltimoAccesoPersistido();
+        cachear(datos, persistido, false);
+
+        if (ultimoAcceso - persistido < umbralMillis) {
+            return;
+        }
+
+        long expira = expiracion(datos, ultimoAcceso);
+        long expiraPersistida = expiracion(datos, persistido);
+        if (expiraPersistida - System.currentTimeMillis() < 2 * intervaloMillis) {
+            // A punto de caducar en BBDD: no se puede esperar al próximo volcado
+            escribirUltimoAcceso(datos.getId(), ultimoAcceso, expira);
+            return;
+        }
+
+        pendientes.merge(datos.getId(), new AccesoPendiente(ultimoAcceso, expira),
+                (a, b) -> a.ultimoAcceso() >= b.ultimoAcceso() ? a : b);
+        accesosAgrupados.increment();
+    }
+
+    /**
+     * Sesión nueva o con cambios de atributos, intervalo o ID: se aplican
+     * solo esos cambios sobre la sesión JDBC y la guarda el repositorio JDBC.
+     */
+    @SuppressWarnings("unchecked")
+    private void guardarCompleta(SesionEnCapas sesion) {
+        S jdbc = (S) sesion.getJdbc();
+        if (jdbc == null) {
+            jdbc = delegado.findById(sesion.getIdOriginal());
+            if (jdbc == null) {
+                // Caducada o eliminada en otro nodo desde que se leyó
+                invalidar(sesion.getIdOriginal());
+                return;
+            }
+        }
+
+        MapSession datos = sesion.getDatos();
+        for (String nombre : sesion.getAtributosModificados()) {
+            jdbc.setAttribute(nombre, datos.getAttribute(nombre));
+        }
+        if (sesion.isIntervaloModificado()) {
+            jdbc.setMaxInactiveInterval(datos.getMaxInactiveInterval());
+        }
+        jdbc.setLastAccessedTime(datos.getLastAccessedTime());
+
+        delegado.save(jdbc);
+        escriturasCompletas.increment();
+
+        if (!sesion.getIdOriginal().equals(datos.getId())) {
+            invalidar(sesion.getIdOriginal());
+        }
+        pendientes.remove(datos.getId());
+        sesion.marcarGuardada(jdbc);
+        cachear(datos, datos.getLastAccessedTime().toEpochMilli(), true);
+    }
+
+    @Override
+    public SesionEnCapas findById(String id) {
+        Entrada entrada;
+        synchronized (cache) {
+            entrada = cache.get(id);
+        }
+
+        if (entrada != null && System.nanoTime() - entrada.cargadaEn() < ttlNanos) {
+            aciertos.increment();
+            MapSession datos = new MapSession(entrada.datos());
+            if (datos.isExpired()) {
+                deleteById(id);
+                return null;
+            }
+            return new SesionEnCapas(this, datos, null, false, entrada.ultimoAccesoPersistido());
+        }
+
+        fallos.increment();
+        S jdbc = delegado.findById(id);
+        if (jdbc == null) {
+            invalidar(id);
+            return null;
+        }
+
+        MapSession datos = new MapSession(jdbc);
+        long persistido = jdbc.getLastAccessedTime().toEpochMilli();
+        // Un último acceso aún sin volcar es más reciente que el leído
+        if (entrada != null && entrada.datos().getLastAccessedTime().isAfter(datos.getLastAccessedTime())) {
+            datos.setLastAccessedTime(entrada.datos().getLastAccessedTime());
+        }
+        cachear(datos, persistido, true);
+        return new SesionEnCapas(this, new MapSession(datos), null, false, persistido);
+    }
+
+    @Override
+    public void deleteById(String id) {
+        invalidar(id);
+        delegado.deleteById(id);
+    }
+
+    @Override
+    public Map<String, SesionEnCapas> findByIndexNameAndIndexValue(String indexName, String indexValue) {
+        Map<String, S> encontradas = delegado.findByIndexNameAndIndexValue(indexName, indexValue);
+        Map<String, SesionEnCapas> resultado = new HashMap<>(encontradas.size());
+        encontradas.forEach((id, jdbc) -> resultado.put(id,
+                new SesionEnCapas(this, new MapSession(jdbc), jdbc, false,
+                        jdbc.getLastAccessedTime().toEpochMilli())));
+        return resultado;
+    }
+
+    // ========================================
+    // ÚLTIMO ACCESO EN LOTE
+    // ========================================
+
+    /**
+     * Escribe en un único batch los últimos accesos pendientes.
+     */
+    @Scheduled(fixedDelayString = "${sesiones.ultimo-acceso.intervalo-ms:1000}")
+    public void volcar() {
+        if (pendientes.isEmpty() || !volcando.tryLock()) {
+            return;
+        }
+        try {
+            List<Map.Entry<String, AccesoPendiente>> lote = new ArrayList<>(pendientes.entrySet());
+            List<Object[]> parametros = new ArrayList<>(lote.size());
+            for (Map.Entry<String, AccesoPendiente> e : lote) {
+                AccesoPendiente a = e.getValue();
+                parametros.add(new Object[]{a.ultimoAcceso(), a.expira(), e.getKey(), a.ultimoAcceso()});
+            }
+
+            jdbcTemplate.batchUpdate(sqlUltimoAcceso, parametros);
+            accesosEscritos.add(lote.size());
+
+            for (Map.Entry<String, AccesoPendiente> e : lote) {
+                // Solo se retira si no llegó un acceso posterior durante el volcado
+                pendientes.remove(e.getKey(), e.getValue());
+                marcarPersistido(e.getKey(), e.getValue().ultimoAcceso());
+            }
+        } catch (DataAccessException e) {
+            log.error("Error volcando el último acceso de {} sesiones: {}", pendientes.size(), e.getMessage());
+        } finally {
+            volcando.unlock();
+        }
+    }
+
+    private void escribirUltimoAcceso(String id, long ultimoAcceso, long expira) {
+        jdbcTemplate.update(sqlUltimoAcceso, ultimoAcceso, expira, id, ultimoAcceso);
+        accesosEscritos.increment();
+        pendientes.remove(id);
+        marcarPersistido(id, ultimoAcceso);
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        volcar();
+    }
+
+    // ========================================
+    // CACHÉ
+    // ========================================
+
+    private void cachear(MapSession datos, long ultimoAccesoPersistido, boolean recienLeida) {
+        MapSession copia = new MapSession(datos);
+        synchronized (cache) {
+            Entrada previa = cache.get(datos.getId());
+            long cargadaEn = recienLeida || previa == null ? System.nanoTime() : previa.cargadaEn();
+            long persistido = previa != null ? Math.max(previa.ultimoAccesoPersistido(), ultimoAccesoPersistido)
+                    : ultimoAccesoPersistido;
+            cache.put(datos.getId(), new Entrada(copia, persistido, cargadaEn));
+        }
+    }
+
+    private void marcarPersistido(String id, long ultimoAcceso) {
+        synchronized (cache) {
+            Entrada entrada = cache.get(id);
+            if (entrada != null && entrada.ultimoAccesoPersistido() < ultimoAcceso) {
+                cache.put(id, new Entrada(entrada.datos(), ultimoAcceso, entrada.cargadaEn()));
+            }
+        }
+    }
+
+    private void invalidar(String id) {
+        synchronized (cache) {
+            cache.remove(id);
+        }
+        pendientes.remove(id);
+    }
+
+    private static long expiracion(MapSession datos, long ultimoAcceso) {
+        long inactividad = datos.getMaxInactiveInterval().toMillis();
+        return inactividad < 0 ? Long.MAX_VALUE : ultimoAcceso + inactividad;
+    }
+
+    // ========================================
+    // CONSULTA
+    // ========================================
+
+    /** La sesión JDBC con ese ID, para SesionEnCapas.changeSessionId. */
+    Session cargarJdbc(String id) {
+        return delegado.findById(id);
+    }
+
+    Session crearJdbc() {
+        return delegado.createSession();
+    }
+
+    public int getTamaño() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    public int getPendientes() {
+        return pendientes.size();
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    public long getEscriturasCompletas() {
+        return escriturasCompletas.sum();
+    }
+
+    public long getAccesosAgrupados() {
+        return accesosAgrupados.sum();
+    }
+
+    public long getAccesosEscritos() {
+        return accesosEscritos.sum();
+    }
+}
@@ -0,0 +1,85 @@
+package com.LoginWeb.marcos_Login_web.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Codificación de los cursores de paginación keyset.
+ *
+ * El cursor es opaco para el cliente (Base64 URL-safe) y contiene la clave
+ * de ordenación de la última fila devuelta:
+ * - Orden por ID:             "i:{id}"
+ * - Orden por fecha + ID:     "f:{fechaCreacion}|{id}"
+ */
+public final class CursorUtil {
+
+    private static final String PREFIJO_ID = "i:";
+    private static final String PREFIJO_FECHA = "f:";
+
+    private CursorUtil() {
+    }
+
+    /**
+     * Posición de un cursor ordenado por fecha de creación (desempate por ID).
+     */
+    public record PosicionFecha(LocalDateTime fecha, Long id) {
+    }
+
+    public static String codificarId(Long id) {
+        return codificar(PREFIJO_ID + id);
+    }
+
+    /**
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static Long decodificarId(String cursor) {
+        String valor = decodificar(cursor, PREFIJO_ID);
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+
+    public static String codificarFecha(LocalDateTime fecha, Long id) {
+        return codificar(PREFIJO_FECHA + fecha + "|" + id);
+    }
+
+    /**
+     * @throws IllegalArgumentException si el cursor no es válido
+     */
+    public static PosicionFecha decodificarFecha(String cursor) {
+        String valor = decodificar(cursor, PREFIJO_FECHA);
+        int separador = valor.lastIndexOf('|');
+        if (separador < 0) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+        try {
+            return new PosicionFecha(
+                    LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (DateTimeParseException | NumberFormatException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+    }
+
+    private static String codificar(String valor) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodificar(String cursor, String prefijo) {
+        String valor;
+        try {
+            valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+        if (!valor.startsWith(prefijo)) {
+            throw new IllegalArgumentException("Cursor de paginación inválido");
+        }
+        return valor.substring(prefijo.length());
+    }
+}
@@ -0,0 +1,14 @@
+package com.LoginWeb.marcos_Login_web.util;
+
+/**
+ * Se lanza cuando el ejecutor de hashing no puede aceptar más trabajo:
+ * la cola está llena o la tarea esperó más de lo permitido.
+ *
+ * Es un rechazo rápido: el llamante debe reintentar más tarde.
+ */
+public class HashingSaturadoException extends IllegalStateException {
+
+    public HashingSaturadoException(String mensaje) {
+        super(mensaje);
+    }
+}
@@ -0,0 +1,177 @@
+package com.LoginWeb.marcos_Login_web.util;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Ejecutor dedicado y acotado para las operaciones BCrypt.
+ *
+ * - Un hilo por núcleo: el hashing nunca ocupa más CPU que la disponible
+ * - Cola acotada: si se llena, la tarea se rechaza al instante
+ * - Espera máxima: una tarea que pasó demasiado tiempo en cola se descarta
+ *   sin ejecutarse (el cliente ya habrá desistido)
+ *
+ * Configuración (application.properties):
+ * - hashing.hilos: 0 = número de núcleos
+ * - hashing.cola-maxima: tareas pendientes admitidas
+ * - hashing.espera-maxima-ms: tiempo máximo en cola
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final int capacidadCola;
+    private final long esperaMaximaNanos;
+
+    private final LongAdder iniciadas = new LongAdder();
+    private final LongAdder completadas = new LongAdder();
+    private final LongAdder rechazadas = new LongAdder();
+    private final LongAdder esperaAcumuladaNanos = new LongAdder();
+    private final LongAccumulator esperaPicoNanos = new LongAccumulator(Long::max, 0);
+
+    public PasswordHashingExecutor(@Value("${hashing.hilos:0}") int hilos,
+                                   @Value("${hashing.cola-maxima:200}") int colaMaxima,
+                                   @Value("${hashing.espera-maxima-ms:2000}") long esperaMaximaMs) {
+        int numHilos = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+
+        this.capacidadCola = colaMaxima;
+        this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        this.executor = new ThreadPoolExecutor(numHilos, numHilos, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(colaMaxima),
+                r -> {
+                    Thread t = new Thread(r, "hashing-" + contador.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        log.info("Ejecutor de hashing: {} hilos, cola de {} tareas, espera máxima {} ms",
+                numHilos, colaMaxima, esperaMaximaMs);
+    }
+
+    /**
+     * Encola una tarea de hashing.
+     *
+     * @return Future con el resultado, o fallido con HashingSaturadoException
+     *         si la cola está llena o la espera superó el máximo
+     */
+    public <T> CompletableFuture<T> ejecutar(Supplier<T> tarea) {
+        CompletableFuture<T> resultado = new CompletableFuture<>();
+        long encolada = System.nanoTime();
+
+        try {
+            executor.execute(() -> {
+                long espera = System.nanoTime() - encolada;
+                iniciadas.increment();
+                esperaAcumuladaNanos.add(espera);
+                esperaPicoNanos.accumulate(espera);
+
+                if (espera > esperaMaximaNanos) {
+                    rechazadas.increment();
+                    resultado.completeExceptionally(new HashingSaturadoException(
+                            "Tarea de hashing descartada tras " + TimeUnit.NANOSECONDS.toMillis(espera) + " ms en cola"));
+                    return;
+                }
+
+                try {
+                    resultado.complete(tarea.get());
+                } catch (Throwable e) {
+                    resultado.completeExceptionally(e);
+                } finally {
+                    completadas.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rechazadas.increment();
+            resultado.completeExceptionally(new HashingSaturadoException(
+                    "Cola de hashing llena (" + capacidadCola + " tareas pendientes)"));
+        }
+
+        return resultado;
+    }
+
+    /**
+     * Espera el resultado de una tarea desenvolviendo la CompletionException,
+     * de modo que el llamante recibe la excepción original.
+     */
+    public static <T> T esperar(CompletableFuture<T> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    // ========================================
+    // MÉTRICAS DE CAPACIDAD
+    // ========================================
+
+    public int getHilos() {
+        return executor.getCorePoolSize();
+    }
+
+    public int getCapacidadCola() {
+        return capacidadCola;
+    }
+
+    public int getProfundidadCola() {
+        return executor.getQueue().size();
+    }
+
+    public int getTareasEnCurso() {
+        return executor.getActiveCount();
+    }
+
+    public long getTareasCompletadas() {
+        return completadas.sum();
+    }
+
+    public long getTareasRechazadas() {
+        return rechazadas.sum();
+    }
+
+    /**
+     * Tiempo medio en cola (ms) desde el arranque.
+     */
+    public double getEsperaMediaMs() {
+        long total = iniciadas.sum();
+        return total == 0 ? 0 : esperaAcumuladaNanos.sum() / 1_000_000.0 / total;
+    }
+
+    /**
+     * Mayor tiempo en cola observado (ms) desde el arranque.
+     */
+    public double getEsperaPicoMs() {
+        return esperaPicoNanos.get() / 1_000_000.0;
+    }
+
+    public long getEsperaMaximaMs() {
+        return TimeUnit.NANOSECONDS.toMillis(esperaMaximaNanos);
+    }
+
+    @PreDestroy
+    public void cerrar() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(5, TimeUnit.SECONDS)) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -1,17 +1,180 @@
 package com.LoginWeb.marcos_Login_web.util;
 
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Utilidad para manejo seguro de contraseñas con BCrypt.
+ *
+ * Todo el hashing de la aplicación pasa por PasswordHashingExecutor, que
+ * limita la CPU dedicada a BCrypt y rechaza trabajo cuando está saturado.
+ *
+ * Formato de hash versionado: "{bcrypt}$2a$12$...". El prefijo identifica
+ * el algoritmo y el propio hash BCrypt lleva el coste, así que conviven
+ * hashes de distintos costes y los antiguos sin prefijo siguen verificándose.
+ * necesitaRehash() indica si un hash debe regenerarse con la configuración actual.
+ *
+ * Coste objetivo y ventana aceptada:
+ * - Los hashes nuevos (altas, cambios, rehash) usan el coste objetivo
+ * - Un hash se regenera en el login si su coste queda fuera de la ventana
+ *   [coste-minimo, coste-maximo], por arriba o por abajo: el coste de la
+ *   flota sube o baja gradualmente según entran los usuarios
+ * - La ventana es configuración de todo el clúster. Con la ventana por
+ *   defecto (solo el coste objetivo) todos los nodos deben tener el mismo
+ *   coste; si no, unos regenerarían los hashes de otros en cada login. Para
+ *   cambiar el coste sin que los nodos se pisen durante el despliegue: primero
+ *   ampliar la ventana en todos para admitir ambos costes, después cambiar el
+ *   objetivo y por último cerrar la ventana en el nuevo coste
+ * - Con la calibración, cada nodo elige su coste objetivo dentro de la ventana
+ *   según su CPU; ningún nodo regenera hashes que otro generó dentro de ella
+ *
+ * Configuración (application.properties):
+ * - hashing.bcrypt.coste: coste objetivo (sin calibración)
+ * - hashing.bcrypt.coste-minimo / coste-maximo: ventana aceptada (0 = el
+ *   coste objetivo)
+ * - hashing.bcrypt.calibrar: medir al arrancar el coste adecuado para esta
+ *   máquina y usarlo como objetivo, limitado a la ventana
+ * - hashing.bcrypt.latencia-objetivo-ms: tiempo por hash buscado al calibrar
  */
 @Component
+@Slf4j
 public class PasswordUtil {
 
-    // Strength = 12 (factor de coste). Valores recomendados: 10-14
-    // Mayor valor = más seguro pero más lento
-    private static final BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(12);
+    public static final String ID_BCRYPT = "bcrypt";
+    private static final String PREFIJO_BCRYPT = "{" + ID_BCRYPT + "}";
+
+    // Límites de la calibración: por debajo de 10 BCrypt deja de ser
+    // razonablemente seguro; por encima de 16 un hash pasa de varios segundos
+    private static final int COSTE_POR_DEFECTO = 12;
+    private static final int COSTE_MINIMO = 10;
+    private static final int COSTE_MAXIMO = 16;
+
+    // Encoder de los métodos estáticos; se sustituye por el configurado al arrancar
+    private static volatile PasswordEncoder encoder = crearEncoder(COSTE_POR_DEFECTO);
+
+    private final PasswordHashingExecutor hashingExecutor;
+    private final PasswordEncoder codificador;
+    private final int coste;
+    private final int costeMinimo;
+    private final int costeMaximo;
+
+    public PasswordUtil(PasswordHashingExecutor hashingExecutor,
+                        @Value("${hashing.bcrypt.coste:" + COSTE_POR_DEFECTO + "}") int coste,
+                        @Value("${hashing.bcrypt.coste-minimo:0}") int costeMinimo,
+                        @Value("${hashing.bcrypt.coste-maximo:0}") int costeMaximo,
+                        @Value("${hashing.bcrypt.calibrar:false}") boolean calibrar,
+                        @Value("${hashing.bcrypt.latencia-objetivo-ms:250}") long latenciaObjetivoMs) {
+        this.costeMinimo = costeMinimo > 0 ? costeMinimo : coste;
+        this.costeMaximo = costeMaximo > 0 ? costeMaximo : coste;
+        validarCoste(coste, "hashing.bcrypt.coste");
+        validarCoste(this.costeMinimo, "hashing.bcrypt.coste-minimo");
+        validarCoste(this.costeMaximo, "hashing.bcrypt.coste-maximo");
+        if (this.costeMinimo > coste || coste > this.costeMaximo) {
+            throw new IllegalArgumentException("hashing.bcrypt.coste debe estar entre coste-minimo y coste-maximo");
+        }
+
+        this.hashingExecutor = hashingExecutor;
+        this.coste = calibrar
+                ? Math.clamp(calibrar(latenciaObjetivoMs), this.costeMinimo, this.costeMaximo)
+                : coste;
+        this.codificador = crearEncoder(this.coste);
+        encoder = codificador;
+
+        log.info("Coste BCrypt: {} (ventana aceptada {}-{}{})", this.coste, this.costeMinimo, this.costeMaximo,
+                calibrar ? ", calibrado para " + latenciaObjetivoMs + " ms por hash" : "");
+    }
+
+    private static void validarCoste(int coste, String propiedad) {
+        if (coste < 4 || coste > 31) {
+            throw new IllegalArgumentException(propiedad + " debe estar entre 4 y 31");
+        }
+    }
+
+    /**
+     * Mayor coste cuyo hash no supera la latencia objetivo en esta máquina,
+     * entre COSTE_MINIMO y COSTE_MAXIMO. Cada punto de coste duplica el tiempo,
+     * así que basta con medir el coste mínimo.
+     */
+    static int calibrar(long latenciaObjetivoMs) {
+        BCryptPasswordEncoder prueba = new BCryptPasswordEncoder(COSTE_MINIMO);
+        prueba.encode("calibracion"); // calentamiento
+
+        long mejorNanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long inicio = System.nanoTime();
+            prueba.encode("calibracion");
+            mejorNanos = Math.min(mejorNanos, System.nanoTime() - inicio);
+        }
+
+        return costeParaLatencia(mejorNanos / 1_000_000.0, latenciaObjetivoMs);
+    }
+
+    /** Mayor coste que cabe en la latencia objetivo si el coste mínimo tarda msCosteMinimo. */
+    static int costeParaLatencia(double msCosteMinimo, long latenciaObjetivoMs) {
+        int coste = COSTE_MINIMO;
+        double ms = msCosteMinimo;
+        while (coste < COSTE_MAXIMO && ms * 2 <= latenciaObjetivoMs) {
+            coste++;
+            ms *= 2;
+        }
+        return coste;
+    }
+
+    private static PasswordEncoder crearEncoder(int coste) {
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(coste);
+        DelegatingPasswordEncoder delegado = new DelegatingPasswordEncoder(ID_BCRYPT, Map.of(ID_BCRYPT, bcrypt));
+        // Hashes anteriores al formato versionado: BCrypt sin prefijo
+        delegado.setDefaultPasswordEncoderForMatches(bcrypt);
+        return delegado;
+    }
+
+    /** Factor de coste con el que se generan los hashes nuevos. */
+    public int getCoste() {
+        return coste;
+    }
+
+    public int getCosteMinimo() {
+        return costeMinimo;
+    }
+
+    public int getCosteMaximo() {
+        return costeMaximo;
+    }
+
+    /**
+     * Indica si un hash se generó con otro algoritmo, el formato sin versionar
+     * o un coste fuera de la ventana aceptada (mayor o menor), y por tanto debe
+     * regenerarse en el próximo login correcto.
+     */
+    public boolean necesitaRehash(String hash) {
+        int costeHash = costeDe(hash);
+        return costeHash < costeMinimo || costeHash > costeMaximo;
+    }
+
+    /**
+     * Coste de un hash "{bcrypt}$2a$NN$...", o -1 si no tiene ese formato.
+     */
+    static int costeDe(String hash) {
+        if (hash == null || !hash.startsWith(PREFIJO_BCRYPT)) {
+            return -1;
+        }
+        String bcrypt = hash.substring(PREFIJO_BCRYPT.length());
+        if (bcrypt.length() < 7 || bcrypt.charAt(0) != '$' || bcrypt.charAt(3) != '$' || bcrypt.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(bcrypt.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
 
     /**
      * Hashea una contraseña en texto plano.
@@ -21,10 +184,19 @@ public class PasswordUtil {
      *
      * Ejemplo:
      *   Input:  "password123"
-     *   Output: "$2a$12$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy"
+     *   Output: "{bcrypt}$2a$12$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy"
      */
     public String hashPassword(String rawPassword) {
-        return encoder.encode(rawPassword);
+        return PasswordHashingExecutor.esperar(hashPasswordAsync(rawPassword));
+    }
+
+    /**
+     * Variante asíncrona de hashPassword, ejecutada en el ejecutor de hashing.
+     *
+     * @return Future con el hash, o fallido con HashingSaturadoException
+     */
+    public CompletableFuture<String> hashPasswordAsync(String rawPassword) {
+        return hashingExecutor.ejecutar(() -> codificador.encode(rawPassword));
     }
 
     /**
@@ -39,17 +211,35 @@ public class PasswordUtil {
      *   verifyPassword("wrongpass", "$2a$12$N9qo8u...") → false
      */
     public boolean verifyPassword(String rawPassword, String hashedPassword) {
-        return encoder.matches(rawPassword, hashedPassword);
+        return PasswordHashingExecutor.esperar(verifyPasswordAsync(rawPassword, hashedPassword));
+    }
+
+    /**
+     * Variante asíncrona de verifyPassword, ejecutada en el ejecutor de hashing.
+     *
+     * @return Future con el resultado, o fallido con HashingSaturadoException
+     */
+    public CompletableFuture<Boolean> verifyPasswordAsync(String rawPassword, String hashedPassword) {
+        return hashingExecutor.ejecutar(() -> codificador.matches(rawPassword, hashedPassword));
     }
 
     /**
      * Genera un hash BCrypt usando el encoder estático.
      * Útil para generar hashes desde la consola o scripts.
+     * Usa el coste configurado una vez arrancado Spring (12 antes).
      */
     public static String generateHash(String password) {
         return encoder.encode(password);
     }
 
+    /**
+     * Verifica una contraseña usando el encoder estático, en el hilo llamante.
+     * Útil fuera del contexto Spring (entidades, scripts).
+     */
+    public static boolean matches(String rawPassword, String hashedPassword) {
+        return encoder.matches(rawPassword, hashedPassword);
+    }
+
     // Método main para generar hashes de prueba
     public static void main(String[] args) {
         String[] passwords = {"password123", "admin", "usuario1"};
@@ -0,0 +1,8 @@
+-- ===================================================
+-- Índice para la paginación por cursor de usuarios activos
+-- ===================================================
+-- Con ddl-auto=validate Hibernate no crea índices: aplicar manualmente.
+-- InnoDB añade la clave primaria (id) a cada índice secundario, así que
+-- (activo, fecha_creacion) cubre también el desempate por id.
+
+CREATE INDEX idx_activo_fecha_creacion ON usuarios (activo, fecha_creacion);
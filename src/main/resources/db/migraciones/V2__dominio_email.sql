@@ -0,0 +1,23 @@
+-- ===================================================
+-- Dominio de email normalizado e indexado
+-- ===================================================
+-- Sustituye a LIKE '%dominio' sobre email (no puede usar índice) en las
+-- búsquedas y recuentos por dominio. La aplicación lo rellena al insertar y
+-- actualizar (Usuario.dominioDe); aquí se rellenan las filas existentes.
+-- Con ddl-auto=validate Hibernate no crea columnas ni índices: aplicar
+-- manualmente antes de desplegar la versión que mapea dominio_email.
+
+ALTER TABLE usuarios ADD COLUMN dominio_email VARCHAR(100) NULL;
+
+-- Relleno de todas las filas en una sola sentencia: el NOT NULL siguiente
+-- fallaría (modo estricto) o dejaría '' (modo no estricto) en cualquier fila
+-- sin rellenar, y el script se ejecuta de principio a fin.
+UPDATE usuarios
+   SET dominio_email = LOWER(TRIM(SUBSTRING_INDEX(email, '@', -1)))
+ WHERE dominio_email IS NULL;
+
+ALTER TABLE usuarios MODIFY dominio_email VARCHAR(100) NOT NULL;
+
+-- (dominio_email, activo): igualdad por dominio y recuento de activos
+-- resueltos solo con el índice.
+CREATE INDEX idx_dominio_email_activo ON usuarios (dominio_email, activo);
@@ -0,0 +1,26 @@
+-- ===================================================
+-- Consultas por fecha de alta y resumen diario de altas
+-- ===================================================
+-- Con ddl-auto=validate Hibernate no crea tablas ni índices: aplicar manualmente.
+
+-- Rango sobre fecha_creacion para todos los usuarios (idx_activo_fecha_creacion
+-- solo sirve cuando se filtra también por activo).
+CREATE INDEX idx_fecha_creacion ON usuarios (fecha_creacion);
+
+-- Una fila por día; la mantiene la aplicación (ResumenAltasDiarias) sumando deltas.
+CREATE TABLE resumen_altas_diarias (
+    dia             DATE   NOT NULL PRIMARY KEY,
+    altas           BIGINT NOT NULL DEFAULT 0,
+    desactivaciones BIGINT NOT NULL DEFAULT 0,
+    reactivaciones  BIGINT NOT NULL DEFAULT 0
+);
+
+-- Altas históricas desde usuarios (un recorrido de idx_fecha_creacion).
+-- El histórico de desactivaciones no se conserva: empieza en cero.
+-- También sirve para recalcular las altas de un periodo tras una parada
+-- abrupta (acotar fecha_creacion y usar ON DUPLICATE KEY UPDATE altas = VALUES(altas)).
+INSERT INTO resumen_altas_diarias (dia, altas)
+SELECT DATE(fecha_creacion), COUNT(*)
+  FROM usuarios
+ WHERE fecha_creacion IS NOT NULL
+ GROUP BY DATE(fecha_creacion);
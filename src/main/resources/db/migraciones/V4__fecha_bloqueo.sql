@@ -0,0 +1,17 @@
+-- ===================================================
+-- Expiración de los bloqueos por intentos fallidos
+-- ===================================================
+-- fecha_bloqueo registra cuándo se bloqueó el usuario; el bloqueo expira
+-- pasado bloqueo.duracion-minutos (ExpiracionBloqueos).
+-- Con ddl-auto=validate Hibernate no crea columnas ni índices: aplicar
+-- manualmente antes de desplegar la versión que mapea fecha_bloqueo.
+
+ALTER TABLE usuarios ADD COLUMN fecha_bloqueo DATETIME(6) NULL;
+
+-- Los bloqueos existentes no tienen fecha: empiezan a contar desde la
+-- migración. Sin fecha, un bloqueo no expira nunca.
+UPDATE usuarios SET fecha_bloqueo = NOW(6) WHERE bloqueado = true;
+
+-- (bloqueado, fecha_bloqueo): el barrido recorre solo el rango de
+-- bloqueos expirados, en orden de antigüedad.
+CREATE INDEX idx_bloqueado_fecha_bloqueo ON usuarios (bloqueado, fecha_bloqueo);
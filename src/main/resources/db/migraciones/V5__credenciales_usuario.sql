@@ -0,0 +1,43 @@
+-- ===================================================
+-- Credenciales y estado de acceso en su propia tabla
+-- ===================================================
+-- La contraseña, los intentos fallidos, el bloqueo y el último login pasan
+-- de usuarios a credenciales_usuario (CredencialUsuario), con la misma
+-- clave primaria. Cada login escribe solo esta fila estrecha; los listados
+-- de perfiles leen solo usuarios.
+-- Con ddl-auto=validate Hibernate no crea tablas ni índices: aplicar
+-- manualmente antes de desplegar la versión que mapea CredencialUsuario.
+-- Las columnas antiguas de usuarios no se retiran aquí sino en V7, tras
+-- comprobar la copia.
+
+CREATE TABLE credenciales_usuario (
+    usuario_id        BIGINT       NOT NULL,
+    password_hash     VARCHAR(255) NOT NULL,
+    intentos_fallidos INT          NOT NULL DEFAULT 0,
+    bloqueado         BIT(1)       NOT NULL DEFAULT b'0',
+    fecha_bloqueo     DATETIME(6)  NULL,
+    ultimo_login      DATETIME(6)  NULL,
+    PRIMARY KEY (usuario_id),
+    -- Borrar un usuario (también el DELETE masivo por JDBC) borra su credencial
+    CONSTRAINT fk_credenciales_usuario FOREIGN KEY (usuario_id)
+        REFERENCES usuarios (id) ON DELETE CASCADE
+);
+
+-- Copia de todas las filas en una sola sentencia (con la versión anterior
+-- ya detenida: sus logins escriben en las columnas de usuarios). Se
+-- comprueba en V7 antes de retirar nada.
+INSERT INTO credenciales_usuario
+       (usuario_id, password_hash, intentos_fallidos, bloqueado, fecha_bloqueo, ultimo_login)
+SELECT u.id, u.password_hash, u.intentos_fallidos, u.bloqueado, u.fecha_bloqueo, u.ultimo_login
+  FROM usuarios u;
+
+-- (bloqueado, fecha_bloqueo): el barrido de bloqueos expirados, ahora
+-- sobre la tabla de credenciales.
+CREATE INDEX idx_bloqueado_fecha_bloqueo ON credenciales_usuario (bloqueado, fecha_bloqueo);
+
+-- Las columnas antiguas se conservan hasta V7, pero la nueva versión ya no
+-- las escribe: sus altas no deben fallar por password_hash NOT NULL.
+ALTER TABLE usuarios
+    MODIFY password_hash VARCHAR(255) NULL,
+    MODIFY intentos_fallidos INT NOT NULL DEFAULT 0,
+    MODIFY bloqueado BIT(1) NOT NULL DEFAULT b'0';
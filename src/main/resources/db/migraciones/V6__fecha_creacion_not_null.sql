@@ -0,0 +1,15 @@
+-- ===================================================
+-- fecha_creacion obligatoria
+-- ===================================================
+-- fecha_creacion es la clave de ordenación de la paginación por cursor
+-- (CursorUtil.codificarFecha): una fila sin fecha produciría un cursor
+-- inválido. Las filas insertadas fuera de JPA sin fecha toman la de su
+-- última actualización o, si tampoco la tienen, la de la migración.
+-- Con ddl-auto=validate Hibernate no modifica columnas: aplicar manualmente.
+
+UPDATE usuarios
+   SET fecha_creacion = COALESCE(fecha_actualizacion, NOW(6))
+ WHERE fecha_creacion IS NULL;
+
+-- El valor por defecto cubre los INSERT que no indiquen la fecha
+ALTER TABLE usuarios MODIFY fecha_creacion DATETIME(6) NOT NULL DEFAULT CURRENT_TIMESTAMP(6);
@@ -0,0 +1,30 @@
+-- ===================================================
+-- Retirada de las columnas de credenciales de usuarios
+-- ===================================================
+-- Segunda fase de V5: aplicar solo con la versión que mapea
+-- CredencialUsuario ya desplegada y comprobada. Las columnas retiradas ya
+-- no se leen ni se escriben.
+
+-- Comprobación previa: cada usuario debe tener su credencial. Si los
+-- recuentos no coinciden, el INSERT viola la restricción CHECK (MySQL
+-- 8.0.16 o posterior) y el script se detiene sin retirar ninguna columna.
+-- La FK de credenciales_usuario impide que haya credenciales de más.
+CREATE TEMPORARY TABLE comprobacion_credenciales (
+    usuarios     BIGINT NOT NULL,
+    credenciales BIGINT NOT NULL,
+    CONSTRAINT chk_todas_copiadas CHECK (usuarios = credenciales)
+);
+
+INSERT INTO comprobacion_credenciales (usuarios, credenciales)
+SELECT (SELECT COUNT(*) FROM usuarios), (SELECT COUNT(*) FROM credenciales_usuario);
+
+DROP TEMPORARY TABLE comprobacion_credenciales;
+
+DROP INDEX idx_bloqueado_fecha_bloqueo ON usuarios;
+
+ALTER TABLE usuarios
+    DROP COLUMN password_hash,
+    DROP COLUMN intentos_fallidos,
+    DROP COLUMN bloqueado,
+    DROP COLUMN fecha_bloqueo,
+    DROP COLUMN ultimo_login;
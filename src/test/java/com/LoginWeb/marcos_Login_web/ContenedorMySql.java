@@ -0,0 +1,35 @@
+package com.LoginWeb.marcos_Login_web;
+
+import org.testcontainers.mysql.MySQLContainer;
+import org.testcontainers.utility.DockerImageName;
+
+/**
+ * MySQL de las pruebas de integración: un único contenedor por ejecución,
+ * compartido por todas las clases (se arranca al cargar esta clase y lo
+ * para Testcontainers al terminar la JVM).
+ *
+ * Se usa root para que las pruebas de migraciones puedan crear su propia
+ * base de datos, separada de la que usa el contexto de Spring.
+ */
+public final class ContenedorMySql {
+
+    public static final MySQLContainer MYSQL = new MySQLContainer(DockerImageName.parse("mysql:8.4"))
+            .withDatabaseName("gestion_usuarios")
+            .withUsername("root")
+            .withPassword("pruebas");
+
+    static {
+        MYSQL.start();
+    }
+
+    private ContenedorMySql() {
+    }
+
+    /**
+     * URL JDBC de otra base de datos del mismo contenedor.
+     */
+    public static String urlDe(String baseDatos) {
+        return "jdbc:mysql://" + MYSQL.getHost() + ":" + MYSQL.getMappedPort(3306)
+                + "/" + baseDatos + "?useSSL=false&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+    }
+}
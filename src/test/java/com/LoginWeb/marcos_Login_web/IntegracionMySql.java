@@ -0,0 +1,26 @@
+package com.LoginWeb.marcos_Login_web;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+/**
+ * Base de las pruebas de servicios y repositorios contra MySQL
+ * (ContenedorMySql). El esquema lo crea Hibernate desde las entidades
+ * (perfil test); las migraciones se prueban aparte (MigracionesTests).
+ *
+ * Cada prueba crea sus propios usuarios con nombres únicos: los contextos
+ * comparten la base de datos y no se limpia entre pruebas.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public abstract class IntegracionMySql {
+
+    @DynamicPropertySource
+    static void baseDatos(DynamicPropertyRegistry registro) {
+        registro.add("spring.datasource.url", ContenedorMySql.MYSQL::getJdbcUrl);
+        registro.add("spring.datasource.username", ContenedorMySql.MYSQL::getUsername);
+        registro.add("spring.datasource.password", ContenedorMySql.MYSQL::getPassword);
+    }
+}
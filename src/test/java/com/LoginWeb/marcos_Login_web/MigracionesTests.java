@@ -0,0 +1,173 @@
+package com.LoginWeb.marcos_Login_web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ScriptException;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * db/migraciones aplicadas en orden sobre el esquema inicial con más filas
+ * que cualquier tramo (más de 10.000), en su propia base de datos del
+ * contenedor. Una sola conexión: V7 usa una tabla temporal.
+ */
+class MigracionesTests {
+
+    private static final String BASE_DATOS = "migraciones";
+    private static final int FILAS = 12_000;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void crearEsquemaInicial() {
+        SingleConnectionDataSource servidor = new SingleConnectionDataSource(ContenedorMySql.MYSQL.getJdbcUrl(),
+                ContenedorMySql.MYSQL.getUsername(), ContenedorMySql.MYSQL.getPassword(), true);
+        JdbcTemplate root = new JdbcTemplate(servidor);
+        root.execute("DROP DATABASE IF EXISTS " + BASE_DATOS);
+        root.execute("CREATE DATABASE " + BASE_DATOS);
+        servidor.destroy();
+
+        dataSource = new SingleConnectionDataSource(ContenedorMySql.urlDe(BASE_DATOS),
+                ContenedorMySql.MYSQL.getUsername(), ContenedorMySql.MYSQL.getPassword(), true);
+        jdbc = new JdbcTemplate(dataSource);
+        ejecutar(new ClassPathResource("db/esquema-inicial.sql"));
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Object[]> filas = new ArrayList<>(FILAS);
+        for (int i = 1; i <= FILAS; i++) {
+            filas.add(new Object[]{
+                    "usuario" + i,
+                    "usuario" + i + "@Dominio" + (i % 7) + ".test",
+                    "$2a$04$hash" + i,
+                    i % 10 != 0,
+                    i % 100 == 0 ? null : ahora.minusMinutes(i),
+                    i % 2 == 0 ? ahora.minusHours(i) : null,
+                    i % 50 == 0 ? Integer.valueOf(3) : Integer.valueOf(i % 3),
+                    i % 50 == 0
+            });
+        }
+        jdbc.batchUpdate("INSERT INTO usuarios (username, email, password_hash, activo, fecha_creacion, " +
+                "ultimo_login, intentos_fallidos, bloqueado) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", filas);
+    }
+
+    @AfterEach
+    void cerrar() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void lasMigracionesConservanTodasLasCredenciales() {
+        Map<Long, Map<String, Object>> antes = new HashMap<>();
+        jdbc.query("SELECT id, password_hash, intentos_fallidos, bloqueado, ultimo_login FROM usuarios",
+                rs -> {
+                    antes.put(rs.getLong("id"), Map.of(
+                            "password_hash", rs.getString("password_hash"),
+                            "intentos_fallidos", rs.getInt("intentos_fallidos"),
+                            "bloqueado", rs.getBoolean("bloqueado"),
+                            "ultimo_login", String.valueOf(rs.getTimestamp("ultimo_login"))));
+                });
+        assertThat(antes).hasSize(FILAS);
+
+        migrar(version -> true);
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM usuarios", Long.class)).isEqualTo((long) FILAS);
+        Map<Long, Map<String, Object>> despues = new HashMap<>();
+        jdbc.query("SELECT usuario_id, password_hash, intentos_fallidos, bloqueado, ultimo_login " +
+                        "FROM credenciales_usuario",
+                rs -> {
+                    despues.put(rs.getLong("usuario_id"), Map.of(
+                            "password_hash", rs.getString("password_hash"),
+                            "intentos_fallidos", rs.getInt("intentos_fallidos"),
+                            "bloqueado", rs.getBoolean("bloqueado"),
+                            "ultimo_login", String.valueOf(rs.getTimestamp("ultimo_login"))));
+                });
+        assertThat(despues).isEqualTo(antes);
+
+        assertThat(columnasDeUsuarios()).doesNotContain("password_hash", "intentos_fallidos", "bloqueado",
+                "fecha_bloqueo", "ultimo_login");
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM usuarios WHERE fecha_creacion IS NULL " +
+                "OR dominio_email IS NULL", Long.class)).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(DISTINCT dominio_email) FROM usuarios", Long.class))
+                .isEqualTo(7L);
+        // V4: los bloqueos previos empiezan a contar desde la migración
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM credenciales_usuario " +
+                "WHERE bloqueado = true AND fecha_bloqueo IS NULL", Long.class)).isZero();
+    }
+
+    @Test
+    void V7NoRetiraNadaSiFaltaAlgunaCredencial() {
+        migrar(version -> version < 7);
+        jdbc.update("DELETE FROM credenciales_usuario WHERE usuario_id = (SELECT MAX(id) FROM usuarios)");
+
+        assertThatThrownBy(() -> migrar(version -> version == 7)).isInstanceOf(ScriptException.class);
+
+        assertThat(columnasDeUsuarios()).contains("password_hash", "intentos_fallidos", "bloqueado",
+                "fecha_bloqueo", "ultimo_login");
+    }
+
+    @Test
+    void trasV5LaNuevaVersionPuedeDarAltasSinLasColumnasAntiguas() {
+        migrar(version -> version < 7);
+
+        jdbc.update("INSERT INTO usuarios (username, email, dominio_email, activo, fecha_creacion) " +
+                "VALUES ('nuevo', 'nuevo@dominio.test', 'dominio.test', true, NOW(6))");
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM usuarios", Long.class)).isEqualTo(FILAS + 1L);
+    }
+
+    private void migrar(IntPredicate aplicar) {
+        Resource[] migraciones;
+        try {
+            migraciones = new PathMatchingResourcePatternResolver()
+                    .getResources("classpath:db/migraciones/V*__*.sql");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        assertThat(migraciones).isNotEmpty();
+        Arrays.stream(migraciones)
+                .sorted(Comparator.comparingInt(MigracionesTests::version))
+                .filter(m -> aplicar.test(version(m)))
+                .forEach(this::ejecutar);
+    }
+
+    private static int version(Resource migracion) {
+        String nombre = migracion.getFilename();
+        return Integer.parseInt(nombre.substring(1, nombre.indexOf("__")));
+    }
+
+    private void ejecutar(Resource script) {
+        try (Connection conexion = dataSource.getConnection()) {
+            ScriptUtils.executeSqlScript(conexion, new EncodedResource(script, StandardCharsets.UTF_8));
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<String> columnasDeUsuarios() {
+        return jdbc.queryForList("SELECT column_name FROM information_schema.columns " +
+                "WHERE table_schema = ? AND table_name = 'usuarios'", String.class, BASE_DATOS);
+    }
+}
@@ -0,0 +1,123 @@
+package com.LoginWeb.marcos_Login_web.busqueda;
+
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.repository.UsuarioRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Índice de trigramas en memoria (sin BBDD: el repositorio solo da la carga
+ * inicial): mayúsculas, subcadena frente a prefijo, consultas cortas,
+ * relevancia y mantenimiento incremental.
+ */
+class IndiceTrigramasTests {
+
+    private IndiceTrigramas indice;
+
+    @BeforeEach
+    void setUp() {
+        UsuarioRepository repositorio = mock(UsuarioRepository.class);
+        when(repositorio.findSiguientesPorId(eq(0L), any())).thenReturn(List.of(
+                resumen(1, "Marcos", "marcos@Example.com"),
+                resumen(2, "ana", "ana.garcia@correo.es"),
+                resumen(3, "mariana", "mari@example.com"),
+                resumen(4, "JuanMar", "juan@otro.es")));
+        indice = new IndiceTrigramas(repositorio, true, 100);
+        indice.reconstruir();
+    }
+
+    @Test
+    void laConstruccionIndexaTodosLosUsuarios() {
+        assertThat(indice.isListo()).isTrue();
+        assertThat(indice.getUsuariosIndexados()).isEqualTo(4);
+    }
+
+    @Test
+    void noDistingueMayusculas() {
+        assertThat(indice.buscarSubcadena("MARCOS", false, 10)).containsExactly(1L);
+        assertThat(indice.buscarSubcadena("juanmar", false, 10)).containsExactly(4L);
+        assertThat(indice.buscarSubcadena("EXAMPLE.COM", true, 10)).containsExactlyInAnyOrder(1L, 3L);
+    }
+
+    @Test
+    void subcadenaOrdenadaPorRelevancia() {
+        // Empieza por (más corto primero), después contiene
+        assertThat(indice.buscarSubcadena("mar", false, 10)).containsExactly(1L, 3L, 4L);
+    }
+
+    @Test
+    void prefijoSoloCoincideAlPrincipio() {
+        assertThat(indice.buscarPrefijo("mar", false, 10)).containsExactly(1L, 3L);
+        assertThat(indice.buscarPrefijo("ana", false, 10)).containsExactly(2L);
+        assertThat(indice.buscarSubcadena("ana", false, 10)).containsExactly(2L, 3L);
+    }
+
+    @Test
+    void elEmailSoloCuentaSiSePide() {
+        assertThat(indice.buscarSubcadena("garcia", false, 10)).isEmpty();
+        assertThat(indice.buscarSubcadena("garcia", true, 10)).containsExactly(2L);
+        // Coincidencia por username antes que por email
+        assertThat(indice.buscarSubcadena("mari", true, 10)).containsExactly(3L);
+        assertThat(indice.buscarSubcadena("ju", true, 10)).containsExactly(4L);
+    }
+
+    @Test
+    void consultasDeMenosDeTresCaracteres() {
+        assertThat(indice.buscarSubcadena("ma", false, 10)).containsExactly(1L, 3L, 4L);
+        assertThat(indice.buscarSubcadena("n", false, 10)).containsExactly(2L, 3L, 4L);
+        assertThat(indice.buscarPrefijo("a", false, 10)).containsExactly(2L);
+        assertThat(indice.buscarPrefijo("M", false, 10)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void consultaVaciaOLimiteCero() {
+        assertThat(indice.buscarSubcadena("  ", true, 10)).isEmpty();
+        assertThat(indice.buscarSubcadena(null, true, 10)).isEmpty();
+        assertThat(indice.buscarSubcadena("mar", false, 0)).isEmpty();
+        assertThat(indice.buscarSubcadena("mar", false, 2)).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void altaYModificacionIncrementales() {
+        indice.indexarAlConfirmar(usuario(2000, "Marta", "marta@example.com"));
+        // Mismo rango: el username más corto primero
+        assertThat(indice.buscarPrefijo("mar", false, 10)).containsExactly(2000L, 1L, 3L);
+        assertThat(indice.getUsuariosIndexados()).isEqualTo(5);
+
+        // Cambio de username: los trigramas antiguos dejan de coincidir
+        indice.indexarAlConfirmar(usuario(1, "pedro", "pedro@example.com"));
+        assertThat(indice.buscarSubcadena("marcos", true, 10)).isEmpty();
+        assertThat(indice.buscarSubcadena("pedro", false, 10)).containsExactly(1L);
+        assertThat(indice.getUsuariosIndexados()).isEqualTo(5);
+    }
+
+    @Test
+    void bajaIncremental() {
+        indice.eliminarAlConfirmar(3L);
+
+        assertThat(indice.buscarSubcadena("mar", true, 10)).containsExactly(1L, 4L);
+        assertThat(indice.buscarSubcadena("ma", false, 10)).containsExactly(1L, 4L);
+        assertThat(indice.getUsuariosIndexados()).isEqualTo(3);
+
+        // Quitar un ID que no está no cambia nada
+        indice.eliminarAlConfirmar(99L);
+        assertThat(indice.getUsuariosIndexados()).isEqualTo(3);
+    }
+
+    private static UsuarioResumen resumen(long id, String username, String email) {
+        return new UsuarioResumen(id, username, email, true, null);
+    }
+
+    private static Usuario usuario(long id, String username, String email) {
+        return Usuario.builder().id(id).username(username).email(email).build();
+    }
+}
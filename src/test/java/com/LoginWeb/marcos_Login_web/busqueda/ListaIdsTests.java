@@ -0,0 +1,60 @@
+package com.LoginWeb.marcos_Login_web.busqueda;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lista de IDs ordenada: inserción en cualquier orden, repetidos, borrado e intersección.
+ */
+class ListaIdsTests {
+
+    @Test
+    void mantieneElOrdenSinRepetidos() {
+        ListaIds lista = lista(5, 1, 9, 3, 5, 1, 7, 2);
+
+        assertThat(lista.copia()).containsExactly(1, 2, 3, 5, 7, 9);
+        assertThat(lista.tamaño()).isEqualTo(6);
+    }
+
+    @Test
+    void creceMasAllaDeLaCapacidadInicial() {
+        ListaIds lista = new ListaIds();
+        for (int id = 100; id > 0; id--) {
+            lista.añadir(id);
+        }
+
+        assertThat(lista.tamaño()).isEqualTo(100);
+        assertThat(lista.copia()).startsWith(1, 2, 3).endsWith(99, 100);
+    }
+
+    @Test
+    void quitarUnIdPresenteOAusente() {
+        ListaIds lista = lista(1, 2, 3);
+
+        lista.quitar(2);
+        lista.quitar(42);
+        assertThat(lista.copia()).containsExactly(1, 3);
+
+        lista.quitar(1);
+        lista.quitar(3);
+        assertThat(lista.vacia()).isTrue();
+    }
+
+    @Test
+    void intersecarDevuelveLosComunesOrdenados() {
+        ListaIds lista = lista(1, 3, 5, 7, 9);
+
+        assertThat(lista.intersecar(new int[]{2, 3, 4, 9, 10})).containsExactly(3, 9);
+        assertThat(lista.intersecar(new int[]{2, 4, 6})).isEmpty();
+        assertThat(lista.intersecar(new int[0])).isEmpty();
+    }
+
+    private static ListaIds lista(int... ids) {
+        ListaIds lista = new ListaIds();
+        for (int id : ids) {
+            lista.añadir(id);
+        }
+        return lista;
+    }
+}
@@ -0,0 +1,190 @@
+package com.LoginWeb.marcos_Login_web.controller;
+
+import com.LoginWeb.marcos_Login_web.config.SeguridadConfig;
+import com.LoginWeb.marcos_Login_web.dto.UsuarioResumen;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.service.ConflictoException;
+import com.LoginWeb.marcos_Login_web.service.UsuarioService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sesión y CSRF de la API (login y petición protegida posterior) y visibilidad
+ * del email en las consultas.
+ */
+@WebMvcTest(controllers = {AutenticacionController.class, UsuarioController.class})
+@Import(SeguridadConfig.class)
+class ApiSeguridadTests {
+
+    private static final String LOGIN = "{\"username\":\"ana\",\"password\":\"Secreta123\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UsuarioService usuarioService;
+
+    private final Usuario ana = Usuario.builder()
+            .id(1L)
+            .username("ana")
+            .email("ana@example.com")
+            .activo(true)
+            .fechaCreacion(LocalDateTime.of(2025, 1, 1, 0, 0))
+            .build();
+
+    private final Usuario luis = Usuario.builder()
+            .id(2L)
+            .username("luis")
+            .email("luis@example.com")
+            .activo(true)
+            .fechaCreacion(LocalDateTime.of(2025, 1, 1, 0, 0))
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        when(usuarioService.loginConIntentos(eq("ana"), eq("Secreta123"), any())).thenReturn(Optional.of(ana));
+        when(usuarioService.obtenerPorId(1L)).thenReturn(Optional.of(ana));
+        when(usuarioService.obtenerPorId(2L)).thenReturn(Optional.of(luis));
+        when(usuarioService.actualizarUsuario(1L, "nuevo@example.com")).thenReturn(ana);
+    }
+
+    @Test
+    void elLoginDevuelveLaCookieCsrfYElPatchPosteriorLaAcepta() throws Exception {
+        MvcResult login = login();
+        Cookie xsrf = login.getResponse().getCookie("XSRF-TOKEN");
+        assertThat(xsrf).isNotNull();
+
+        mockMvc.perform(patch("/api/usuarios/1")
+                        .session(sesion(login))
+                        .cookie(xsrf)
+                        .header("X-XSRF-TOKEN", xsrf.getValue())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"nuevo@example.com\"}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void unPatchSinTokenCsrfSeRechaza() throws Exception {
+        MvcResult login = login();
+
+        mockMvc.perform(patch("/api/usuarios/1")
+                        .session(sesion(login))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"nuevo@example.com\"}"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void cambiarLaContraseñaExigeLaActual() throws Exception {
+        MvcResult login = login();
+        Cookie xsrf = login.getResponse().getCookie("XSRF-TOKEN");
+
+        mockMvc.perform(patch("/api/usuarios/1")
+                        .session(sesion(login))
+                        .cookie(xsrf)
+                        .header("X-XSRF-TOKEN", xsrf.getValue())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"password\":\"Nueva12345\"}"))
+                .andExpect(status().isBadRequest());
+        verify(usuarioService, never()).cambiarPassword(any(), any(), any());
+        verify(usuarioService, never()).actualizarUsuario(any(), any());
+    }
+
+    @Test
+    void cambiarLaContraseñaPasaPorLaVerificacionDeLaActual() throws Exception {
+        when(usuarioService.cambiarPassword(1L, "Secreta123", "Nueva12345")).thenReturn(ana);
+        MvcResult login = login();
+        Cookie xsrf = login.getResponse().getCookie("XSRF-TOKEN");
+
+        mockMvc.perform(patch("/api/usuarios/1")
+                        .session(sesion(login))
+                        .cookie(xsrf)
+                        .header("X-XSRF-TOKEN", xsrf.getValue())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"password\":\"Nueva12345\",\"passwordActual\":\"Secreta123\"}"))
+                .andExpect(status().isOk());
+        verify(usuarioService).cambiarPassword(1L, "Secreta123", "Nueva12345");
+        verify(usuarioService, never()).actualizarUsuario(any(), any());
+    }
+
+    @Test
+    void unCambioConcurrenteDeLaContraseñaRespondeConflicto() throws Exception {
+        when(usuarioService.cambiarPassword(1L, "Secreta123", "Nueva12345"))
+                .thenThrow(new ConflictoException("La contraseña se modificó durante la operación"));
+        MvcResult login = login();
+        Cookie xsrf = login.getResponse().getCookie("XSRF-TOKEN");
+
+        mockMvc.perform(patch("/api/usuarios/1")
+                        .session(sesion(login))
+                        .cookie(xsrf)
+                        .header("X-XSRF-TOKEN", xsrf.getValue())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"password\":\"Nueva12345\",\"passwordActual\":\"Secreta123\"}"))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void elEmailSoloSeMuestraAlPropioUsuario() throws Exception {
+        MockHttpSession sesion = sesion(login());
+
+        mockMvc.perform(get("/api/usuarios/1").session(sesion))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email").value("ana@example.com"));
+        mockMvc.perform(get("/api/usuarios/2").session(sesion))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("luis"))
+                .andExpect(jsonPath("$.email").doesNotExist());
+    }
+
+    @Test
+    void laBusquedaNoMuestraNiUsaElEmailDeOtros() throws Exception {
+        when(usuarioService.buscarResumenPorUsername("a", 20))
+                .thenReturn(List.of(UsuarioResumen.de(ana), UsuarioResumen.de(luis)));
+
+        mockMvc.perform(get("/api/usuarios/buscar").param("texto", "a").session(sesion(login())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].email").value("ana@example.com"))
+                .andExpect(jsonPath("$[1].email").doesNotExist());
+        verify(usuarioService, never()).buscarUsuarios(any(), anyInt());
+    }
+
+    private MvcResult login() throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(LOGIN))
+                .andExpect(status().isOk())
+                .andReturn();
+    }
+
+    private static MockHttpSession sesion(MvcResult login) {
+        MockHttpSession sesion = (MockHttpSession) login.getRequest().getSession(false);
+        assertThat(sesion).isNotNull();
+        return sesion;
+    }
+}
@@ -0,0 +1,139 @@
+package com.LoginWeb.marcos_Login_web.repository;
+
+import com.LoginWeb.marcos_Login_web.IntegracionMySql;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.service.UsuarioNoEncontradoException;
+import com.LoginWeb.marcos_Login_web.service.UsuarioService;
+import com.LoginWeb.marcos_Login_web.util.PasswordUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Perfil (usuarios) y credencial (credenciales_usuario) en tablas separadas:
+ * alta conjunta, carga enlazada, accesores sin credencial y borrado en cascada
+ * (por JDBC y desde el servicio).
+ */
+class CredencialesUsuarioTests extends IntegracionMySql {
+
+    private static final String PASSWORD = "Correcta123";
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private CredencialUsuarioRepository credencialRepository;
+
+    @Autowired
+    private PasswordUtil passwordUtil;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void elAltaGuardaPerfilYCredencialConElMismoId() {
+        Usuario usuario = crear("alta", "alta.test");
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM usuarios WHERE id = ?", Long.class, usuario.getId()))
+                .isEqualTo(1L);
+        String hash = jdbc.queryForObject("SELECT password_hash FROM credenciales_usuario WHERE usuario_id = ?",
+                String.class, usuario.getId());
+        assertThat(hash).startsWith("{bcrypt}$2");
+        assertThat(passwordUtil.verifyPassword(PASSWORD, hash)).isTrue();
+        Usuario cargado = credencialRepository.findUsuarioConCredencialById(usuario.getId()).orElseThrow();
+        assertThat(cargado.getCredencial()).isNotNull();
+        assertThat(cargado.getPasswordHash()).isEqualTo(usuario.getPasswordHash());
+        assertThat(cargado.getIntentosFallidos()).isZero();
+        assertThat(cargado.isBloqueado()).isFalse();
+    }
+
+    @Test
+    void unUsuarioCargadoSinCredencialFallaConUnErrorClaro() {
+        Usuario usuario = crear("perfil", "perfil.test");
+
+        Usuario perfil = usuarioRepository.findById(usuario.getId()).orElseThrow();
+        assertThat(perfil.getCredencial()).isNull();
+        assertThatThrownBy(perfil::getPasswordHash)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("findUsuarioConCredencial");
+        assertThatThrownBy(perfil::isBloqueado).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void losMetodosDelServicioQueDevuelvenEntidadesLasEnlazan() {
+        String dominio = "enlazados-" + UUID.randomUUID().toString().substring(0, 8) + ".test";
+        Usuario usuario = crear("enlazado", dominio);
+        crear("enlazado", dominio);
+
+        List<Usuario> delDominio = usuarioService.obtenerPorDominioEmail(dominio);
+        assertThat(delDominio).hasSize(2).allSatisfy(u -> assertThat(u.isBloqueado()).isFalse());
+        assertThat(usuarioService.obtenerTodos()).isNotEmpty().allSatisfy(u -> assertThat(u.getCredencial()).isNotNull());
+        assertThat(usuarioService.obtenerUsuariosActivos()).allSatisfy(u -> assertThat(u.getCredencial()).isNotNull());
+        assertThat(usuarioService.obtenerUsuariosRecientes(1)).allSatisfy(u -> assertThat(u.getCredencial()).isNotNull());
+        assertThat(usuarioService.buscarUsuariosPaginados(0, 5).getContent())
+                .allSatisfy(u -> assertThat(u.getCredencial()).isNotNull());
+
+        assertThat(usuarioService.desactivarUsuario(usuario.getId()).isBloqueado()).isFalse();
+        assertThat(usuarioService.activarUsuario(usuario.getId()).getIntentosFallidos()).isZero();
+        assertThat(usuarioService.actualizarUsuario(usuario.getId(), "nuevo-" + usuario.getEmail()).getPasswordHash())
+                .isEqualTo(usuario.getPasswordHash());
+    }
+
+    @Test
+    void cambiarLaContraseñaSoloEscribeLaCredencial() {
+        Usuario usuario = crear("cambio", "cambio.test");
+        Object actualizacion = jdbc.queryForObject("SELECT fecha_actualizacion FROM usuarios WHERE id = ?",
+                Object.class, usuario.getId());
+
+        usuarioService.cambiarPassword(usuario.getId(), PASSWORD, "Nueva12345");
+
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), "Nueva12345")).isPresent();
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), PASSWORD)).isEmpty();
+        assertThat(jdbc.queryForObject("SELECT fecha_actualizacion FROM usuarios WHERE id = ?",
+                Object.class, usuario.getId())).isEqualTo(actualizacion);
+    }
+
+    @Test
+    void borrarElUsuarioPorJdbcBorraSuCredencial() {
+        Usuario usuario = crear("cascada", "cascada.test");
+
+        jdbc.update("DELETE FROM usuarios WHERE id = ?", usuario.getId());
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM credenciales_usuario WHERE usuario_id = ?",
+                Long.class, usuario.getId())).isZero();
+    }
+
+    @Test
+    void eliminarElUsuarioBorraSuCredencialYLoSacaDeLasCaches() {
+        Usuario usuario = crear("baja", "baja.test");
+        // Cargado antes del borrado para que quede en la caché de usuarios
+        assertThat(usuarioService.obtenerPorId(usuario.getId())).isPresent();
+        assertThat(usuarioService.obtenerPorUsername(usuario.getUsername())).isPresent();
+
+        usuarioService.eliminarUsuario(usuario.getId());
+
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM usuarios WHERE id = ?",
+                Long.class, usuario.getId())).isZero();
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM credenciales_usuario WHERE usuario_id = ?",
+                Long.class, usuario.getId())).isZero();
+        assertThat(usuarioService.obtenerPorId(usuario.getId())).isEmpty();
+        assertThat(usuarioService.obtenerPorUsername(usuario.getUsername())).isEmpty();
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), PASSWORD)).isEmpty();
+        assertThatThrownBy(() -> usuarioService.eliminarUsuario(usuario.getId()))
+                .isInstanceOf(UsuarioNoEncontradoException.class);
+    }
+
+    private Usuario crear(String prefijo, String dominio) {
+        String username = prefijo + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return usuarioService.crearUsuario(username, username + "@" + dominio, PASSWORD);
+    }
+}
@@ -0,0 +1,131 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.IntegracionMySql;
+import com.LoginWeb.marcos_Login_web.cache.UsuarioCache;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import com.LoginWeb.marcos_Login_web.repository.CredencialUsuarioRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Expiración de bloqueos contra MySQL: el login que levanta un bloqueo
+ * expirado, el barrido y la carrera entre ambos.
+ */
+class ExpiracionBloqueosTests extends IntegracionMySql {
+
+    private static final String PASSWORD = "Correcta123";
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private ExpiracionBloqueos expiracionBloqueos;
+
+    @Autowired
+    private CredencialUsuarioRepository credencialRepository;
+
+    @Autowired
+    private UsuarioCache usuarioCache;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void unBloqueoVigenteImpideElLogin() {
+        Usuario usuario = crearBloqueado("vigente");
+
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), PASSWORD)).isEmpty();
+        assertThat(credencial(usuario).get("bloqueado")).isEqualTo(true);
+    }
+
+    @Test
+    void unBloqueoExpiradoSeLevantaEnElLoginCorrecto() {
+        Usuario usuario = crearBloqueado("expirado");
+        expirarBloqueo(usuario);
+
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), PASSWORD)).isPresent();
+        Map<String, Object> credencial = credencial(usuario);
+        assertThat(credencial.get("bloqueado")).isEqualTo(false);
+        assertThat(credencial.get("intentos_fallidos")).isEqualTo(0);
+        assertThat(credencial.get("fecha_bloqueo")).isNull();
+        assertThat(credencial.get("ultimo_login")).isNotNull();
+    }
+
+    @Test
+    void unBloqueoExpiradoConContraseñaIncorrectaCuentaUnIntentoNuevo() {
+        Usuario usuario = crearBloqueado("expirado-fallo");
+        expirarBloqueo(usuario);
+
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), "Incorrecta")).isEmpty();
+        Map<String, Object> credencial = credencial(usuario);
+        assertThat(credencial.get("bloqueado")).isEqualTo(false);
+        assertThat(credencial.get("intentos_fallidos")).isEqualTo(1);
+    }
+
+    @Test
+    void elBarridoLevantaSoloLosBloqueosExpirados() {
+        Usuario expirado = crearBloqueado("barrido-expirado");
+        Usuario vigente = crearBloqueado("barrido-vigente");
+        expirarBloqueo(expirado);
+
+        assertThat(expiracionBloqueos.barrer()).isGreaterThanOrEqualTo(1);
+
+        assertThat(credencial(expirado).get("bloqueado")).isEqualTo(false);
+        assertThat(credencial(expirado).get("intentos_fallidos")).isEqualTo(0);
+        assertThat(credencial(vigente).get("bloqueado")).isEqualTo(true);
+        // El barrido invalida la caché: el login ya no ve el bloqueo
+        assertThat(usuarioService.loginConIntentos(expirado.getUsername(), PASSWORD)).isPresent();
+    }
+
+    @Test
+    void siElBarridoSeAdelantaAlLoginElAccesoSeRegistraSinBloqueo() {
+        Usuario usuario = crearBloqueado("carrera");
+        expirarBloqueo(usuario);
+        // Copia leída por el login antes del barrido: bloqueada y expirada
+        Usuario leido = credencialRepository.findUsuarioConCredencialByUsername(usuario.getUsername()).orElseThrow();
+        LocalDateTime ahora = LocalDateTime.now();
+        assertThat(expiracionBloqueos.bloqueoExpirado(leido, ahora)).isTrue();
+
+        assertThat(expiracionBloqueos.barrer()).isGreaterThanOrEqualTo(1);
+
+        // El UPDATE condicional del login ya no encuentra el bloqueo: no aplica nada
+        assertThat(credencialRepository.registrarAccesoTrasBloqueo(leido.getId(), leido.getPasswordHash(),
+                ahora, expiracionBloqueos.limite(ahora))).isEmpty();
+        // y el acceso se registra como el de un usuario sin bloqueo
+        assertThat(credencialRepository.registrarAccesoCorrecto(leido.getId(), leido.getPasswordHash(), ahora))
+                .hasValueSatisfying(estado -> {
+                    assertThat(estado.bloqueado()).isFalse();
+                    assertThat(estado.intentosFallidos()).isZero();
+                });
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), PASSWORD)).isPresent();
+    }
+
+    private Usuario crearBloqueado(String prefijo) {
+        String username = prefijo + "-" + UUID.randomUUID().toString().substring(0, 8);
+        Usuario usuario = usuarioService.crearUsuario(username, username + "@pruebas.test", PASSWORD);
+        for (int i = 0; i < Usuario.MAX_INTENTOS_FALLIDOS; i++) {
+            assertThat(usuarioService.loginConIntentos(username, "Incorrecta")).isEmpty();
+        }
+        assertThat(credencial(usuario).get("bloqueado")).isEqualTo(true);
+        return usuario;
+    }
+
+    // Como si hubiera pasado bloqueo.duracion-minutos (y el TTL de la caché)
+    private void expirarBloqueo(Usuario usuario) {
+        jdbc.update("UPDATE credenciales_usuario SET fecha_bloqueo = ? WHERE usuario_id = ?",
+                LocalDateTime.now().minusDays(1), usuario.getId());
+        usuarioCache.invalidar(usuario.getId(), usuario.getUsername());
+    }
+
+    private Map<String, Object> credencial(Usuario usuario) {
+        return jdbc.queryForMap("SELECT intentos_fallidos, bloqueado, fecha_bloqueo, ultimo_login " +
+                "FROM credenciales_usuario WHERE usuario_id = ?", usuario.getId());
+    }
+}
@@ -0,0 +1,36 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Separación de campos del CSV de importación (mismo escapado que la exportación).
+ */
+class ImportacionCsvTests {
+
+    @Test
+    void camposSinComillas() {
+        assertThat(ImportacionService.camposCsv("ana,ana@example.com,Secreta1"))
+                .containsExactly("ana", "ana@example.com", "Secreta1");
+    }
+
+    @Test
+    void campoVacioAlFinal() {
+        assertThat(ImportacionService.camposCsv("ana,ana@example.com,"))
+                .containsExactly("ana", "ana@example.com", "");
+    }
+
+    @Test
+    void camposEntreComillasConComasComillasYSaltosDeLinea() {
+        assertThat(ImportacionService.camposCsv("\"ana,b\",\"dice \"\"hola\"\"\",\"una\nlínea\""))
+                .containsExactly("ana,b", "dice \"hola\"", "una\nlínea");
+    }
+
+    @Test
+    void comillasMalFormadas() {
+        assertThat(ImportacionService.camposCsv("\"ana,b,c")).isNull();
+        assertThat(ImportacionService.camposCsv("an\"a,b,c")).isNull();
+        assertThat(ImportacionService.camposCsv("\"ana\"x,b,c")).isNull();
+    }
+}
@@ -0,0 +1,122 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.IntegracionMySql;
+import com.LoginWeb.marcos_Login_web.dto.CriteriosMasivos;
+import com.LoginWeb.marcos_Login_web.dto.ResultadoOperacionMasiva;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Operaciones masivas por lotes (operaciones-masivas.tamano-lote=2 en el
+ * perfil test) sobre perfil y credencial, y su invalidación de la caché.
+ */
+class OperacionesMasivasTests extends IntegracionMySql {
+
+    private static final String PASSWORD = "Correcta123";
+    private static final int USUARIOS = 5;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcNombrado;
+
+    @Test
+    void desactivarYActivarPorDominioEnVariosLotes() {
+        String dominio = dominio();
+        List<Usuario> usuarios = crear(dominio);
+        // En caché como activos
+        usuarios.forEach(u -> assertThat(usuarioService.obtenerPorId(u.getId()).orElseThrow().getActivo()).isTrue());
+
+        List<ResultadoOperacionMasiva> progreso = new ArrayList<>();
+        ResultadoOperacionMasiva resultado = usuarioService.desactivarUsuarios(
+                CriteriosMasivos.builder().dominioEmail(dominio).build(), progreso::add);
+
+        assertThat(resultado.afectados()).isEqualTo(USUARIOS);
+        assertThat(resultado.lotes()).isEqualTo(3);
+        assertThat(progreso).hasSize(3);
+        // Cada usuario del lote se invalidó en la caché
+        usuarios.forEach(u -> assertThat(usuarioService.obtenerPorId(u.getId()).orElseThrow().getActivo()).isFalse());
+        assertThat(usuarioService.loginConIntentos(usuarios.getFirst().getUsername(), PASSWORD)).isEmpty();
+
+        resultado = usuarioService.activarUsuarios(CriteriosMasivos.builder().dominioEmail(dominio).build(), r -> { });
+        assertThat(resultado.afectados()).isEqualTo(USUARIOS);
+        assertThat(usuarioService.loginConIntentos(usuarios.getFirst().getUsername(), PASSWORD)).isPresent();
+    }
+
+    @Test
+    void desbloquearPorIdsSoloEscribeLaCredencial() {
+        List<Usuario> usuarios = crear(dominio());
+        List<Long> bloqueados = usuarios.subList(0, 2).stream().map(Usuario::getId).toList();
+        usuarios.subList(0, 2).forEach(this::bloquear);
+
+        ResultadoOperacionMasiva resultado = usuarioService.desbloquearUsuarios(
+                CriteriosMasivos.builder().ids(usuarios.stream().map(Usuario::getId).toList()).build(), r -> { });
+
+        // Solo los bloqueados están en el estado de origen
+        assertThat(resultado.candidatos()).isEqualTo(2);
+        assertThat(resultado.afectados()).isEqualTo(2);
+        assertThat(jdbcNombrado.queryForObject("SELECT COUNT(*) FROM credenciales_usuario " +
+                        "WHERE usuario_id IN (:ids) AND (bloqueado = true OR intentos_fallidos > 0)",
+                new MapSqlParameterSource("ids", bloqueados), Long.class)).isZero();
+        assertThat(usuarioService.loginConIntentos(usuarios.getFirst().getUsername(), PASSWORD)).isPresent();
+    }
+
+    @Test
+    void eliminarBorraPerfilesYCredenciales() {
+        String dominio = dominio();
+        List<Long> ids = crear(dominio).stream().map(Usuario::getId).toList();
+
+        ResultadoOperacionMasiva resultado = usuarioService.eliminarUsuarios(
+                CriteriosMasivos.builder().dominioEmail(dominio).build(), r -> { });
+
+        assertThat(resultado.afectados()).isEqualTo(USUARIOS);
+        MapSqlParameterSource parametros = new MapSqlParameterSource("ids", ids);
+        assertThat(jdbcNombrado.queryForObject("SELECT COUNT(*) FROM usuarios WHERE id IN (:ids)",
+                parametros, Long.class)).isZero();
+        assertThat(jdbcNombrado.queryForObject("SELECT COUNT(*) FROM credenciales_usuario WHERE usuario_id IN (:ids)",
+                parametros, Long.class)).isZero();
+        ids.forEach(id -> assertThat(usuarioService.obtenerPorId(id)).isEmpty());
+    }
+
+    @Test
+    void sinCriteriosSeRechaza() {
+        assertThatThrownBy(() -> usuarioService.eliminarUsuarios(CriteriosMasivos.builder().build(), r -> { }))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String dominio() {
+        return "masivas-" + UUID.randomUUID().toString().substring(0, 8) + ".test";
+    }
+
+    private List<Usuario> crear(String dominio) {
+        List<Usuario> usuarios = new ArrayList<>();
+        for (int i = 0; i < USUARIOS; i++) {
+            String username = "masivo-" + UUID.randomUUID().toString().substring(0, 8);
+            usuarios.add(usuarioService.crearUsuario(username, username + "@" + dominio, PASSWORD));
+        }
+        return usuarios;
+    }
+
+    private void bloquear(Usuario usuario) {
+        for (int i = 0; i < Usuario.MAX_INTENTOS_FALLIDOS; i++) {
+            usuarioService.loginConIntentos(usuario.getUsername(), "Incorrecta");
+        }
+        assertThat(jdbc.queryForObject("SELECT bloqueado FROM credenciales_usuario WHERE usuario_id = ?",
+                Boolean.class, usuario.getId())).isTrue();
+    }
+}
@@ -0,0 +1,58 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Límite de lo retenido cuando los volcados del último login fallan (sin BBDD).
+ */
+class UltimoLoginBufferTests {
+
+    private static final LocalDateTime AHORA = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final UltimoLoginBuffer buffer = new UltimoLoginBuffer(jdbc, mock(TaskScheduler.class), true, 2, 2);
+
+    @Test
+    void conLosVolcadosFallandoNoSeRetienenMasUsuariosQueElMaximo() {
+        when(jdbc.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("caída"));
+        buffer.registrar(1L, AHORA);
+        buffer.registrar(2L, AHORA);
+        buffer.volcar();
+        assertThat(buffer.getPendientes()).isEqualTo(2);
+
+        // Un usuario ya pendiente se sigue agrupando
+        buffer.registrar(1L, AHORA.plusMinutes(1));
+        // Uno nuevo se escribe directamente
+        buffer.registrar(3L, AHORA);
+        verify(jdbc).update(anyString(), eq(AHORA), eq(3L), eq(AHORA));
+        assertThat(buffer.getEscriturasDirectas()).isEqualTo(1L);
+
+        // Y si tampoco se puede escribir, se descarta
+        doThrow(new DataAccessResourceFailureException("caída")).when(jdbc).update(anyString(), any(), any(), any());
+        buffer.registrar(4L, AHORA);
+        assertThat(buffer.getDescartados()).isEqualTo(1L);
+        assertThat(buffer.getPendientes()).isEqualTo(2);
+    }
+
+    @Test
+    void elMaximoRetenidoNoPuedeSerMenorQueElDeVolcado() {
+        assertThatThrownBy(() -> new UltimoLoginBuffer(jdbc, mock(TaskScheduler.class), true, 10, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,71 @@
+package com.LoginWeb.marcos_Login_web.service;
+
+import com.LoginWeb.marcos_Login_web.IntegracionMySql;
+import com.LoginWeb.marcos_Login_web.entity.Usuario;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Último login diferido (UltimoLoginBuffer): solo se difiere cuando no hay
+ * intentos fallidos que resetear en la BBDD.
+ */
+@TestPropertySource(properties = "usuarios.ultimo-login.diferido.habilitado=true")
+class UltimoLoginDiferidoTests extends IntegracionMySql {
+
+    private static final String PASSWORD = "Correcta123";
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UltimoLoginBuffer ultimoLoginBuffer;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Test
+    void sinIntentosFallidosElUltimoLoginSeEscribeAlVolcar() {
+        Usuario usuario = crear("diferido");
+
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), PASSWORD)).isPresent();
+        assertThat(credencial(usuario).get("ultimo_login")).isNull();
+        // La lectura ya lo ve aunque no esté escrito
+        assertThat(usuarioService.obtenerPorId(usuario.getId()).orElseThrow().getUltimoLogin()).isNotNull();
+
+        ultimoLoginBuffer.volcar();
+        assertThat(credencial(usuario).get("ultimo_login")).isNotNull();
+    }
+
+    @Test
+    void conIntentosEnLaBBDDElLoginLosReseteaAunqueLaCopiaCacheadaNoLosTenga() {
+        Usuario usuario = crear("reset");
+        // Primer login: deja en caché una copia con 0 intentos
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), PASSWORD)).isPresent();
+        // Fallos registrados en otro nodo: esta caché no se entera
+        jdbc.update("UPDATE credenciales_usuario SET intentos_fallidos = 2 WHERE usuario_id = ?", usuario.getId());
+
+        assertThat(usuarioService.loginConIntentos(usuario.getUsername(), PASSWORD)).isPresent();
+
+        Map<String, Object> credencial = credencial(usuario);
+        assertThat(credencial.get("intentos_fallidos")).isEqualTo(0);
+        // Reset síncrono: el último login se escribe en la misma sentencia
+        assertThat(credencial.get("ultimo_login")).isNotNull();
+    }
+
+    private Usuario crear(String prefijo) {
+        String username = prefijo + "-" + UUID.randomUUID().toString().substring(0, 8);
+        return usuarioService.crearUsuario(username, username + "@diferido.test", PASSWORD);
+    }
+
+    private Map<String, Object> credencial(Usuario usuario) {
+        return jdbc.queryForMap("SELECT intentos_fallidos, ultimo_login FROM credenciales_usuario WHERE usuario_id = ?",
+                usuario.getId());
+    }
+}
@@ -0,0 +1,75 @@
+package com.LoginWeb.marcos_Login_web.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Ventana de costes aceptada, regeneración de hashes y aplicación del coste calibrado.
+ */
+class PasswordUtilTests {
+
+    private final PasswordHashingExecutor executor = new PasswordHashingExecutor(1, 10, 1000);
+
+    @AfterEach
+    void cerrar() throws InterruptedException {
+        executor.cerrar();
+    }
+
+    @Test
+    void sinVentanaSeRegeneraCualquierCosteDistintoDelObjetivo() {
+        PasswordUtil util = new PasswordUtil(executor, 5, 0, 0, false, 0);
+
+        assertThat(util.necesitaRehash(hash(4))).isTrue();
+        assertThat(util.necesitaRehash(hash(5))).isFalse();
+        assertThat(util.necesitaRehash(hash(6))).isTrue();
+    }
+
+    @Test
+    void dentroDeLaVentanaNoSeRegenera() {
+        PasswordUtil util = new PasswordUtil(executor, 5, 4, 6, false, 0);
+
+        assertThat(util.necesitaRehash(hash(4))).isFalse();
+        assertThat(util.necesitaRehash(hash(6))).isFalse();
+        assertThat(util.necesitaRehash(hash(7))).isTrue();
+    }
+
+    @Test
+    void losHashesSinVersionarSeRegeneran() {
+        PasswordUtil util = new PasswordUtil(executor, 5, 4, 6, false, 0);
+
+        assertThat(util.necesitaRehash(new BCryptPasswordEncoder(5).encode("Secreta123"))).isTrue();
+    }
+
+    @Test
+    void elCosteObjetivoDebeEstarDentroDeLaVentana() {
+        assertThatThrownBy(() -> new PasswordUtil(executor, 7, 4, 6, false, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void elCosteCalibradoSeAplicaLimitadoALaVentana() {
+        // La calibración nunca baja de coste 10: la ventana 4-5 lo limita a 5
+        PasswordUtil util = new PasswordUtil(executor, 4, 4, 5, true, 250);
+
+        assertThat(util.getCoste()).isEqualTo(5);
+        String hash = util.hashPassword("Secreta123");
+        assertThat(PasswordUtil.costeDe(hash)).isEqualTo(5);
+        assertThat(util.verifyPassword("Secreta123", hash)).isTrue();
+        assertThat(util.necesitaRehash(hash)).isFalse();
+    }
+
+    @Test
+    void costeParaLatencia() {
+        assertThat(PasswordUtil.costeParaLatencia(50, 250)).isEqualTo(12);
+        assertThat(PasswordUtil.costeParaLatencia(300, 250)).isEqualTo(10);
+        assertThat(PasswordUtil.costeParaLatencia(0.1, 250)).isEqualTo(16);
+    }
+
+    private static String hash(int coste) {
+        return "{bcrypt}" + new BCryptPasswordEncoder(coste).encode("Secreta123");
+    }
+}
@@ -0,0 +1,21 @@
+-- Esquema de usuarios anterior a db/migraciones (V1): el que generaba la
+-- primera versión de la entidad Usuario. Solo para MigracionesTests.
+
+CREATE TABLE usuarios (
+    id                  BIGINT       NOT NULL AUTO_INCREMENT,
+    username            VARCHAR(50)  NOT NULL,
+    email               VARCHAR(100) NOT NULL,
+    password_hash       VARCHAR(255) NOT NULL,
+    activo              BIT(1)       NOT NULL,
+    fecha_creacion      DATETIME(6)  NULL,
+    fecha_actualizacion DATETIME(6)  NULL,
+    ultimo_login        DATETIME(6)  NULL,
+    intentos_fallidos   INT          NOT NULL,
+    bloqueado           BIT(1)       NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_usuarios_username UNIQUE (username),
+    CONSTRAINT uk_usuarios_email UNIQUE (email)
+);
+
+CREATE INDEX idx_username ON usuarios (username);
+CREATE INDEX idx_email ON usuarios (email);